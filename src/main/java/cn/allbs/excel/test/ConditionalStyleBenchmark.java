@@ -0,0 +1,66 @@
+package cn.allbs.excel.test;
+
+import cn.allbs.excel.handle.ConditionalStyleWriteHandler;
+import cn.allbs.excel.test.entity.ConditionalStyleDTO;
+import cn.allbs.excel.test.export.CompiledConditionalStyleWriteHandler;
+import cn.allbs.excel.test.service.TestDataService;
+import com.alibaba.excel.EasyExcel;
+import com.alibaba.excel.write.handler.WriteHandler;
+
+import java.io.File;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * 条件样式导出基准
+ * 同样的数据分别用 allbs-excel 自带的 {@link ConditionalStyleWriteHandler} 和预编译的
+ * {@link CompiledConditionalStyleWriteHandler} 导出，比较耗时和文件大小
+ * <p>
+ * 运行：java -Xmx1g ... cn.allbs.excel.test.ConditionalStyleBenchmark [行数] [轮数]
+ */
+public class ConditionalStyleBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int rows = args.length > 0 ? Integer.parseInt(args[0]) : 500_000;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 3;
+
+        List<ConditionalStyleDTO> data = new TestDataService().generateConditionalStyleData(rows);
+
+        System.out.println("========================================");
+        System.out.println("条件样式导出基准: " + rows + " 行 x " + rounds + " 轮");
+        System.out.println("========================================");
+
+        // 预热
+        run(data, () -> new ConditionalStyleWriteHandler(ConditionalStyleDTO.class));
+        run(data, () -> new CompiledConditionalStyleWriteHandler(ConditionalStyleDTO.class));
+
+        long legacyMs = 0;
+        long compiledMs = 0;
+        for (int i = 0; i < rounds; i++) {
+            legacyMs += run(data, () -> new ConditionalStyleWriteHandler(ConditionalStyleDTO.class));
+            compiledMs += run(data, () -> new CompiledConditionalStyleWriteHandler(ConditionalStyleDTO.class));
+        }
+
+        CompiledConditionalStyleWriteHandler handler = new CompiledConditionalStyleWriteHandler(ConditionalStyleDTO.class);
+        run(data, () -> handler);
+
+        System.out.printf("ConditionalStyleWriteHandler:         平均 %d ms%n", legacyMs / rounds);
+        System.out.printf("CompiledConditionalStyleWriteHandler: 平均 %d ms，新建样式 %d 个%n",
+                compiledMs / rounds, handler.getStyleCount());
+        System.out.printf("提升: %.2fx%n", (double) legacyMs / compiledMs);
+    }
+
+    private static long run(List<ConditionalStyleDTO> data, Supplier<WriteHandler> handler) throws Exception {
+        File file = File.createTempFile("conditional_style_", ".xlsx");
+        try {
+            long start = System.currentTimeMillis();
+            EasyExcel.write(file, ConditionalStyleDTO.class)
+                    .registerWriteHandler(handler.get())
+                    .sheet("条件样式")
+                    .doWrite(data);
+            return System.currentTimeMillis() - start;
+        } finally {
+            file.delete();
+        }
+    }
+}
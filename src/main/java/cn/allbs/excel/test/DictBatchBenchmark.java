@@ -0,0 +1,131 @@
+package cn.allbs.excel.test;
+
+import cn.allbs.excel.service.DictService;
+import cn.allbs.excel.test.entity.SensitiveUserDTO;
+import cn.allbs.excel.test.export.DictChunkPrefetcher;
+import cn.allbs.excel.test.service.BatchDictService;
+import cn.allbs.excel.test.service.CachingDictService;
+import cn.allbs.excel.test.service.TestDataService;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 字典批量查询基准
+ * 模拟每次往返有固定延迟的远程字典服务，{@link SensitiveUserDTO} 的状态列改成高基数字典，按 DictConverter 的方式逐个单元格取标签，
+ * 比较三种方式的往返次数和耗时：直接逐个查询、经 {@link CachingDictService} 逐个查询、按块预取（{@link DictChunkPrefetcher}）后再逐个查询
+ * <p>
+ * 运行：java ... cn.allbs.excel.test.DictBatchBenchmark [行数] [状态字典基数] [每次往返延迟微秒]
+ */
+public class DictBatchBenchmark {
+
+    private static final int CHUNK_SIZE = 1000;
+
+    public static void main(String[] args) {
+        int rows = args.length > 0 ? Integer.parseInt(args[0]) : 20_000;
+        int cardinality = args.length > 1 ? Integer.parseInt(args[1]) : 5_000;
+        long latencyMicros = args.length > 2 ? Long.parseLong(args[2]) : 200;
+
+        List<SensitiveUserDTO> data = new TestDataService().generateSensitiveUsers(rows);
+        for (int i = 0; i < data.size(); i++) {
+            data.get(i).setStatus(String.valueOf(i % cardinality));
+        }
+
+        System.out.println("========================================");
+        System.out.printf("字典批量查询基准: %d 行，状态字典 %d 个值，每次往返 %d 微秒%n", rows, cardinality, latencyMicros);
+        System.out.println("========================================");
+
+        RemoteDict direct = new RemoteDict(latencyMicros);
+        run("逐个查询", data, direct, null, false);
+
+        RemoteDict cachedRemote = new RemoteDict(latencyMicros);
+        run("缓存逐个查询", data, cachedRemote, new CachingDictService(cachedRemote, 0, 1000, cardinality), false);
+
+        RemoteDict batchRemote = new RemoteDict(latencyMicros);
+        run("缓存 + 按块预取", data, batchRemote, new CachingDictService(batchRemote, 0, 1000, cardinality), true);
+    }
+
+    private static void run(String mode, List<SensitiveUserDTO> data, RemoteDict remote, CachingDictService cache,
+                            boolean prefetch) {
+        DictService dictService = cache != null ? cache : remote;
+        DictChunkPrefetcher prefetcher = prefetch ? DictChunkPrefetcher.of(SensitiveUserDTO.class, dictService) : null;
+        long start = System.nanoTime();
+        int labeled = 0;
+        for (int from = 0; from < data.size(); from += CHUNK_SIZE) {
+            List<SensitiveUserDTO> chunk = data.subList(from, Math.min(from + CHUNK_SIZE, data.size()));
+            if (prefetcher != null) {
+                prefetcher.accept(chunk);
+            }
+            // 与 DictConverter 一样逐个单元格取标签
+            for (SensitiveUserDTO user : chunk) {
+                if (dictService.getLabel("sys_user_sex", user.getSex()) != null) {
+                    labeled++;
+                }
+                if (dictService.getLabel("sys_user_status", user.getStatus()) != null) {
+                    labeled++;
+                }
+            }
+        }
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        System.out.printf("%-12s 往返 %,d 次，耗时 %,d ms，取到标签 %,d 个%n", mode, remote.roundTrips.get(), elapsed, labeled);
+    }
+
+    /**
+     * 模拟远程字典服务：单值和批量查询都算一次往返
+     */
+    private static final class RemoteDict implements DictService, BatchDictService {
+
+        private final long latencyNanos;
+        private final AtomicLong roundTrips = new AtomicLong();
+
+        RemoteDict(long latencyMicros) {
+            this.latencyNanos = TimeUnit.MICROSECONDS.toNanos(latencyMicros);
+        }
+
+        @Override
+        public String getLabel(String dictType, String dictValue) {
+            roundTrip();
+            return label(dictType, dictValue);
+        }
+
+        @Override
+        public String getValue(String dictType, String dictLabel) {
+            roundTrip();
+            return dictLabel;
+        }
+
+        @Override
+        public Map<String, String> getLabels(String dictType, Collection<String> dictValues) {
+            roundTrip();
+            Map<String, String> labels = new HashMap<>();
+            for (String dictValue : dictValues) {
+                labels.put(dictValue, label(dictType, dictValue));
+            }
+            return labels;
+        }
+
+        @Override
+        public Map<String, String> getValues(String dictType, Collection<String> dictLabels) {
+            roundTrip();
+            Map<String, String> values = new HashMap<>();
+            for (String dictLabel : dictLabels) {
+                values.put(dictLabel, dictLabel);
+            }
+            return values;
+        }
+
+        private void roundTrip() {
+            roundTrips.incrementAndGet();
+            LockSupport.parkNanos(latencyNanos);
+        }
+
+        private static String label(String dictType, String dictValue) {
+            return dictType + ":" + dictValue;
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package cn.allbs.excel.test;
+
+import cn.allbs.excel.annotation.ExcelEncryption;
+import cn.allbs.excel.test.entity.SensitiveUserDTO;
+import cn.allbs.excel.test.export.EncryptedExcelWriter;
+import cn.allbs.excel.test.export.OwnedTempFileStrategy;
+import cn.allbs.excel.test.export.RangeFileSender;
+import cn.allbs.excel.test.service.TestDataService;
+import cn.allbs.excel.util.ExcelEncryptionUtil;
+import com.alibaba.excel.EasyExcel;
+import org.apache.poi.poifs.crypt.EncryptionMode;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * 加密导出吞吐基准
+ * 旧方式：明文临时文件 -> ExcelEncryptionUtil 加密到第二个临时文件 -> 8KB 循环拷贝到输出
+ * 新方式：{@link EncryptedExcelWriter} 按 SXSSF 流式生成，边写边加密到目标文件 -> 输出（服务端容器支持时走 sendfile）
+ * 内存工作簿：{@code inMemory(true)} 生成整个 XSSF 工作簿后加密，用来对照大数据量下的堆占用，内存不足时记为 OOM
+ * <p>
+ * 输出写到丢弃流，只比较生成和加密的开销；每种方式记录平均耗时、吞吐和堆峰值（各堆内存池峰值之和，含测试数据本身，每轮前重置）。
+ * 大数据量要限定堆，例如：java -Xmx1g ... cn.allbs.excel.test.EncryptedExportBenchmark 1000000 3
+ * <p>
+ * 运行：java ... cn.allbs.excel.test.EncryptedExportBenchmark [行数] [轮数] [是否跑内存工作簿 true/false]
+ */
+public class EncryptedExportBenchmark {
+
+    private static final String PASSWORD = "password123";
+
+    @FunctionalInterface
+    private interface Mode {
+        void run(List<SensitiveUserDTO> data) throws Exception;
+    }
+
+    public static void main(String[] args) throws Exception {
+        int rows = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 3;
+        boolean inMemory = args.length <= 2 || Boolean.parseBoolean(args[2]);
+
+        OwnedTempFileStrategy.install();
+        List<SensitiveUserDTO> data = new TestDataService().generateSensitiveUsers(rows);
+
+        System.out.println("========================================");
+        System.out.printf("加密导出吞吐基准: %d 行 x %d 轮，最大堆 %d MB%n", rows, rounds,
+                Runtime.getRuntime().maxMemory() / (1024 * 1024));
+        System.out.println("========================================");
+
+        long legacyMs = measure("旧方式", data, rounds, EncryptedExportBenchmark::legacy);
+        long streamingMs = measure("新方式", data, rounds, EncryptedExportBenchmark::streaming);
+        if (inMemory) {
+            measure("内存工作簿", data, rounds, EncryptedExportBenchmark::inMemory);
+        }
+        if (legacyMs > 0 && streamingMs > 0) {
+            System.out.printf("新方式相对旧方式: %.2fx%n", (double) legacyMs / streamingMs);
+        }
+    }
+
+    /**
+     * 预热一轮后计时，返回平均耗时（毫秒），内存不足时返回 -1
+     */
+    private static long measure(String name, List<SensitiveUserDTO> data, int rounds, Mode mode) throws Exception {
+        long totalMs = 0;
+        long peakHeap = 0;
+        try {
+            mode.run(data);
+            for (int i = 0; i < rounds; i++) {
+                System.gc();
+                resetPeakHeap();
+                long start = System.nanoTime();
+                mode.run(data);
+                totalMs += (System.nanoTime() - start) / 1_000_000;
+                peakHeap = Math.max(peakHeap, peakHeap());
+            }
+        } catch (OutOfMemoryError e) {
+            System.out.printf("%-8s OOM%n", name);
+            return -1;
+        }
+        long avgMs = totalMs / rounds;
+        System.out.printf("%-8s 平均 %,d ms，%,.0f 行/秒，堆峰值 %,d MB%n", name, avgMs,
+                data.size() * 1000.0 * rounds / Math.max(1, totalMs), peakHeap / (1024 * 1024));
+        return avgMs;
+    }
+
+    private static void resetPeakHeap() {
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                pool.resetPeakUsage();
+            }
+        }
+    }
+
+    private static long peakHeap() {
+        long peak = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                peak += pool.getPeakUsage().getUsed();
+            }
+        }
+        return peak;
+    }
+
+    private static void legacy(List<SensitiveUserDTO> data) throws Exception {
+        File tempFile = File.createTempFile("excel_", ".xlsx");
+        File encryptedFile = File.createTempFile("encrypted_", ".xlsx");
+        try {
+            EasyExcel.write(tempFile, SensitiveUserDTO.class).sheet("敏感数据").doWrite(data);
+            ExcelEncryptionUtil.encryptFile(tempFile, encryptedFile, PASSWORD, ExcelEncryption.EncryptionAlgorithm.AGILE);
+            try (FileInputStream fis = new FileInputStream(encryptedFile); OutputStream out = OutputStream.nullOutputStream()) {
+                byte[] buffer = new byte[8192];
+                int bytesRead;
+                while ((bytesRead = fis.read(buffer)) != -1) {
+                    out.write(buffer, 0, bytesRead);
+                }
+            }
+        } finally {
+            tempFile.delete();
+            encryptedFile.delete();
+        }
+    }
+
+    private static void streaming(List<SensitiveUserDTO> data) throws Exception {
+        Path encryptedFile = Files.createTempFile("encrypted_", ".xlsx");
+        try {
+            EncryptedExcelWriter.write(encryptedFile, PASSWORD, EncryptionMode.agile, SensitiveUserDTO.class, "敏感数据", data);
+            try (OutputStream out = OutputStream.nullOutputStream()) {
+                RangeFileSender.transfer(encryptedFile, 0, Files.size(encryptedFile), out);
+            }
+        } finally {
+            Files.deleteIfExists(encryptedFile);
+        }
+    }
+
+    private static void inMemory(List<SensitiveUserDTO> data) throws Exception {
+        Path encryptedFile = Files.createTempFile("encrypted_", ".xlsx");
+        try {
+            EncryptedExcelWriter.write(encryptedFile, PASSWORD, EncryptionMode.agile, out -> EasyExcel.write(out, SensitiveUserDTO.class)
+                    .inMemory(Boolean.TRUE)
+                    .autoCloseStream(false)
+                    .sheet("敏感数据")
+                    .doWrite(data));
+        } finally {
+            Files.deleteIfExists(encryptedFile);
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package cn.allbs.excel.test;
+
+import cn.allbs.excel.test.entity.FlattenListOrderDTO;
+import cn.allbs.excel.test.entity.flatten.Customer;
+import cn.allbs.excel.test.entity.flatten.OrderItem;
+import cn.allbs.excel.test.export.FlattenListExcelWriter;
+import com.alibaba.excel.EasyExcel;
+import com.alibaba.excel.ExcelWriter;
+import com.alibaba.excel.write.metadata.WriteSheet;
+
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * {@code @FlattenList} 流式展开导出基准
+ * 用 {@link FlattenListExcelWriter} 边取边展开订单明细，分别导出不同订单数，记录耗时和堆内存峰值
+ * <p>
+ * 运行：java -Xmx512m ... cn.allbs.excel.test.FlattenListBenchmark [订单数] [每单明细数]
+ */
+public class FlattenListBenchmark {
+
+    private static final int CHUNK_SIZE = 1000;
+
+    public static void main(String[] args) throws Exception {
+        int orders = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        int itemsPerOrder = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+
+        System.out.println("========================================");
+        System.out.println("@FlattenList 流式展开导出基准");
+        System.out.println("最大堆: " + mb(Runtime.getRuntime().maxMemory()));
+        System.out.println("========================================");
+
+        List<String> report = new ArrayList<>();
+        for (int count : new int[]{orders / 10, orders}) {
+            report.add(run(count, itemsPerOrder));
+        }
+
+        System.out.println();
+        System.out.println("订单数\t行数\t文件大小\t耗时(ms)\t基线堆\t峰值堆\t增量");
+        report.forEach(System.out::println);
+    }
+
+    private static String run(int orders, int itemsPerOrder) throws Exception {
+        File file = File.createTempFile("flatten_list_" + orders + "_", ".xlsx");
+        try {
+            MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+            System.gc();
+            Thread.sleep(200);
+            long baseline = memory.getHeapMemoryUsage().getUsed();
+
+            // 后台采样堆内存峰值
+            AtomicLong peak = new AtomicLong(baseline);
+            Thread sampler = new Thread(() -> {
+                while (!Thread.currentThread().isInterrupted()) {
+                    peak.accumulateAndGet(memory.getHeapMemoryUsage().getUsed(), Math::max);
+                    try {
+                        Thread.sleep(20);
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+            });
+            sampler.setDaemon(true);
+            sampler.start();
+
+            System.out.println("导出 " + orders + " 个订单 -> " + file.getAbsolutePath());
+            long start = System.currentTimeMillis();
+            FlattenListExcelWriter flattenWriter = FlattenListExcelWriter.of(FlattenListOrderDTO.class);
+            ExcelWriter writer = EasyExcel.write(file).head(flattenWriter.head()).build();
+            long rows;
+            try (Stream<FlattenListOrderDTO> stream = orders(orders, itemsPerOrder)) {
+                WriteSheet sheet = EasyExcel.writerSheet("订单明细").build();
+                rows = flattenWriter.write(writer, sheet, stream.iterator(), CHUNK_SIZE, null);
+            } finally {
+                writer.finish();
+            }
+            long elapsed = System.currentTimeMillis() - start;
+
+            sampler.interrupt();
+            sampler.join();
+
+            return String.format("%d\t%d\t%s\t%d\t%s\t%s\t%s", orders, rows, mb(file.length()), elapsed,
+                    mb(baseline), mb(peak.get()), mb(peak.get() - baseline));
+        } finally {
+            file.delete();
+        }
+    }
+
+    private static Stream<FlattenListOrderDTO> orders(int orders, int itemsPerOrder) {
+        LocalDateTime now = LocalDateTime.now();
+        return IntStream.rangeClosed(1, orders).mapToObj(i -> {
+            List<OrderItem> items = new ArrayList<>(itemsPerOrder);
+            for (int j = 0; j < itemsPerOrder; j++) {
+                BigDecimal price = BigDecimal.valueOf(100 + j);
+                items.add(new OrderItem("商品" + j, "SKU-" + i + "-" + j, j + 1, price,
+                        price.multiply(BigDecimal.valueOf(j + 1))));
+            }
+            return new FlattenListOrderDTO("ORDER" + i, now, "已完成",
+                    new Customer("客户" + i, "13800000000", "北京"), items);
+        });
+    }
+
+    private static String mb(long bytes) {
+        return String.format("%.1fMB", bytes / 1024.0 / 1024.0);
+    }
+}
@@ -0,0 +1,131 @@
+package cn.allbs.excel.test;
+
+import cn.allbs.excel.test.entity.FlattenListOrderDTO;
+import cn.allbs.excel.test.entity.flatten.Customer;
+import cn.allbs.excel.test.entity.flatten.OrderItem;
+import cn.allbs.excel.test.export.FlattenListExcelWriter;
+import cn.allbs.excel.test.listener.FlattenListReadAggregator;
+import com.alibaba.excel.EasyExcel;
+import com.alibaba.excel.ExcelWriter;
+
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+
+/**
+ * {@code @FlattenList} 流式聚合导入基准
+ * 先用 {@link FlattenListExcelWriter} 生成订单明细文件，再用 {@link FlattenListReadAggregator} 读回，
+ * 分别记录按序聚合（FAIL）和落盘聚合（SPILL）的耗时和堆内存峰值
+ * <p>
+ * xlsx 单 Sheet 最多 1048576 行，订单数 x 每单明细数不要超过该值
+ * <p>
+ * 运行：java -Xmx256m ... cn.allbs.excel.test.FlattenListImportBenchmark [订单数] [每单明细数]
+ */
+public class FlattenListImportBenchmark {
+
+    private static final int BATCH_SIZE = 1000;
+
+    public static void main(String[] args) throws Exception {
+        int orders = args.length > 0 ? Integer.parseInt(args[0]) : 50_000;
+        int itemsPerOrder = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+
+        System.out.println("========================================");
+        System.out.println("@FlattenList 流式聚合导入基准");
+        System.out.println("最大堆: " + mb(Runtime.getRuntime().maxMemory()));
+        System.out.println("========================================");
+
+        File file = File.createTempFile("flatten_list_import_", ".xlsx");
+        Path spillDir = Files.createTempDirectory("flatten_list_spill_");
+        try {
+            System.out.println("生成测试文件: " + orders + " 个订单 x " + itemsPerOrder + " 条明细 -> " + file.getAbsolutePath());
+            generate(file, orders, itemsPerOrder);
+
+            List<String> report = new ArrayList<>();
+            for (FlattenListReadAggregator.OutOfOrderPolicy policy : new FlattenListReadAggregator.OutOfOrderPolicy[]{
+                    FlattenListReadAggregator.OutOfOrderPolicy.FAIL, FlattenListReadAggregator.OutOfOrderPolicy.SPILL}) {
+                report.add(run(file, spillDir, policy, itemsPerOrder));
+            }
+
+            System.out.println();
+            System.out.println("模式\t行数\t订单数\t耗时(ms)\t基线堆\t峰值堆\t增量");
+            report.forEach(System.out::println);
+        } finally {
+            file.delete();
+            Files.deleteIfExists(spillDir);
+        }
+    }
+
+    private static void generate(File file, int orders, int itemsPerOrder) {
+        LocalDateTime now = LocalDateTime.now().withNano(0);
+        FlattenListExcelWriter flattenWriter = FlattenListExcelWriter.of(FlattenListOrderDTO.class);
+        ExcelWriter writer = EasyExcel.write(file).head(flattenWriter.head()).build();
+        try {
+            flattenWriter.write(writer, EasyExcel.writerSheet("订单明细").build(),
+                    IntStream.rangeClosed(1, orders).mapToObj(i -> {
+                        List<OrderItem> items = new ArrayList<>(itemsPerOrder);
+                        for (int j = 0; j < itemsPerOrder; j++) {
+                            BigDecimal price = BigDecimal.valueOf(100 + j);
+                            items.add(new OrderItem("商品" + j, "SKU-" + i + "-" + j, j + 1, price,
+                                    price.multiply(BigDecimal.valueOf(j + 1))));
+                        }
+                        return new FlattenListOrderDTO("ORDER" + i, now, "已完成",
+                                new Customer("客户" + i, "13800000000", "北京"), items);
+                    }).iterator(), BATCH_SIZE, null);
+        } finally {
+            writer.finish();
+        }
+    }
+
+    private static String run(File file, Path spillDir, FlattenListReadAggregator.OutOfOrderPolicy policy,
+                              int itemsPerOrder) throws Exception {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        System.gc();
+        Thread.sleep(200);
+        long baseline = memory.getHeapMemoryUsage().getUsed();
+
+        // 后台采样堆内存峰值
+        AtomicLong peak = new AtomicLong(baseline);
+        Thread sampler = new Thread(() -> {
+            while (!Thread.currentThread().isInterrupted()) {
+                peak.accumulateAndGet(memory.getHeapMemoryUsage().getUsed(), Math::max);
+                try {
+                    Thread.sleep(20);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        });
+        sampler.setDaemon(true);
+        sampler.start();
+
+        long start = System.currentTimeMillis();
+        long rows;
+        int parents;
+        try (FlattenListReadAggregator<FlattenListOrderDTO> aggregator = new FlattenListReadAggregator<>(
+                FlattenListOrderDTO.class, BATCH_SIZE, itemsPerOrder, policy, spillDir, batch -> {
+        })) {
+            EasyExcel.read(file, aggregator).sheet().doRead();
+            rows = aggregator.getRowCount();
+            parents = aggregator.getParentCount();
+        }
+        long elapsed = System.currentTimeMillis() - start;
+
+        sampler.interrupt();
+        sampler.join();
+
+        return String.format("%s\t%d\t%d\t%d\t%s\t%s\t%s", policy, rows, parents, elapsed,
+                mb(baseline), mb(peak.get()), mb(peak.get() - baseline));
+    }
+
+    private static String mb(long bytes) {
+        return String.format("%.1fMB", bytes / 1024.0 / 1024.0);
+    }
+}
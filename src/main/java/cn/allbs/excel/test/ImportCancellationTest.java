@@ -0,0 +1,102 @@
+package cn.allbs.excel.test;
+
+import cn.allbs.excel.test.entity.UserDTO;
+import cn.allbs.excel.test.listener.BatchImportListener;
+import com.alibaba.excel.EasyExcel;
+import com.alibaba.excel.support.ExcelTypeEnum;
+
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 导入取消测试
+ * 解析到一定行数时在解析线程上请求取消，验证取消后解析线程只再消耗很少的 CPU 时间、不再处理新行
+ * <p>
+ * 取消点的行数和 CPU 时间都在解析线程上记录，结束时的行数在 join 之后读取，结果不依赖线程调度
+ */
+public class ImportCancellationTest {
+
+    private static final int TOTAL_ROWS = 500_000;
+    private static final int CANCEL_AT_ROW = 50_000;
+
+    /**
+     * 取消后允许消耗的 CPU 时间上限（毫秒）
+     */
+    private static final long MAX_CPU_AFTER_CANCEL_MS = 200;
+
+    public static void main(String[] args) throws Exception {
+        System.out.println("========================================");
+        System.out.println("导入取消测试");
+        System.out.println("========================================");
+
+        File file = File.createTempFile("import_cancel_", ".xlsx");
+        try {
+            System.out.println("生成测试文件: " + TOTAL_ROWS + " 行");
+            StreamingImportBenchmark.generate(file, ExcelTypeEnum.XLSX, TOTAL_ROWS);
+            run(file);
+        } finally {
+            file.delete();
+        }
+    }
+
+    private static void run(File file) throws InterruptedException {
+        ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+
+        AtomicInteger rowsAtEnd = new AtomicInteger();
+        AtomicLong cpuAtCancel = new AtomicLong();
+        AtomicLong cpuAtEnd = new AtomicLong();
+        AtomicLong cancelledAt = new AtomicLong();
+        AtomicLong written = new AtomicLong();
+        AtomicBoolean cancelled = new AtomicBoolean();
+
+        BatchImportListener<UserDTO> listener = new BatchImportListener<UserDTO>(1000, true,
+                batch -> written.addAndGet(batch.size()), data -> Collections.emptyList()) {
+
+            @Override
+            protected boolean isCancelled() {
+                return cancelled.get();
+            }
+
+            @Override
+            protected void onRowProcessed(int processedRows, int totalRows) {
+                if (processedRows == CANCEL_AT_ROW) {
+                    cpuAtCancel.set(threadMXBean.getCurrentThreadCpuTime());
+                    cancelledAt.set(System.currentTimeMillis());
+                    cancelled.set(true);
+                }
+            }
+        };
+
+        Thread parser = new Thread(() -> {
+            EasyExcel.read(file, UserDTO.class, listener).sheet().doRead();
+            rowsAtEnd.set(listener.getProcessedRows());
+            cpuAtEnd.set(threadMXBean.getCurrentThreadCpuTime());
+        }, "import-parser");
+        parser.start();
+        parser.join();
+
+        long stopLatency = System.currentTimeMillis() - cancelledAt.get();
+        long cpuAfterCancelMs = (cpuAtEnd.get() - cpuAtCancel.get()) / 1_000_000;
+
+        System.out.println("取消时已处理行数: " + CANCEL_AT_ROW);
+        System.out.println("结束时已处理行数: " + rowsAtEnd.get());
+        System.out.println("已写入 sink 行数: " + written.get());
+        System.out.println("取消到线程结束耗时: " + stopLatency + " ms");
+        System.out.println("取消后消耗 CPU: " + cpuAfterCancelMs + " ms");
+        System.out.println();
+
+        boolean rowsBounded = rowsAtEnd.get() == CANCEL_AT_ROW;
+        boolean cpuBounded = cpuAfterCancelMs <= MAX_CPU_AFTER_CANCEL_MS;
+        System.out.println((rowsBounded ? "✓" : "✗") + " 取消后不再处理新行");
+        System.out.println((cpuBounded ? "✓" : "✗") + " 取消后 CPU 时间不超过 " + MAX_CPU_AFTER_CANCEL_MS + " ms");
+
+        if (!rowsBounded || !cpuBounded) {
+            System.exit(1);
+        }
+    }
+}
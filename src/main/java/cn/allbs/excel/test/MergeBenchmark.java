@@ -0,0 +1,64 @@
+package cn.allbs.excel.test;
+
+import cn.allbs.excel.test.entity.EmployeeDTO;
+import cn.allbs.excel.test.export.RunLengthMergeWriteHandler;
+import cn.allbs.excel.test.service.TestDataService;
+import com.alibaba.excel.EasyExcel;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.util.CellRangeAddress;
+
+import java.io.File;
+import java.util.List;
+
+/**
+ * 合并单元格导出基准
+ * 同样按游程规划合并区域，分别用 POI 带重叠校验的 addMergedRegion 和直接追加的 addMergedRegionUnsafe 添加，
+ * 比较随行数增长的耗时
+ * <p>
+ * 运行：java -Xmx1g ... cn.allbs.excel.test.MergeBenchmark [行数] [每段行数]
+ */
+public class MergeBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int rows = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        int runLength = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+
+        List<EmployeeDTO> data = new TestDataService().generateEmployees(rows);
+        // 部门按段重复，构造大量短游程
+        for (int i = 0; i < data.size(); i++) {
+            data.get(i).setDepartment("部门" + (i / runLength));
+        }
+
+        System.out.println("========================================");
+        System.out.printf("合并单元格导出基准: %d 行，每段 %d 行%n", data.size(), runLength);
+        System.out.println("========================================");
+
+        RunLengthMergeWriteHandler unsafe = new RunLengthMergeWriteHandler();
+        long unsafeMs = run(data, unsafe);
+        System.out.printf("addMergedRegionUnsafe: %d ms，%d 个合并区域%n", unsafeMs, unsafe.getMergedRegions());
+
+        RunLengthMergeWriteHandler validated = new RunLengthMergeWriteHandler() {
+            @Override
+            protected void addMergedRegion(Sheet sheet, CellRangeAddress region) {
+                sheet.addMergedRegion(region);
+            }
+        };
+        long validatedMs = run(data, validated);
+        System.out.printf("addMergedRegion:       %d ms，%d 个合并区域%n", validatedMs, validated.getMergedRegions());
+        System.out.printf("提升: %.2fx%n", (double) validatedMs / unsafeMs);
+    }
+
+    private static long run(List<EmployeeDTO> data, RunLengthMergeWriteHandler handler) throws Exception {
+        File file = File.createTempFile("merge_", ".xlsx");
+        try {
+            long start = System.currentTimeMillis();
+            EasyExcel.write(file, EmployeeDTO.class)
+                    .registerWriteHandler(handler)
+                    .sheet("员工信息")
+                    .doWrite(data);
+            return System.currentTimeMillis() - start;
+        } finally {
+            file.delete();
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package cn.allbs.excel.test;
+
+import cn.allbs.excel.test.entity.NestedPropertyExampleDTO;
+import cn.allbs.excel.test.meta.AccessorPlan;
+import cn.allbs.excel.test.meta.NestedColumn;
+import cn.allbs.excel.test.service.TestDataService;
+import cn.hutool.core.bean.BeanUtil;
+
+import java.util.List;
+
+/**
+ * {@code @NestedProperty} 取值基准
+ * 对 {@link NestedPropertyExampleDTO} 的每个嵌套列，分别用 Hutool {@link BeanUtil#getProperty}（每个单元格解析路径、反射取值）
+ * 和 {@link AccessorPlan} 预编译的 {@link cn.allbs.excel.test.meta.PropertyPath} 取值，比较每秒单元格数
+ * <p>
+ * {@code [*]} 在 Hutool 侧取整个集合，两边都只取值不拼接
+ * <p>
+ * 运行：java ... cn.allbs.excel.test.NestedAccessorBenchmark [行数] [轮数]
+ */
+public class NestedAccessorBenchmark {
+
+    public static void main(String[] args) {
+        int rows = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+
+        List<NestedPropertyExampleDTO> data = new TestDataService().generateNestedPropertyExamples(rows);
+        List<NestedColumn> columns = AccessorPlan.of(NestedPropertyExampleDTO.class).getNestedColumns();
+        String[] expressions = new String[columns.size()];
+        for (int i = 0; i < expressions.length; i++) {
+            expressions[i] = columns.get(i).getPath().getExpression().replace("[*]", "");
+        }
+        long cells = (long) rows * columns.size();
+
+        System.out.println("========================================");
+        System.out.printf("@NestedProperty 取值基准: %d 行 x %d 列，%d 轮%n", rows, columns.size(), rounds);
+        columns.forEach(c -> System.out.println("  " + c.getHead() + " -> " + c.getPath()));
+        System.out.println("========================================");
+
+        // 预热
+        reflect(data, expressions);
+        compiled(data, columns);
+
+        long reflectNanos = Long.MAX_VALUE;
+        long compiledNanos = Long.MAX_VALUE;
+        int sink = 0;
+        for (int r = 0; r < rounds; r++) {
+            long start = System.nanoTime();
+            sink += reflect(data, expressions);
+            reflectNanos = Math.min(reflectNanos, System.nanoTime() - start);
+
+            start = System.nanoTime();
+            sink += compiled(data, columns);
+            compiledNanos = Math.min(compiledNanos, System.nanoTime() - start);
+        }
+
+        System.out.printf("BeanUtil.getProperty: %,d ms，%,.0f 单元格/秒%n", reflectNanos / 1_000_000, perSecond(cells, reflectNanos));
+        System.out.printf("PropertyPath.get:     %,d ms，%,.0f 单元格/秒%n", compiledNanos / 1_000_000, perSecond(cells, compiledNanos));
+        System.out.printf("提升: %.2fx（非空单元格 %d）%n", (double) reflectNanos / compiledNanos, sink);
+    }
+
+    private static int reflect(List<NestedPropertyExampleDTO> data, String[] expressions) {
+        int present = 0;
+        for (NestedPropertyExampleDTO dto : data) {
+            for (String expression : expressions) {
+                if (BeanUtil.getProperty(dto, expression) != null) {
+                    present++;
+                }
+            }
+        }
+        return present;
+    }
+
+    private static int compiled(List<NestedPropertyExampleDTO> data, List<NestedColumn> columns) {
+        int present = 0;
+        for (NestedPropertyExampleDTO dto : data) {
+            for (NestedColumn column : columns) {
+                if (column.getPath().get(dto) != null) {
+                    present++;
+                }
+            }
+        }
+        return present;
+    }
+
+    private static double perSecond(long cells, long nanos) {
+        return cells * 1_000_000_000.0 / nanos;
+    }
+}
@@ -0,0 +1,101 @@
+package cn.allbs.excel.test;
+
+import cn.allbs.excel.test.entity.UserDTO;
+import cn.allbs.excel.test.export.ChunkedExcelWriter;
+import cn.allbs.excel.test.export.ParallelSheetWriter;
+import com.alibaba.excel.EasyExcel;
+import com.alibaba.excel.ExcelWriter;
+import com.alibaba.excel.write.metadata.WriteSheet;
+
+import java.io.File;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * 多 Sheet 并行导出基准
+ * 同样的多 Sheet 报表分别逐个 Sheet 取数写入和用 {@link ParallelSheetWriter} 并行取数写入，比较耗时
+ * <p>
+ * 每行模拟一次取数开销（查询、字段转换），取数越重并行收益越明显
+ * <p>
+ * 运行：java ... cn.allbs.excel.test.ParallelSheetBenchmark [Sheet数] [每个Sheet行数] [每行取数开销(微秒)]
+ */
+public class ParallelSheetBenchmark {
+
+    private static final int CHUNK_SIZE = 1000;
+
+    public static void main(String[] args) throws Exception {
+        int sheets = args.length > 0 ? Integer.parseInt(args[0]) : 4;
+        int rows = args.length > 1 ? Integer.parseInt(args[1]) : 200_000;
+        long costMicros = args.length > 2 ? Long.parseLong(args[2]) : 5;
+        int threads = Runtime.getRuntime().availableProcessors();
+
+        System.out.println("========================================");
+        System.out.printf("多 Sheet 并行导出基准: %d 个 Sheet x %d 行，每行取数 %dμs，%d 线程%n", sheets, rows, costMicros, threads);
+        System.out.println("========================================");
+
+        ParallelSheetWriter parallelWriter = new ParallelSheetWriter(threads, CHUNK_SIZE, 8);
+        try {
+            long sequential = run(sheets, rows, costMicros, null);
+            long parallel = run(sheets, rows, costMicros, parallelWriter);
+            System.out.printf("逐个 Sheet: %d ms%n", sequential);
+            System.out.printf("并行取数:   %d ms%n", parallel);
+            System.out.printf("提升: %.2fx%n", (double) sequential / parallel);
+        } finally {
+            parallelWriter.shutdown();
+        }
+    }
+
+    private static long run(int sheets, int rows, long costMicros, ParallelSheetWriter parallelWriter) throws Exception {
+        File file = File.createTempFile("parallel_sheet_", ".xlsx");
+        long start = System.currentTimeMillis();
+        ExcelWriter writer = EasyExcel.write(file).build();
+        try {
+            if (parallelWriter == null) {
+                for (int i = 0; i < sheets; i++) {
+                    try (Stream<UserDTO> users = users(rows, costMicros)) {
+                        ChunkedExcelWriter.write(writer, sheet(i), users.iterator(), CHUNK_SIZE, null);
+                    }
+                }
+            } else {
+                List<ParallelSheetWriter.SheetSource> sources = new ArrayList<>();
+                for (int i = 0; i < sheets; i++) {
+                    sources.add(new ParallelSheetWriter.SheetSource(sheet(i), () -> users(rows, costMicros), null));
+                }
+                parallelWriter.write(writer, sources);
+            }
+        } finally {
+            writer.finish();
+            file.delete();
+        }
+        return System.currentTimeMillis() - start;
+    }
+
+    private static WriteSheet sheet(int index) {
+        return EasyExcel.writerSheet(index, "用户" + (index + 1)).head(UserDTO.class).build();
+    }
+
+    private static Stream<UserDTO> users(int rows, long costMicros) {
+        LocalDateTime now = LocalDateTime.now();
+        return IntStream.rangeClosed(1, rows).mapToObj(i -> {
+            busyWait(costMicros);
+            UserDTO user = new UserDTO();
+            user.setId((long) i);
+            user.setUsername("用户" + i);
+            user.setEmail("user" + i + "@example.com");
+            user.setCreateTime(now);
+            user.setAge(20 + i % 40);
+            user.setStatus("正常");
+            return user;
+        });
+    }
+
+    private static void busyWait(long micros) {
+        long deadline = System.nanoTime() + micros * 1000;
+        while (System.nanoTime() < deadline) {
+            Thread.onSpinWait();
+        }
+    }
+}
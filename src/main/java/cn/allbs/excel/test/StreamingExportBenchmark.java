@@ -0,0 +1,128 @@
+package cn.allbs.excel.test;
+
+import cn.allbs.excel.test.entity.UserDTO;
+import cn.allbs.excel.test.export.ChunkedExcelWriter;
+import com.alibaba.excel.EasyExcel;
+import com.alibaba.excel.ExcelWriter;
+import com.alibaba.excel.write.metadata.WriteSheet;
+
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * 流式导出堆内存基准
+ * 同样的行数分别用 List 模式（先生成完整列表再写）和 Stream 模式（{@link ChunkedExcelWriter} 按块写）导出，
+ * 记录导出过程中的堆内存峰值
+ * <p>
+ * 运行：java -Xmx512m ... cn.allbs.excel.test.StreamingExportBenchmark [行数...]
+ */
+public class StreamingExportBenchmark {
+
+    private static final int CHUNK_SIZE = 1000;
+
+    public static void main(String[] args) throws Exception {
+        int[] rowCounts = args.length > 0
+                ? Arrays.stream(args).mapToInt(Integer::parseInt).toArray()
+                : new int[]{10_000, 1_000_000};
+
+        System.out.println("========================================");
+        System.out.println("流式导出堆内存基准");
+        System.out.println("最大堆: " + mb(Runtime.getRuntime().maxMemory()));
+        System.out.println("========================================");
+
+        List<String> report = new ArrayList<>();
+        for (int rows : rowCounts) {
+            report.add(run("List", rows, StreamingExportBenchmark::writeList));
+            report.add(run("Stream", rows, StreamingExportBenchmark::writeStream));
+        }
+
+        System.out.println();
+        System.out.println("模式\t行数\t文件大小\t耗时(ms)\t基线堆\t峰值堆\t增量");
+        report.forEach(System.out::println);
+    }
+
+    private static void writeList(File file, int rows) {
+        List<UserDTO> users = users(rows).collect(Collectors.toList());
+        EasyExcel.write(file, UserDTO.class).sheet("用户信息").doWrite(users);
+    }
+
+    private static void writeStream(File file, int rows) {
+        ExcelWriter writer = EasyExcel.write(file, UserDTO.class).build();
+        try (Stream<UserDTO> users = users(rows)) {
+            WriteSheet sheet = EasyExcel.writerSheet("用户信息").build();
+            ChunkedExcelWriter.write(writer, sheet, users.iterator(), CHUNK_SIZE, null);
+        } finally {
+            writer.finish();
+        }
+    }
+
+    private static Stream<UserDTO> users(int rows) {
+        LocalDateTime now = LocalDateTime.now();
+        return IntStream.rangeClosed(1, rows).mapToObj(i -> {
+            UserDTO user = new UserDTO();
+            user.setId((long) i);
+            user.setUsername("用户" + i);
+            user.setEmail("user" + i + "@example.com");
+            user.setCreateTime(now);
+            user.setAge(20 + i % 40);
+            user.setStatus("正常");
+            return user;
+        });
+    }
+
+    private static String run(String mode, int rows, Writer writer) throws Exception {
+        File file = File.createTempFile("streaming_export_" + mode + "_" + rows + "_", ".xlsx");
+        try {
+            MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+            System.gc();
+            Thread.sleep(200);
+            long baseline = memory.getHeapMemoryUsage().getUsed();
+
+            // 后台采样堆内存峰值
+            AtomicLong peak = new AtomicLong(baseline);
+            Thread sampler = new Thread(() -> {
+                while (!Thread.currentThread().isInterrupted()) {
+                    peak.accumulateAndGet(memory.getHeapMemoryUsage().getUsed(), Math::max);
+                    try {
+                        Thread.sleep(20);
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+            });
+            sampler.setDaemon(true);
+            sampler.start();
+
+            System.out.println(mode + " 模式导出 " + rows + " 行 -> " + file.getAbsolutePath());
+            long start = System.currentTimeMillis();
+            writer.write(file, rows);
+            long elapsed = System.currentTimeMillis() - start;
+
+            sampler.interrupt();
+            sampler.join();
+
+            return String.format("%s\t%d\t%s\t%d\t%s\t%s\t%s", mode, rows, mb(file.length()), elapsed,
+                    mb(baseline), mb(peak.get()), mb(peak.get() - baseline));
+        } finally {
+            file.delete();
+        }
+    }
+
+    private static String mb(long bytes) {
+        return String.format("%.1fMB", bytes / 1024.0 / 1024.0);
+    }
+
+    @FunctionalInterface
+    private interface Writer {
+        void write(File file, int rows) throws Exception;
+    }
+}
@@ -0,0 +1,133 @@
+package cn.allbs.excel.test;
+
+import cn.allbs.excel.test.entity.UserDTO;
+import cn.allbs.excel.test.listener.BatchImportListener;
+import com.alibaba.excel.EasyExcel;
+import com.alibaba.excel.ExcelWriter;
+import com.alibaba.excel.support.ExcelTypeEnum;
+import com.alibaba.excel.write.metadata.WriteSheet;
+
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 流式导入堆内存基准
+ * 分别生成 1万、100万、500万 行用户数据，用 {@link BatchImportListener} 分批读取，记录读取过程中的堆内存峰值
+ * <p>
+ * xlsx 单 Sheet 最多 1048576 行，超过时改用 CSV 生成
+ * <p>
+ * 运行：java -Xmx256m ... cn.allbs.excel.test.StreamingImportBenchmark [行数...]
+ */
+public class StreamingImportBenchmark {
+
+    private static final int XLSX_MAX_ROWS = 1_048_575;
+    private static final int BATCH_SIZE = 1000;
+
+    public static void main(String[] args) throws Exception {
+        int[] rowCounts = args.length > 0
+                ? Arrays.stream(args).mapToInt(Integer::parseInt).toArray()
+                : new int[]{10_000, 1_000_000, 5_000_000};
+
+        System.out.println("========================================");
+        System.out.println("流式导入堆内存基准");
+        System.out.println("最大堆: " + mb(Runtime.getRuntime().maxMemory()));
+        System.out.println("========================================");
+
+        List<String> report = new ArrayList<>();
+        for (int rows : rowCounts) {
+            ExcelTypeEnum type = rows > XLSX_MAX_ROWS ? ExcelTypeEnum.CSV : ExcelTypeEnum.XLSX;
+            File file = File.createTempFile("streaming_import_" + rows + "_", type.getValue());
+            try {
+                System.out.println("生成测试文件: " + rows + " 行 -> " + file.getAbsolutePath());
+                generate(file, type, rows);
+
+                report.add(run(file, rows));
+            } finally {
+                file.delete();
+            }
+        }
+
+        System.out.println();
+        System.out.println("行数\t文件大小\t耗时(ms)\t基线堆\t峰值堆\t增量");
+        report.forEach(System.out::println);
+    }
+
+    static void generate(File file, ExcelTypeEnum type, int rows) {
+        ExcelWriter writer = EasyExcel.write(file, UserDTO.class).excelType(type).build();
+        try {
+            WriteSheet sheet = EasyExcel.writerSheet("用户信息").build();
+            List<UserDTO> chunk = new ArrayList<>(BATCH_SIZE);
+            LocalDateTime now = LocalDateTime.now();
+            for (int i = 1; i <= rows; i++) {
+                UserDTO user = new UserDTO();
+                user.setId((long) i);
+                user.setUsername("用户" + i);
+                user.setEmail("user" + i + "@example.com");
+                user.setCreateTime(now);
+                user.setAge(20 + i % 40);
+                user.setStatus("正常");
+                chunk.add(user);
+                if (chunk.size() == BATCH_SIZE) {
+                    writer.write(chunk, sheet);
+                    chunk.clear();
+                }
+            }
+            if (!chunk.isEmpty()) {
+                writer.write(chunk, sheet);
+            }
+        } finally {
+            writer.finish();
+        }
+    }
+
+    private static String run(File file, int rows) throws InterruptedException {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        System.gc();
+        Thread.sleep(200);
+        long baseline = memory.getHeapMemoryUsage().getUsed();
+
+        // 后台采样堆内存峰值
+        AtomicLong peak = new AtomicLong(baseline);
+        Thread sampler = new Thread(() -> {
+            while (!Thread.currentThread().isInterrupted()) {
+                peak.accumulateAndGet(memory.getHeapMemoryUsage().getUsed(), Math::max);
+                try {
+                    Thread.sleep(20);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        });
+        sampler.setDaemon(true);
+        sampler.start();
+
+        AtomicLong written = new AtomicLong();
+        BatchImportListener<UserDTO> listener = new BatchImportListener<>(BATCH_SIZE, true,
+                batch -> written.addAndGet(batch.size()), data -> Collections.emptyList());
+
+        long start = System.currentTimeMillis();
+        EasyExcel.read(file, UserDTO.class, listener).sheet().doRead();
+        long elapsed = System.currentTimeMillis() - start;
+
+        sampler.interrupt();
+        sampler.join();
+
+        if (written.get() != rows) {
+            System.err.println("✗ 行数不一致: 期望 " + rows + "，实际 " + written.get());
+        }
+
+        return String.format("%d\t%s\t%d\t%s\t%s\t%s", rows, mb(file.length()), elapsed,
+                mb(baseline), mb(peak.get()), mb(peak.get() - baseline));
+    }
+
+    private static String mb(long bytes) {
+        return String.format("%.1fMB", bytes / 1024.0 / 1024.0);
+    }
+}
@@ -0,0 +1,129 @@
+package cn.allbs.excel.test;
+
+import cn.allbs.excel.test.entity.UserDTO;
+import cn.allbs.excel.test.service.RowValidationEngine;
+import cn.allbs.excel.vo.FieldError;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.Validation;
+import javax.validation.Validator;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * 行校验吞吐基准
+ * 对比原来逐行按注解名比较、拼接属性路径的校验方式与 {@link RowValidationEngine} 的吞吐，约 10% 的行不合法
+ * <p>
+ * 运行：java ... cn.allbs.excel.test.ValidationBenchmark [行数]
+ */
+public class ValidationBenchmark {
+
+    private static final int WARMUP_ROUNDS = 5;
+    private static final int MEASURE_ROUNDS = 10;
+
+    public static void main(String[] args) {
+        int rows = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+        List<UserDTO> data = buildRows(rows);
+
+        Validator validator = Validation.buildDefaultValidatorFactory().getValidator();
+        RowValidationEngine engine = new RowValidationEngine(validator);
+
+        System.out.println("========================================");
+        System.out.println("行校验吞吐基准: " + rows + " 行/轮，预热 " + WARMUP_ROUNDS + " 轮，测量 " + MEASURE_ROUNDS + " 轮");
+        System.out.println("========================================");
+
+        double legacy = measure("逐行反射比较", data, row -> legacyValidate(validator, row));
+        double compiled = measure("编译校验计划", data, engine::validate);
+
+        System.out.println();
+        System.out.printf("提升: %.2fx%n", compiled / legacy);
+    }
+
+    private static List<UserDTO> buildRows(int rows) {
+        List<UserDTO> data = new ArrayList<>(rows);
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 1; i <= rows; i++) {
+            UserDTO user = new UserDTO();
+            user.setId((long) i);
+            user.setUsername("用户" + i);
+            user.setEmail("user" + i + "@example.com");
+            user.setCreateTime(now);
+            user.setAge(20 + i % 40);
+            user.setStatus("正常");
+            // 每 10 行造一行错误数据，错误类型轮换
+            if (i % 10 == 0) {
+                switch (i / 10 % 3) {
+                    case 0:
+                        user.setId(null);
+                        break;
+                    case 1:
+                        user.setEmail("invalid-email");
+                        break;
+                    default:
+                        user.setUsername("x");
+                        break;
+                }
+            }
+            data.add(user);
+        }
+        return data;
+    }
+
+    private static double measure(String name, List<UserDTO> data, Function<Object, List<FieldError>> validate) {
+        long errors = 0;
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            errors += run(data, validate);
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURE_ROUNDS; i++) {
+            errors += run(data, validate);
+        }
+        long elapsed = System.nanoTime() - start;
+
+        double rowsPerSecond = (double) data.size() * MEASURE_ROUNDS * 1_000_000_000L / elapsed;
+        System.out.printf("%s\t%,.0f 行/秒\t(错误字段累计 %d)%n", name, rowsPerSecond, errors);
+        return rowsPerSecond;
+    }
+
+    private static long run(List<UserDTO> data, Function<Object, List<FieldError>> validate) {
+        long errors = 0;
+        for (UserDTO row : data) {
+            errors += validate.apply(row).size();
+        }
+        return errors;
+    }
+
+    /**
+     * 原有的校验方式，保留作对照
+     */
+    private static List<FieldError> legacyValidate(Validator validator, Object data) {
+        List<FieldError> errors = new ArrayList<>();
+        Set<ConstraintViolation<Object>> violations = validator.validate(data);
+
+        for (ConstraintViolation<Object> violation : violations) {
+            FieldError fieldError = new FieldError();
+            fieldError.setFieldName(violation.getPropertyPath().toString());
+            fieldError.setPropertyName(violation.getPropertyPath().toString());
+            fieldError.setMessage(violation.getMessage());
+            fieldError.setFieldValue(violation.getInvalidValue() != null ? violation.getInvalidValue().toString() : null);
+
+            String annotationType = violation.getConstraintDescriptor().getAnnotation().annotationType().getSimpleName();
+            if ("NotNull".equals(annotationType) || "NotBlank".equals(annotationType) || "NotEmpty".equals(annotationType)) {
+                fieldError.setErrorType("REQUIRED");
+            } else if ("Email".equals(annotationType) || "Pattern".equals(annotationType)) {
+                fieldError.setErrorType("FORMAT");
+            } else if ("Min".equals(annotationType) || "Max".equals(annotationType) ||
+                    "Size".equals(annotationType) || "Range".equals(annotationType)) {
+                fieldError.setErrorType("RANGE");
+            } else {
+                fieldError.setErrorType("VALIDATION");
+            }
+            errors.add(fieldError);
+        }
+        return errors;
+    }
+}
@@ -0,0 +1,160 @@
+package cn.allbs.excel.test.config;
+
+import cn.allbs.excel.annotation.ExportExcel;
+import cn.allbs.excel.annotation.FlattenList;
+import cn.allbs.excel.annotation.FlattenProperty;
+import cn.allbs.excel.annotation.ImportExcel;
+import cn.allbs.excel.annotation.Sheet;
+import cn.allbs.excel.test.export.FlattenListExcelWriter;
+import cn.allbs.excel.test.export.StreamingExportReturnValueHandler;
+import cn.allbs.excel.test.meta.AccessorPlan;
+import cn.allbs.excel.test.meta.ClassMetadata;
+import cn.allbs.excel.test.meta.FieldMetadata;
+import cn.allbs.excel.test.service.CachingDictService;
+import com.alibaba.excel.EasyExcel;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.MethodParameter;
+import org.springframework.core.ResolvableType;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * 类元数据启动预热
+ * 启动完成后扫描 {@code @ExportExcel} 方法的返回值类型、{@code @Sheet(clazz)} 和 {@code @ImportExcel} 参数类型，
+ * 提前构建 {@link ClassMetadata}、{@link AccessorPlan} 和 {@code @FlattenList} 展开方式，
+ * 导出类型再向内存写一次空表，让 EasyExcel 的表头解析和 POI 的类加载也在启动时完成，
+ * 并预加载 {@code @ExcelDict} 用到的字典类型，
+ * 避免每个类型的第一次请求明显变慢
+ */
+@Slf4j
+@Configuration
+public class ClassMetadataWarmUp implements ApplicationListener<ApplicationReadyEvent> {
+
+    /**
+     * 是否在启动时预热
+     */
+    @Value("${app.meta.warm-up:false}")
+    private boolean warmUp;
+
+    @Autowired
+    @Qualifier("requestMappingHandlerMapping")
+    private RequestMappingHandlerMapping handlerMapping;
+
+    @Autowired
+    private ObjectProvider<CachingDictService> dictCache;
+
+    @Override
+    public void onApplicationEvent(ApplicationReadyEvent event) {
+        if (!warmUp) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+        Set<Class<?>> exportTypes = new LinkedHashSet<>();
+        Set<Class<?>> importTypes = new LinkedHashSet<>();
+        for (HandlerMethod handlerMethod : handlerMapping.getHandlerMethods().values()) {
+            ExportExcel exportExcel = handlerMethod.getMethodAnnotation(ExportExcel.class);
+            if (exportExcel != null) {
+                collect(ResolvableType.forMethodReturnType(handlerMethod.getMethod()), exportTypes);
+                for (Sheet sheet : exportExcel.sheets()) {
+                    collect(ResolvableType.forClass(sheet.clazz()), exportTypes);
+                }
+            }
+            for (MethodParameter parameter : handlerMethod.getMethodParameters()) {
+                if (parameter.hasParameterAnnotation(ImportExcel.class)) {
+                    collect(ResolvableType.forMethodParameter(parameter), importTypes);
+                }
+            }
+        }
+
+        Set<Class<?>> warmed = new LinkedHashSet<>();
+        for (Class<?> type : exportTypes) {
+            warm(type, warmed);
+            try {
+                if (FlattenListExcelWriter.supports(type)) {
+                    EasyExcel.write(new ByteArrayOutputStream()).head(FlattenListExcelWriter.of(type).head())
+                            .sheet().doWrite(Collections.emptyList());
+                } else {
+                    EasyExcel.write(new ByteArrayOutputStream(), type).sheet().doWrite(Collections.emptyList());
+                }
+            } catch (RuntimeException e) {
+                log.warn("预热导出类型失败: {}", type.getName(), e);
+            }
+        }
+        for (Class<?> type : importTypes) {
+            warm(type, warmed);
+        }
+        CachingDictService cache = dictCache.getIfAvailable();
+        if (cache != null) {
+            for (Class<?> type : warmed) {
+                try {
+                    cache.preload(type);
+                } catch (RuntimeException e) {
+                    log.warn("预加载字典失败: {}", type.getName(), e);
+                }
+            }
+        }
+        log.info("类元数据预热完成: 导出类型 {} 个，导入类型 {} 个，共 {} 个类，耗时 {} ms",
+                exportTypes.size(), importTypes.size(), warmed.size(), System.currentTimeMillis() - start);
+    }
+
+    /**
+     * 构建类及其展开子类型的元数据
+     */
+    private static void warm(Class<?> type, Set<Class<?>> warmed) {
+        if (!warmed.add(type)) {
+            return;
+        }
+        try {
+            ClassMetadata metadata = ClassMetadata.of(type);
+            AccessorPlan.of(type).getNestedColumns();
+            for (FieldMetadata field : metadata.getFields(FlattenProperty.class)) {
+                warm(field.getType(), warmed);
+            }
+            for (FieldMetadata field : metadata.getFields(FlattenList.class)) {
+                if (field.getElementType() != null) {
+                    warm(field.getElementType(), warmed);
+                }
+            }
+            if (metadata.hasFieldAnnotation(FlattenList.class)) {
+                FlattenListExcelWriter.of(type);
+            }
+        } catch (RuntimeException e) {
+            log.warn("预热类元数据失败: {}", type.getName(), e);
+        }
+    }
+
+    /**
+     * 取出类型及其泛型参数中的业务类型（跳过 JDK 类型和流式导出的包装类型，如 List、Stream、ExportPageSupplier）
+     */
+    private static void collect(ResolvableType type, Set<Class<?>> types) {
+        if (type == ResolvableType.NONE) {
+            return;
+        }
+        if (type.isArray()) {
+            collect(type.getComponentType(), types);
+            return;
+        }
+        Class<?> raw = type.resolve();
+        if (raw == null || raw.isPrimitive() || raw == Void.class) {
+            return;
+        }
+        if (!raw.getName().startsWith("java.") && !StreamingExportReturnValueHandler.isStreamingType(raw)) {
+            types.add(raw);
+        }
+        for (ResolvableType generic : type.getGenerics()) {
+            collect(generic, types);
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package cn.allbs.excel.test.config;
+
+import cn.allbs.excel.test.service.CachingDictService;
+import cn.allbs.excel.test.service.DictServiceImpl;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+/**
+ * 字典缓存配置
+ * {@link CachingDictService} 作为首选的 {@code DictService}，allbs-excel 的 DictConverter 注入到的是缓存层
+ */
+@Configuration
+public class DictCacheConfig {
+
+    /**
+     * 字典类型缓存过期时间（毫秒），0 表示不过期
+     */
+    @Value("${app.dict.cache.ttl-ms:600000}")
+    private long ttlMillis;
+
+    /**
+     * 最多缓存的字典类型数
+     */
+    @Value("${app.dict.cache.max-types:1000}")
+    private int maxTypes;
+
+    /**
+     * 每个字典类型在整类型加载的条目之外最多缓存的查询结果数
+     */
+    @Value("${app.dict.cache.max-entries-per-type:10000}")
+    private int maxEntriesPerType;
+
+    @Bean
+    @Primary
+    public CachingDictService cachingDictService(DictServiceImpl dictServiceImpl) {
+        return new CachingDictService(dictServiceImpl, ttlMillis, maxTypes, maxEntriesPerType);
+    }
+}
@@ -0,0 +1,19 @@
+package cn.allbs.excel.test.config;
+
+import cn.allbs.excel.test.export.OwnedTempFileStrategy;
+import org.springframework.context.annotation.Configuration;
+
+import javax.annotation.PostConstruct;
+
+/**
+ * POI 临时文件配置
+ * 启动时换成 {@link OwnedTempFileStrategy}，导出产生的 POI 临时文件不再登记 {@code deleteOnExit()}
+ */
+@Configuration
+public class PoiTempFileConfig {
+
+    @PostConstruct
+    public void init() {
+        OwnedTempFileStrategy.install();
+    }
+}
@@ -0,0 +1,65 @@
+package cn.allbs.excel.test.config;
+
+import cn.allbs.excel.test.export.ParallelSheetWriter;
+import cn.allbs.excel.test.export.StreamingExportReturnValueHandler;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.method.support.HandlerMethodReturnValueHandler;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerAdapter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 流式导出配置
+ * 所有单例初始化完成后把 {@link StreamingExportReturnValueHandler} 放到返回值处理器的最前面，
+ * 先于 allbs-excel 自带的 List 导出处理
+ */
+@Configuration
+public class StreamingExportConfig implements SmartInitializingSingleton {
+
+    /**
+     * 流式导出每块写入行数
+     */
+    @Value("${app.export.chunk-size:1000}")
+    private int chunkSize;
+
+    /**
+     * 多 Sheet 并行导出的取数线程数，0 表示 CPU 核数
+     */
+    @Value("${app.export.sheet-parallelism:0}")
+    private int sheetParallelism;
+
+    /**
+     * 多 Sheet 并行导出时每个 Sheet 最多预先备好的块数
+     */
+    @Value("${app.export.sheet-prefetch-chunks:8}")
+    private int sheetPrefetchChunks;
+
+    @Autowired
+    private ApplicationContext applicationContext;
+
+    @Autowired
+    private RequestMappingHandlerAdapter handlerAdapter;
+
+    @Bean(destroyMethod = "shutdown")
+    public ParallelSheetWriter parallelSheetWriter() {
+        int threads = sheetParallelism > 0 ? sheetParallelism : Runtime.getRuntime().availableProcessors();
+        return new ParallelSheetWriter(threads, chunkSize, sheetPrefetchChunks);
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        List<HandlerMethodReturnValueHandler> handlers = new ArrayList<>();
+        handlers.add(new StreamingExportReturnValueHandler(applicationContext, chunkSize,
+                applicationContext.getBean(ParallelSheetWriter.class)));
+        if (handlerAdapter.getReturnValueHandlers() != null) {
+            handlers.addAll(handlerAdapter.getReturnValueHandlers());
+        }
+        handlerAdapter.setReturnValueHandlers(handlers);
+    }
+}
@@ -0,0 +1,23 @@
+package cn.allbs.excel.test.config;
+
+import cn.allbs.excel.test.listener.ProgressContextInterceptor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Web MVC 配置
+ */
+@Configuration
+public class WebMvcConfig implements WebMvcConfigurer {
+
+    @Autowired
+    private ProgressContextInterceptor progressContextInterceptor;
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        // 绑定导出/导入进度上下文
+        registry.addInterceptor(progressContextInterceptor);
+    }
+}
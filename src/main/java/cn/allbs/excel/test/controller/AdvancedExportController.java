@@ -13,22 +13,28 @@ import cn.allbs.excel.test.entity.PerformanceDataDTO;
 import cn.allbs.excel.test.entity.RowNumberDTO;
 import cn.allbs.excel.test.entity.SensitiveUserDTO;
 import cn.allbs.excel.test.entity.WatermarkDataDTO;
+import cn.allbs.excel.test.export.EncryptedExcelWriter;
+import cn.allbs.excel.test.export.ExportPageSupplier;
+import cn.allbs.excel.test.export.RangeFileSender;
+import cn.allbs.excel.test.export.RunLengthMergeWriteHandler;
 import cn.allbs.excel.test.listener.ConsoleProgressListener;
 import cn.allbs.excel.test.listener.SseProgressListener;
+import cn.allbs.excel.test.service.DeferredFileDeleter;
 import cn.allbs.excel.test.service.TestDataService;
-import cn.allbs.excel.util.ExcelEncryptionUtil;
 import cn.allbs.excel.util.MultiSheetRelationProcessor;
-import com.alibaba.excel.EasyExcel;
 import com.alibaba.excel.ExcelWriter;
+import org.apache.poi.poifs.crypt.EncryptionMode;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.*;
 
+import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
-import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
 import java.net.URLEncoder;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.List;
+import java.util.stream.Stream;
 
 /**
  * 高级导出功能测试控制器
@@ -41,16 +47,18 @@ public class AdvancedExportController {
     @Autowired
     private TestDataService testDataService;
 
+    @Autowired
+    private DeferredFileDeleter deferredFileDeleter;
+
     /**
      * 1. 合并单元格导出
+     * 按游程合并 @ExcelMerge 列，合并开销随行数线性增长
      */
     @GetMapping("/merge")
     @ExportExcel(
         name = "部门员工列表",
-        sheets = @Sheet(
-            sheetName = "员工信息",
-            autoMerge = true  // 启用自动合并
-        )
+        sheets = @Sheet(sheetName = "员工信息"),
+        writeHandler = {RunLengthMergeWriteHandler.class}
     )
     public List<EmployeeDTO> mergeExport(@RequestParam(defaultValue = "20") int count) {
         return testDataService.generateEmployees(count);
@@ -102,16 +110,45 @@ public class AdvancedExportController {
         return testDataService.generateSensitiveUsers(count);
     }
 
+    /**
+     * 4.1 大数据量流式导出（带进度）
+     * 返回 Stream，按块写入，内存占用与行数无关
+     */
+    @GetMapping("/large-data-stream")
+    @ExportExcel(
+        name = "大数据流式导出测试",
+        sheets = @Sheet(sheetName = "数据")
+    )
+    @ExportProgress(
+        listener = SseProgressListener.class,
+        interval = 10000
+    )
+    public Stream<SensitiveUserDTO> largeDataStreamExport(@RequestParam(defaultValue = "1000000") int count,
+                                                          @RequestParam(required = false) String sessionId) {
+        return testDataService.streamSensitiveUsers(count);
+    }
+
+    /**
+     * 4.2 大数据量分页导出
+     * 返回分页取数函数，当前页写完才取下一页
+     */
+    @GetMapping("/large-data-paged")
+    @ExportExcel(
+        name = "大数据分页导出测试",
+        sheets = @Sheet(sheetName = "数据")
+    )
+    public ExportPageSupplier<SensitiveUserDTO> largeDataPagedExport(@RequestParam(defaultValue = "1000000") int count) {
+        return (pageNo, pageSize) -> testDataService.pageSensitiveUsers(count, pageNo, pageSize);
+    }
+
     /**
      * 5. 合并单元格 + 导出进度
      */
     @GetMapping("/merge-with-progress")
     @ExportExcel(
         name = "员工列表-合并带进度",
-        sheets = @Sheet(
-            sheetName = "员工信息",
-            autoMerge = true
-        )
+        sheets = @Sheet(sheetName = "员工信息"),
+        writeHandler = {RunLengthMergeWriteHandler.class}
     )
     @ExportProgress(
         listener = SseProgressListener.class,
@@ -273,52 +310,32 @@ public class AdvancedExportController {
 
     /**
      * 14-2. 高级加密导出（使用 AGILE 算法）
-     * 使用 ExcelEncryptionUtil 提供的高级加密功能
+     * 工作簿流式写进 POI 加密流，SXSSF 临时文件也是密文，不产生明文临时文件（见 EncryptedExcelWriter）
      * 支持自定义加密算法
      */
     @GetMapping("/encrypted-advanced")
     public void encryptedAdvancedExport(@RequestParam(defaultValue = "20") int count,
                                         @RequestParam(defaultValue = "password123") String password,
-                                        HttpServletResponse response) throws IOException {
+                                        HttpServletRequest request, HttpServletResponse response) throws IOException {
         List<SensitiveUserDTO> data = testDataService.generateSensitiveUsers(count);
 
-        // 先导出到临时文件
-        File tempFile = File.createTempFile("excel_", ".xlsx");
-        tempFile.deleteOnExit();
-
-        EasyExcel.write(tempFile, SensitiveUserDTO.class)
-            .sheet("敏感数据")
-            .doWrite(data);
-
-        // 使用 AGILE 算法加密文件
-        File encryptedFile = File.createTempFile("encrypted_", ".xlsx");
-        encryptedFile.deleteOnExit();
-
-        ExcelEncryptionUtil.encryptFile(
-            tempFile,
-            encryptedFile,
-            password,
-            ExcelEncryption.EncryptionAlgorithm.AGILE
-        );
-
-        // 设置响应头
-        response.setContentType("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet");
-        response.setCharacterEncoding("utf-8");
-        String fileName = URLEncoder.encode("加密文件-AGILE-密码" + password, "UTF-8").replaceAll("\\+", "%20");
-        response.setHeader("Content-disposition", "attachment;filename*=utf-8''" + fileName + ".xlsx");
-
-        // 输出加密文件
-        try (FileInputStream fis = new FileInputStream(encryptedFile)) {
-            byte[] buffer = new byte[8192];
-            int bytesRead;
-            while ((bytesRead = fis.read(buffer)) != -1) {
-                response.getOutputStream().write(buffer, 0, bytesRead);
+        // 用 AGILE 算法加密到目标文件
+        Path encryptedFile = Files.createTempFile("encrypted_", ".xlsx");
+        boolean sendfile = false;
+        try {
+            EncryptedExcelWriter.write(encryptedFile, password, EncryptionMode.agile, SensitiveUserDTO.class, "敏感数据", data);
+
+            // 容器支持时走 sendfile，文件在方法返回后才被读取
+            String etag = "\"" + encryptedFile.getFileName() + "\"";
+            sendfile = RangeFileSender.send(request, response, encryptedFile, "加密文件-AGILE-密码" + password + ".xlsx",
+                "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet", etag);
+        } finally {
+            if (sendfile) {
+                deferredFileDeleter.deleteLater(encryptedFile);
+            } else {
+                Files.deleteIfExists(encryptedFile);
             }
         }
-
-        // 清理临时文件
-        tempFile.delete();
-        encryptedFile.delete();
     }
 
     /**
@@ -0,0 +1,186 @@
+package cn.allbs.excel.test.controller;
+
+import cn.allbs.excel.test.entity.SensitiveUserDTO;
+import cn.allbs.excel.test.export.RangeFileSender;
+import cn.allbs.excel.test.service.AsyncExportService;
+import cn.allbs.excel.test.service.AsyncExportService.ExportTask;
+import cn.allbs.excel.test.service.AsyncImportService;
+import cn.allbs.excel.test.service.ProgressService;
+import cn.allbs.excel.test.service.TestDataService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.stream.Collectors;
+
+/**
+ * 异步导出控制器
+ * 提交后立即返回 taskId，进度通过 SSE 推送，完成后下载（支持 Range 断点续传）
+ */
+@RestController
+@RequestMapping("/api/async-export")
+@CrossOrigin(origins = "*")
+public class AsyncExportController {
+
+    private static final String XLSX_CONTENT_TYPE = "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet";
+
+    @Autowired
+    private AsyncExportService asyncExportService;
+
+    @Autowired
+    private TestDataService testDataService;
+
+    @Autowired
+    private ProgressService progressService;
+
+    /**
+     * 1. 提交异步导出任务（大数据量用户数据）
+     */
+    @PostMapping("/submit")
+    public ResponseEntity<?> submitTask(@RequestParam(defaultValue = "1000000") int count) {
+        try {
+            String taskId = asyncExportService.submitTask("大数据异步导出", "数据", SensitiveUserDTO.class, count,
+                    () -> testDataService.streamSensitiveUsers(count));
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("taskId", taskId);
+            response.put("message", "任务已提交，请通过taskId查询进度");
+            return ResponseEntity.ok(response);
+        } catch (RejectedExecutionException e) {
+            // 导出队列已满，返回 429 让客户端稍后重试
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", false);
+            response.put("message", e.getMessage());
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, "10")
+                    .body(response);
+        }
+    }
+
+    /**
+     * 2. 查询任务状态
+     */
+    @GetMapping("/task/{taskId}")
+    public ResponseEntity<?> getTaskStatus(@PathVariable String taskId) {
+        ExportTask task = asyncExportService.getTask(taskId);
+        if (task == null) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", false);
+            response.put("message", "任务不存在");
+            return ResponseEntity.badRequest().body(response);
+        }
+
+        Map<String, Object> response = toMap(task);
+        response.put("success", true);
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * 3. 获取任务列表
+     */
+    @GetMapping("/tasks")
+    public ResponseEntity<?> getTaskList() {
+        List<Map<String, Object>> taskList = asyncExportService.getTaskList().stream()
+                .map(this::toMap)
+                .collect(Collectors.toList());
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("tasks", taskList);
+        response.put("total", taskList.size());
+        response.put("queuedCount", asyncExportService.getQueuedCount());
+        response.put("activeCount", asyncExportService.getActiveCount());
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * 4. 订阅任务进度（SSE），支持多个订阅者和 Last-Event-ID 续传
+     */
+    @GetMapping("/subscribe/{taskId}")
+    public ResponseEntity<SseEmitter> subscribeProgress(@PathVariable String taskId,
+                                                        @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        try {
+            return ResponseEntity.ok(progressService.createEmitter(taskId, lastEventId));
+        } catch (RejectedExecutionException e) {
+            // SSE 连接数已达上限，返回 503 让浏览器稍后重连
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "5")
+                    .build();
+        }
+    }
+
+    /**
+     * 5. 下载导出文件，支持 Range 断点续传
+     */
+    @RequestMapping(value = "/task/{taskId}/download", method = {RequestMethod.GET, RequestMethod.HEAD})
+    public void download(@PathVariable String taskId, HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        ExportTask task = asyncExportService.getTask(taskId);
+        Path file = task != null ? task.getSpoolFileInternal() : null;
+        if (task == null || task.getStatus() != AsyncImportService.TaskStatus.COMPLETED
+                || file == null || !Files.exists(file)) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND, "导出文件不存在或已过期");
+            return;
+        }
+        String etag = "\"" + taskId + "-" + task.getFileSize() + "\"";
+        RangeFileSender.send(request, response, file, task.getName() + ".xlsx", XLSX_CONTENT_TYPE, etag);
+    }
+
+    /**
+     * 6. 取消任务
+     */
+    @PostMapping("/task/{taskId}/cancel")
+    public ResponseEntity<?> cancelTask(@PathVariable String taskId) {
+        boolean cancelled = asyncExportService.cancelTask(taskId);
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", cancelled);
+        response.put("message", cancelled ? "任务已取消" : "无法取消任务（任务不存在或已结束）");
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * 7. 删除任务及导出文件
+     */
+    @DeleteMapping("/task/{taskId}")
+    public ResponseEntity<?> deleteTask(@PathVariable String taskId) {
+        boolean deleted = asyncExportService.deleteTask(taskId);
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", deleted);
+        response.put("message", deleted ? "任务已删除" : "任务不存在");
+        return ResponseEntity.ok(response);
+    }
+
+    private Map<String, Object> toMap(ExportTask task) {
+        Map<String, Object> taskMap = new HashMap<>();
+        taskMap.put("taskId", task.getTaskId());
+        taskMap.put("name", task.getName());
+        taskMap.put("status", task.getStatus().name());
+        taskMap.put("progress", task.getProgress());
+        taskMap.put("totalRows", task.getTotalRows());
+        taskMap.put("writtenRows", task.getWrittenRows());
+        taskMap.put("fileSize", task.getFileSize());
+        taskMap.put("errorMessage", task.getErrorMessage());
+        taskMap.put("createdAt", task.getCreatedAt());
+        taskMap.put("completedAt", task.getCompletedAt());
+        taskMap.put("expiresAt", task.getExpiresAt());
+        if (task.getStatus() == AsyncImportService.TaskStatus.COMPLETED) {
+            taskMap.put("downloadUrl", "/api/async-export/task/" + task.getTaskId() + "/download");
+        }
+        return taskMap;
+    }
+}
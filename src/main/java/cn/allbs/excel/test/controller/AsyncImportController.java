@@ -1,18 +1,26 @@
 package cn.allbs.excel.test.controller;
 
+import cn.allbs.excel.test.entity.MultiSheetOrderImportDTO;
+import cn.allbs.excel.test.entity.MultiSheetOrderItemDTO;
 import cn.allbs.excel.test.entity.UserDTO;
 import cn.allbs.excel.test.service.AsyncImportService;
 import cn.allbs.excel.test.service.AsyncImportService.ImportTask;
+import cn.allbs.excel.test.service.ImportProgressCounters;
+import cn.allbs.excel.test.service.ImportTaskScheduler;
 import cn.allbs.excel.test.service.ProgressService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.stream.Collectors;
 
 /**
@@ -27,6 +35,9 @@ public class AsyncImportController {
     @Autowired
     private AsyncImportService asyncImportService;
 
+    @Autowired
+    private ImportTaskScheduler importTaskScheduler;
+
     @Autowired
     private ProgressService progressService;
 
@@ -36,17 +47,66 @@ public class AsyncImportController {
     @PostMapping("/submit")
     public ResponseEntity<?> submitTask(
             @RequestParam("file") MultipartFile file,
-            @RequestParam(value = "skipErrors", defaultValue = "false") boolean skipErrors
+            @RequestParam(value = "skipErrors", defaultValue = "false") boolean skipErrors,
+            @RequestHeader(value = "X-Tenant-Id", defaultValue = "default") String tenantId
+    ) {
+        try {
+            String taskId = asyncImportService.submitTask(tenantId, file, UserDTO.class, skipErrors);
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("taskId", taskId);
+            response.put("queuePosition", asyncImportService.getQueuePosition(taskId));
+            response.put("message", "任务已提交，请通过taskId查询进度");
+
+            return ResponseEntity.ok(response);
+        } catch (RejectedExecutionException e) {
+            // 导入队列已满，返回 429 让客户端稍后重试
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", false);
+            response.put("message", e.getMessage());
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, "10")
+                    .body(response);
+        } catch (Exception e) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", false);
+            response.put("message", "提交任务失败: " + e.getMessage());
+            return ResponseEntity.badRequest().body(response);
+        }
+    }
+
+    /**
+     * 1-1. 提交多 Sheet 异步导入任务（订单 + 订单明细，各 Sheet 并行解析）
+     * 文件格式与 /api/export/advanced/multi-sheet 导出的文件一致
+     */
+    @PostMapping("/submit-multi-sheet")
+    public ResponseEntity<?> submitMultiSheetTask(
+            @RequestParam("file") MultipartFile file,
+            @RequestParam(value = "skipErrors", defaultValue = "false") boolean skipErrors,
+            @RequestHeader(value = "X-Tenant-Id", defaultValue = "default") String tenantId
     ) {
         try {
-            String taskId = asyncImportService.submitTask(file, UserDTO.class, skipErrors);
+            Map<String, Class<?>> sheetClasses = new LinkedHashMap<>();
+            sheetClasses.put("订单", MultiSheetOrderImportDTO.class);
+            sheetClasses.put("订单明细", MultiSheetOrderItemDTO.class);
+
+            String taskId = asyncImportService.submitMultiSheetTask(tenantId, file, sheetClasses, skipErrors);
 
             Map<String, Object> response = new HashMap<>();
             response.put("success", true);
             response.put("taskId", taskId);
+            response.put("queuePosition", asyncImportService.getQueuePosition(taskId));
             response.put("message", "任务已提交，请通过taskId查询进度");
 
             return ResponseEntity.ok(response);
+        } catch (RejectedExecutionException e) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", false);
+            response.put("message", e.getMessage());
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, "10")
+                    .body(response);
         } catch (Exception e) {
             Map<String, Object> response = new HashMap<>();
             response.put("success", false);
@@ -69,27 +129,51 @@ public class AsyncImportController {
             return ResponseEntity.badRequest().body(response);
         }
 
+        // 先读状态再取进度快照，各计数彼此一致
+        AsyncImportService.TaskStatus status = task.getStatus();
+        ImportProgressCounters.Snapshot progress = task.snapshot();
+
         Map<String, Object> response = new HashMap<>();
         response.put("success", true);
         response.put("taskId", task.getTaskId());
         response.put("fileName", task.getFileName());
-        response.put("status", task.getStatus().name());
-        response.put("progress", task.getProgress());
-        response.put("totalRows", task.getTotalRows());
-        response.put("processedRows", task.getProcessedRows());
-        response.put("successCount", task.getSuccessCount());
-        response.put("errorCount", task.getErrorCount());
+        response.put("status", status.name());
+        if (status == AsyncImportService.TaskStatus.PENDING) {
+            response.put("queuePosition", asyncImportService.getQueuePosition(taskId));
+        }
+        response.put("progress", status == AsyncImportService.TaskStatus.COMPLETED ? 100.0 : progress.getPercentage());
+        response.put("totalRows", progress.getTotalRows());
+        response.put("processedRows", progress.getProcessedRows());
+        response.put("successCount", progress.getSuccessCount());
+        response.put("errorCount", progress.getErrorCount());
         response.put("errorMessage", task.getErrorMessage());
         response.put("createdAt", task.getCreatedAt());
         response.put("startedAt", task.getStartedAt());
         response.put("completedAt", task.getCompletedAt());
 
+        // 多 Sheet 任务返回各 Sheet 进度
+        if (task.getSheets() != null && task.getSheets().size() > 1) {
+            response.put("sheets", task.getSheets().stream()
+                    .map(sheet -> {
+                        Map<String, Object> sheetMap = new HashMap<>();
+                        sheetMap.put("sheetName", sheet.getSheetName());
+                        sheetMap.put("status", sheet.getStatus().name());
+                        sheetMap.put("totalRows", sheet.getTotalRows());
+                        sheetMap.put("processedRows", sheet.getProcessedRows());
+                        sheetMap.put("successCount", sheet.getSuccessCount());
+                        sheetMap.put("errorCount", sheet.getErrorCount());
+                        return sheetMap;
+                    })
+                    .collect(Collectors.toList()));
+        }
+
         // 如果有错误，返回部分错误详情
         if (task.getErrorList() != null && !task.getErrorList().isEmpty()) {
             response.put("errors", task.getErrorList().stream()
                     .limit(20)
                     .map(error -> {
                         Map<String, Object> errorMap = new HashMap<>();
+                        errorMap.put("sheetName", error.getSheetName());
                         errorMap.put("rowIndex", error.getRowIndex());
                         errorMap.put("data", error.getData());
                         errorMap.put("fieldErrors", error.getFieldErrors());
@@ -102,7 +186,7 @@ public class AsyncImportController {
         // 如果完成，返回部分成功数据
         if (task.getSuccessData() != null && !task.getSuccessData().isEmpty()) {
             response.put("previewData", task.getSuccessData());
-            response.put("hasMoreData", task.getSuccessCount() > 20);
+            response.put("hasMoreData", progress.getSuccessCount() > 20);
         }
 
         return ResponseEntity.ok(response);
@@ -117,15 +201,18 @@ public class AsyncImportController {
 
         List<Map<String, Object>> taskList = tasks.stream()
                 .map(task -> {
+                    AsyncImportService.TaskStatus status = task.getStatus();
+                    ImportProgressCounters.Snapshot progress = task.snapshot();
+
                     Map<String, Object> taskMap = new HashMap<>();
                     taskMap.put("taskId", task.getTaskId());
                     taskMap.put("fileName", task.getFileName());
-                    taskMap.put("status", task.getStatus().name());
-                    taskMap.put("progress", task.getProgress());
-                    taskMap.put("totalRows", task.getTotalRows());
-                    taskMap.put("processedRows", task.getProcessedRows());
-                    taskMap.put("successCount", task.getSuccessCount());
-                    taskMap.put("errorCount", task.getErrorCount());
+                    taskMap.put("status", status.name());
+                    taskMap.put("progress", status == AsyncImportService.TaskStatus.COMPLETED ? 100.0 : progress.getPercentage());
+                    taskMap.put("totalRows", progress.getTotalRows());
+                    taskMap.put("processedRows", progress.getProcessedRows());
+                    taskMap.put("successCount", progress.getSuccessCount());
+                    taskMap.put("errorCount", progress.getErrorCount());
                     taskMap.put("createdAt", task.getCreatedAt());
                     taskMap.put("completedAt", task.getCompletedAt());
                     return taskMap;
@@ -136,16 +223,26 @@ public class AsyncImportController {
         response.put("success", true);
         response.put("tasks", taskList);
         response.put("total", taskList.size());
+        response.put("queuedCount", importTaskScheduler.getQueuedCount());
+        response.put("activeCount", importTaskScheduler.getActiveCount());
 
         return ResponseEntity.ok(response);
     }
 
     /**
-     * 4. 订阅任务进度（SSE）
+     * 4. 订阅任务进度（SSE），支持多个订阅者和 Last-Event-ID 续传
      */
     @GetMapping("/subscribe/{taskId}")
-    public SseEmitter subscribeProgress(@PathVariable String taskId) {
-        return progressService.createEmitter(taskId);
+    public ResponseEntity<SseEmitter> subscribeProgress(@PathVariable String taskId,
+                                                        @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        try {
+            return ResponseEntity.ok(progressService.createEmitter(taskId, lastEventId));
+        } catch (RejectedExecutionException e) {
+            // SSE 连接数已达上限，返回 503 让浏览器稍后重连
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "5")
+                    .build();
+        }
     }
 
     /**
@@ -157,7 +254,7 @@ public class AsyncImportController {
 
         Map<String, Object> response = new HashMap<>();
         response.put("success", cancelled);
-        response.put("message", cancelled ? "任务已取消" : "无法取消任务（可能已在处理中）");
+        response.put("message", cancelled ? "任务已取消" : "无法取消任务（任务不存在或已结束）");
 
         return ResponseEntity.ok(response);
     }
@@ -5,6 +5,7 @@ import cn.allbs.excel.annotation.Sheet;
 import cn.allbs.excel.test.entity.OrderDTO;
 import cn.allbs.excel.test.entity.ProductDTO;
 import cn.allbs.excel.test.entity.UserDTO;
+import cn.allbs.excel.test.export.ParallelSheets;
 import cn.allbs.excel.test.service.TestDataService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.*;
@@ -12,6 +13,7 @@ import org.springframework.web.bind.annotation.*;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.stream.Stream;
 
 /**
  * 基本导出功能测试控制器
@@ -36,6 +38,19 @@ public class BasicExportController {
         return testDataService.generateUsers(count);
     }
 
+    /**
+     * 1.1 流式导出
+     * 返回 Stream，边生成边写入
+     */
+    @GetMapping("/stream")
+    @ExportExcel(
+        name = "用户列表-流式",
+        sheets = @Sheet(sheetName = "用户信息")
+    )
+    public Stream<UserDTO> streamExport(@RequestParam(defaultValue = "10") int count) {
+        return testDataService.streamUsers(count);
+    }
+
     /**
      * 2. 空数据导出（带表头）
      */
@@ -84,6 +99,28 @@ public class BasicExportController {
         return Arrays.asList(users, orders);
     }
 
+    /**
+     * 4.1 多 Sheet 并行导出
+     * 各 Sheet 在取数线程上并行生成，按 @Sheet 顺序写入
+     */
+    @GetMapping("/multi-sheet-parallel")
+    @ExportExcel(
+        name = "综合报表-并行",
+        sheets = {
+            @Sheet(sheetName = "用户信息", clazz = UserDTO.class),
+            @Sheet(sheetName = "订单信息", clazz = OrderDTO.class)
+        }
+    )
+    public ParallelSheets multiSheetParallelExport(
+        @RequestParam(defaultValue = "10") int userCount,
+        @RequestParam(defaultValue = "20") int orderCount
+    ) {
+        return ParallelSheets.of(
+            () -> testDataService.streamUsers(userCount),
+            () -> testDataService.generateOrders(orderCount).stream()
+        );
+    }
+
     /**
      * 5. 多 Sheet 空数据导出
      */
@@ -4,6 +4,8 @@ import cn.allbs.excel.annotation.ExportExcel;
 import cn.allbs.excel.annotation.ImportExcel;
 import cn.allbs.excel.annotation.Sheet;
 import cn.allbs.excel.test.entity.DictExampleDTO;
+import cn.allbs.excel.test.service.CachingDictService;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -19,6 +21,9 @@ import java.util.*;
 @CrossOrigin(origins = "*")
 public class DictExampleController {
 
+    @Autowired
+    private CachingDictService cachingDictService;
+
     /**
      * 1. 导出字典转换示例
      * 数据库中存储的是字典值(0/1/2)，导出到Excel时自动转换为字典标签(女/男/未知、正常/禁用/锁定)
@@ -165,4 +170,29 @@ public class DictExampleController {
 
         return ResponseEntity.ok(result);
     }
+
+    /**
+     * 5. 查看字典缓存命中统计
+     */
+    @GetMapping("/cache/stats")
+    public Map<String, Object> getDictCacheStats() {
+        return cachingDictService.getStats();
+    }
+
+    /**
+     * 6. 刷新字典缓存
+     * 字典数据变更后调用，不传 dictType 时清空全部字典类型
+     */
+    @PostMapping("/cache/refresh")
+    public Map<String, Object> refreshDictCache(@RequestParam(required = false) String dictType) {
+        if (dictType != null) {
+            cachingDictService.invalidate(dictType);
+        } else {
+            cachingDictService.invalidateAll();
+        }
+        Map<String, Object> result = new HashMap<>();
+        result.put("success", true);
+        result.put("dictType", dictType);
+        return result;
+    }
 }
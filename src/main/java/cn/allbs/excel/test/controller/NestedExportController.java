@@ -2,18 +2,19 @@ package cn.allbs.excel.test.controller;
 
 import cn.allbs.excel.annotation.ExportExcel;
 import cn.allbs.excel.annotation.Sheet;
-import cn.allbs.excel.handle.ConditionalStyleWriteHandler;
 import cn.allbs.excel.test.entity.ConditionalStyleDTO;
 import cn.allbs.excel.test.entity.DynamicHeaderDTO;
 import cn.allbs.excel.test.entity.FlattenListOrderDTO;
 import cn.allbs.excel.test.entity.FlattenListStudentDTO;
 import cn.allbs.excel.test.entity.FlattenPropertyExampleDTO;
 import cn.allbs.excel.test.entity.NestedPropertyExampleDTO;
+import cn.allbs.excel.test.export.CompiledConditionalStyleWriteHandler;
 import cn.allbs.excel.test.service.TestDataService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.stream.Stream;
 
 /**
  * 嵌套对象导出功能测试控制器
@@ -29,6 +30,7 @@ public class NestedExportController {
 
     /**
      * 1. @NestedProperty 示例 - 嵌套对象字段提取
+     * 字段使用 CompiledNestedObjectConverter，按预编译路径取值
      */
     @GetMapping("/nested-property")
     @ExportExcel(
@@ -67,6 +69,19 @@ public class NestedExportController {
         return testDataService.generateFlattenListOrders(count);
     }
 
+    /**
+     * 3.1 @FlattenList 流式导出 - 大量订单明细展开
+     * 返回 Stream，由 FlattenListExcelWriter 逐个订单展开写入，内存与订单总数无关
+     */
+    @GetMapping("/flatten-list-order-stream")
+    @ExportExcel(
+        name = "订单明细列表-流式",
+        sheets = @Sheet(sheetName = "订单明细")
+    )
+    public Stream<FlattenListOrderDTO> flattenListOrderStreamExport(@RequestParam(defaultValue = "100000") int count) {
+        return testDataService.streamFlattenListOrders(count);
+    }
+
     /**
      * 4. @FlattenList 示例 - 学生多 List 展开
      * 使用 @ExportExcel 注解，FlattenListWriteHandler 自动处理多个 List 字段的展开效果
@@ -84,13 +99,14 @@ public class NestedExportController {
     /**
      * 5. @ConditionalStyle 示例 - 条件样式
      * 演示根据单元格值自动应用不同样式
-     * 注意：使用注解方式,需要通过 writeHandler 属性指定 ConditionalStyleWriteHandler
+     * 注意：使用注解方式,需要通过 writeHandler 属性指定条件样式处理器
+     * 这里使用预编译规则、样式去重的 CompiledConditionalStyleWriteHandler
      */
     @GetMapping("/conditional-style")
     @ExportExcel(
         name = "条件样式示例",
         sheets = @Sheet(sheetName = "条件样式示例"),
-        writeHandler = {ConditionalStyleWriteHandler.class}
+        writeHandler = {CompiledConditionalStyleWriteHandler.class}
     )
     public List<ConditionalStyleDTO> conditionalStyleExport(
         @RequestParam(defaultValue = "20") int count
@@ -3,12 +3,20 @@ package cn.allbs.excel.test.controller;
 import cn.allbs.excel.annotation.ImportExcel;
 import cn.allbs.excel.test.entity.FlattenListOrderDTO;
 import cn.allbs.excel.test.entity.NestedPropertyExampleDTO;
+import cn.allbs.excel.test.listener.FlattenListReadAggregator;
+import cn.allbs.excel.test.service.ImportBatchSink;
+import com.alibaba.excel.EasyExcel;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
 
+import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * 嵌套对象导入功能测试控制器
@@ -20,6 +28,12 @@ import java.util.Map;
 @CrossOrigin(origins = "*")
 public class NestedImportController {
 
+	/**
+	 * 流式聚合导入的落盘目录
+	 */
+	@Value("${app.import.spill-dir:${java.io.tmpdir}/allbs-excel-import}")
+	private String spillDir;
+
 	/**
 	 * 1. @NestedProperty 导入示例
 	 * 演示使用 @ImportExcel 注解自动处理嵌套对象导入
@@ -54,4 +68,53 @@ public class NestedImportController {
 		return response;
 	}
 
+	/**
+	 * 3. @FlattenList 流式聚合导入 - 大量订单明细
+	 * 逐行折叠，订单号变化时立即按批交给下游，不需要所有订单同时驻留内存
+	 * 文件格式与 /api/export/nested/flatten-list-order-stream 导出的文件一致
+	 *
+	 * @param maxItems   每个订单最多的明细行数
+	 * @param outOfOrder 同一订单号不连续出现时的处理方式：FAIL / SEPARATE / SPILL，
+	 *                   FAIL 和 SPILL 会在内存中记住每个订单号，只有 SEPARATE 的内存与订单数无关
+	 */
+	@PostMapping("/flatten-list-order-stream")
+	public Map<String, Object> flattenListOrderStreamImport(
+			@RequestParam("file") MultipartFile file,
+			@RequestParam(defaultValue = "1000") int batchSize,
+			@RequestParam(defaultValue = "1000") int maxItems,
+			@RequestParam(defaultValue = "FAIL") FlattenListReadAggregator.OutOfOrderPolicy outOfOrder) {
+		Map<String, Object> response = new HashMap<>();
+		AtomicLong itemCount = new AtomicLong();
+		List<FlattenListOrderDTO> sample = new ArrayList<>();
+		// 下游只统计明细数并保留前几个订单作为示例，实际使用时在这里批量入库
+		ImportBatchSink<FlattenListOrderDTO> sink = batch -> {
+			for (FlattenListOrderDTO order : batch) {
+				itemCount.addAndGet(order.getItems().size());
+				if (sample.size() < 10) {
+					sample.add(order);
+				}
+			}
+		};
+
+		long start = System.currentTimeMillis();
+		try (FlattenListReadAggregator<FlattenListOrderDTO> aggregator = new FlattenListReadAggregator<>(
+				FlattenListOrderDTO.class, batchSize, maxItems, outOfOrder, Paths.get(spillDir), sink)) {
+			EasyExcel.read(file.getInputStream(), aggregator).sheet().doRead();
+
+			response.put("success", true);
+			response.put("rows", aggregator.getRowCount());
+			response.put("count", aggregator.getParentCount());
+			response.put("itemCount", itemCount.get());
+			response.put("spilledSegments", aggregator.getSpilledSegments());
+			response.put("data", sample);
+			response.put("message", "成功导入 " + aggregator.getParentCount() + " 个订单");
+		} catch (Exception e) {
+			log.warn("Flatten list stream import failed", e);
+			response.put("success", false);
+			response.put("message", "导入失败: " + e.getMessage());
+		}
+		response.put("elapsedMs", System.currentTimeMillis() - start);
+		return response;
+	}
+
 }
@@ -26,7 +26,8 @@ public class PreviewController {
 
     /**
      * 1. 上传Excel并预览（不入库）
-     * 返回预览会话ID和第一页数据
+     * 返回预览会话ID和第一页数据，parsing=true 时文件仍在后台解析，
+     * 可通过 /api/progress/subscribe/{sessionId} 订阅解析进度
      */
     @PostMapping("/upload")
     public ResponseEntity<?> uploadAndPreview(
@@ -48,6 +49,7 @@ public class PreviewController {
             response.put("errorCount", result.getErrorCount());
             response.put("validCount", result.getValidCount());
             response.put("errors", result.getErrors());
+            response.put("parsing", result.isParsing());
 
             return ResponseEntity.ok(response);
         } catch (Exception e) {
@@ -89,6 +91,7 @@ public class PreviewController {
             response.put("errorCount", result.getErrorCount());
             response.put("validCount", result.getValidCount());
             response.put("errors", result.getErrors());
+            response.put("parsing", result.isParsing());
 
             return ResponseEntity.ok(response);
         } catch (Exception e) {
@@ -186,6 +189,8 @@ public class PreviewController {
             response.put("totalRows", session.getTotalRows());
             response.put("errorCount", session.getErrorCount());
             response.put("validCount", session.getValidCount());
+            response.put("status", session.getStatus());
+            response.put("parsing", session.getStatus() == PreviewService.PreviewStatus.PARSING);
             response.put("createdAt", session.getCreatedAt());
         }
 
@@ -1,10 +1,18 @@
 package cn.allbs.excel.test.controller;
 
+import cn.allbs.excel.test.service.EmitterCloseScheduler;
 import cn.allbs.excel.test.service.ProgressService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+
 /**
  * 进度推送控制器 - 提供 SSE 端点
  */
@@ -16,12 +24,38 @@ public class ProgressController {
     @Autowired
     private ProgressService progressService;
 
+    @Autowired
+    private EmitterCloseScheduler emitterCloseScheduler;
+
     /**
      * 创建 SSE 连接以接收实时进度
+     * 同一会话可以有多个订阅者，订阅时补发最近的事件，浏览器断线重连时按 Last-Event-ID 续传
      * @param sessionId 会话ID，用于标识唯一的导出任务
      */
     @GetMapping("/subscribe/{sessionId}")
-    public SseEmitter subscribe(@PathVariable String sessionId) {
-        return progressService.createEmitter(sessionId);
+    public ResponseEntity<SseEmitter> subscribe(@PathVariable String sessionId,
+                                                @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        try {
+            return ResponseEntity.ok(progressService.createEmitter(sessionId, lastEventId));
+        } catch (RejectedExecutionException e) {
+            // SSE 连接数已达上限，返回 503 让浏览器稍后重连
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "5")
+                    .build();
+        }
+    }
+
+    /**
+     * SSE 连接统计
+     */
+    @GetMapping("/stats")
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("openEmitters", progressService.getOpenEmitters());
+        stats.put("maxEmitters", progressService.getMaxEmitters());
+        stats.put("topics", progressService.getTopicCount());
+        stats.put("pendingCloses", emitterCloseScheduler.getPendingCloses());
+        stats.put("closedCount", emitterCloseScheduler.getClosedCount());
+        return stats;
     }
-}
\ No newline at end of file
+}
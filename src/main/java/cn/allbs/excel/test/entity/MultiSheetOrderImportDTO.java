@@ -0,0 +1,55 @@
+package cn.allbs.excel.test.entity;
+
+import com.alibaba.excel.annotation.ExcelProperty;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * 多 Sheet 关联导入 - 订单主表
+ * 对应 {@link MultiSheetOrderDTO} 导出的“订单”Sheet，不包含超链接列
+ *
+ * @author ChenQi
+ * @since 2025-11-17
+ */
+@Data
+public class MultiSheetOrderImportDTO {
+
+	/**
+	 * 订单号
+	 */
+	@ExcelProperty(value = "订单号", index = 0)
+	private String orderNo;
+
+	/**
+	 * 客户名称
+	 */
+	@ExcelProperty(value = "客户名称", index = 1)
+	private String customerName;
+
+	/**
+	 * 订单金额
+	 */
+	@ExcelProperty(value = "订单金额", index = 2)
+	private BigDecimal totalAmount;
+
+	/**
+	 * 订单状态
+	 */
+	@ExcelProperty(value = "订单状态", index = 3)
+	private String status;
+
+	/**
+	 * 创建时间
+	 */
+	@ExcelProperty(value = "创建时间", index = 4)
+	private LocalDateTime createTime;
+
+	/**
+	 * 明细数量
+	 */
+	@ExcelProperty(value = "明细数量", index = 5)
+	private Integer itemCount;
+
+}
@@ -1,8 +1,8 @@
 package cn.allbs.excel.test.entity;
 
 import cn.allbs.excel.annotation.NestedProperty;
-import cn.allbs.excel.convert.NestedObjectConverter;
 import cn.allbs.excel.test.entity.nested.Department;
+import cn.allbs.excel.test.export.CompiledNestedObjectConverter;
 import com.alibaba.excel.annotation.ExcelIgnore;
 import com.alibaba.excel.annotation.ExcelProperty;
 import lombok.AllArgsConstructor;
@@ -15,6 +15,7 @@ import java.util.Map;
 /**
  * @NestedProperty 注解示例
  * 演示如何从嵌套对象、集合、Map 中提取字段值
+ * 使用 {@link CompiledNestedObjectConverter}，路径预编译，导出时不再逐格反射
  */
 @Data
 @NoArgsConstructor
@@ -29,21 +30,21 @@ public class NestedPropertyExampleDTO {
 
     // ==================== 单层嵌套对象 ====================
 
-    @ExcelProperty(value = "部门名称", converter = NestedObjectConverter.class)
+    @ExcelProperty(value = "部门名称", converter = CompiledNestedObjectConverter.class)
     @NestedProperty("name")
     private Department department;
 
-    @ExcelProperty(value = "部门编码", converter = NestedObjectConverter.class)
+    @ExcelProperty(value = "部门编码", converter = CompiledNestedObjectConverter.class)
     @NestedProperty(value = "code", nullValue = "未分配")
     private Department department2;
 
     // ==================== 多层嵌套对象 ====================
 
-    @ExcelProperty(value = "直属领导", converter = NestedObjectConverter.class)
+    @ExcelProperty(value = "直属领导", converter = CompiledNestedObjectConverter.class)
     @NestedProperty(value = "leader.name", nullValue = "暂无")
     private Department department3;
 
-    @ExcelProperty(value = "领导电话", converter = NestedObjectConverter.class)
+    @ExcelProperty(value = "领导电话", converter = CompiledNestedObjectConverter.class)
     @NestedProperty(value = "leader.phone", nullValue = "-")
     private Department department4;
 
@@ -53,11 +54,11 @@ public class NestedPropertyExampleDTO {
     @ExcelIgnore
     private List<String> skills;
 
-    @ExcelProperty(value = "主要技能", converter = NestedObjectConverter.class)
+    @ExcelProperty(value = "主要技能", converter = CompiledNestedObjectConverter.class)
     @NestedProperty(value = "[0]", nullValue = "无")
     private List<String> mainSkill;
 
-    @ExcelProperty(value = "所有技能", converter = NestedObjectConverter.class)
+    @ExcelProperty(value = "所有技能", converter = CompiledNestedObjectConverter.class)
     @NestedProperty(value = "[*]", separator = ",", maxJoinSize = 5)
     private List<String> allSkills;
 
@@ -67,11 +68,11 @@ public class NestedPropertyExampleDTO {
     @ExcelIgnore
     private Map<String, Object> properties;
 
-    @ExcelProperty(value = "工作城市", converter = NestedObjectConverter.class)
+    @ExcelProperty(value = "工作城市", converter = CompiledNestedObjectConverter.class)
     @NestedProperty(value = "[city]", nullValue = "-")
     private Map<String, Object> city;
 
-    @ExcelProperty(value = "入职年份", converter = NestedObjectConverter.class)
+    @ExcelProperty(value = "入职年份", converter = CompiledNestedObjectConverter.class)
     @NestedProperty(value = "[joinYear]", nullValue = "-")
     private Map<String, Object> joinYear;
 }
@@ -0,0 +1,70 @@
+package cn.allbs.excel.test.export;
+
+import com.alibaba.excel.ExcelWriter;
+import com.alibaba.excel.write.metadata.WriteSheet;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
+
+/**
+ * 分块写入
+ * 从 Iterator 逐行取数，攒满一块写入 SXSSF 窗口后清空复用，内存只与块大小有关，与总行数无关
+ */
+public final class ChunkedExcelWriter {
+
+    private ChunkedExcelWriter() {
+    }
+
+    /**
+     * 写入全部行
+     *
+     * @param chunkSize 每块行数
+     * @param onChunk   每写完一块回调累计行数，可为 null
+     * @return 写入行数
+     */
+    public static long write(ExcelWriter writer, WriteSheet sheet, Iterator<?> rows, int chunkSize, LongConsumer onChunk) {
+        return write(writer, sheet, rows, chunkSize, onChunk, null);
+    }
+
+    /**
+     * 写入全部行，每块写入前先交给 beforeWrite（如按块预取字典）
+     *
+     * @param beforeWrite 每块写入前回调，可为 null
+     */
+    public static long write(ExcelWriter writer, WriteSheet sheet, Iterator<?> rows, int chunkSize, LongConsumer onChunk,
+                             Consumer<? super List<Object>> beforeWrite) {
+        List<Object> chunk = new ArrayList<>(chunkSize);
+        long written = 0;
+        while (rows.hasNext()) {
+            chunk.add(rows.next());
+            if (chunk.size() == chunkSize) {
+                written += flush(writer, sheet, chunk, beforeWrite);
+                if (onChunk != null) {
+                    onChunk.accept(written);
+                }
+            }
+        }
+        if (!chunk.isEmpty() || written == 0) {
+            // 没有数据时也写一次，保证输出表头
+            written += flush(writer, sheet, chunk, beforeWrite);
+            if (onChunk != null) {
+                onChunk.accept(written);
+            }
+        }
+        return written;
+    }
+
+    private static int flush(ExcelWriter writer, WriteSheet sheet, List<Object> chunk,
+                             Consumer<? super List<Object>> beforeWrite) {
+        int size = chunk.size();
+        if (beforeWrite != null && size > 0) {
+            beforeWrite.accept(chunk);
+        }
+        writer.write(chunk, sheet);
+        chunk.clear();
+        return size;
+    }
+}
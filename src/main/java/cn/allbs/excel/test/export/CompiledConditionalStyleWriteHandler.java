@@ -0,0 +1,445 @@
+package cn.allbs.excel.test.export;
+
+import cn.allbs.excel.annotation.CellStyleDef;
+import cn.allbs.excel.annotation.Condition;
+import cn.allbs.excel.annotation.ConditionalStyle;
+import cn.allbs.excel.test.meta.ClassMetadata;
+import cn.allbs.excel.test.meta.FieldMetadata;
+import com.alibaba.excel.event.Order;
+import com.alibaba.excel.metadata.Head;
+import com.alibaba.excel.metadata.data.WriteCellData;
+import com.alibaba.excel.write.handler.CellWriteHandler;
+import com.alibaba.excel.write.metadata.holder.WriteSheetHolder;
+import com.alibaba.excel.write.metadata.holder.WriteTableHolder;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.CellType;
+import org.apache.poi.ss.usermodel.FillPatternType;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.usermodel.XSSFCellStyle;
+import org.apache.poi.xssf.usermodel.XSSFColor;
+import org.apache.poi.xssf.usermodel.XSSFFont;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+
+/**
+ * 预编译的条件样式处理器
+ * {@code @ConditionalStyle} 规则按类解析一次：比较表达式编译成谓词、正则预编译，按列下标存放；
+ * 写单元格时只做一次数组定位和谓词判断
+ * <p>
+ * 命中的样式按（单元格原样式, 样式定义）去重，每个工作簿一个有上限的缓存，超过上限后不再新建样式，
+ * 避免触及 xlsx 64000 个样式的限制。只支持 xlsx
+ */
+@Slf4j
+public class CompiledConditionalStyleWriteHandler implements CellWriteHandler, Order {
+
+    /**
+     * 每个工作簿最多创建的条件样式数
+     */
+    public static final int DEFAULT_MAX_STYLES = 4000;
+
+    /**
+     * 在 EasyExcel 填充样式之后执行，基于填充后的样式叠加
+     */
+    private static final int ORDER = 60000;
+
+    private static final ClassValue<Map<String, CompiledColumn>> PLANS = new ClassValue<Map<String, CompiledColumn>>() {
+        @Override
+        protected Map<String, CompiledColumn> computeValue(Class<?> type) {
+            Map<String, CompiledColumn> plan = new HashMap<>();
+            // 父类在前，同名字段以子类为准
+            for (FieldMetadata field : ClassMetadata.of(type).getFields(ConditionalStyle.class)) {
+                plan.put(field.getName(), compile(field.getAnnotation(ConditionalStyle.class)));
+            }
+            return plan;
+        }
+    };
+
+    private final Class<?> clazz;
+
+    private final int maxStyles;
+
+    /**
+     * 各表头类型按列下标缓存的规则
+     */
+    private final Map<Class<?>, ColumnTable> columnTables = new ConcurrentHashMap<>();
+
+    /**
+     * 最近使用的列规则表，同一 Sheet 连续写入时免查 Map
+     */
+    private volatile ColumnTable lastTable;
+
+    private final Map<Workbook, StyleCache> styleCaches = Collections.synchronizedMap(new WeakHashMap<>());
+
+    /**
+     * 从表头类型读取规则
+     */
+    public CompiledConditionalStyleWriteHandler() {
+        this(null, DEFAULT_MAX_STYLES);
+    }
+
+    public CompiledConditionalStyleWriteHandler(Class<?> clazz) {
+        this(clazz, DEFAULT_MAX_STYLES);
+    }
+
+    public CompiledConditionalStyleWriteHandler(Class<?> clazz, int maxStyles) {
+        this.clazz = clazz;
+        this.maxStyles = maxStyles;
+    }
+
+    @Override
+    public int order() {
+        return ORDER;
+    }
+
+    @Override
+    public void afterCellDispose(WriteSheetHolder writeSheetHolder, WriteTableHolder writeTableHolder,
+                                 List<WriteCellData<?>> cellDataList, Cell cell, Head head,
+                                 Integer relativeRowIndex, Boolean isHead) {
+        if (Boolean.TRUE.equals(isHead) || head == null) {
+            return;
+        }
+        CompiledColumn column = column(writeSheetHolder, cell.getColumnIndex(), head);
+        if (column == CompiledColumn.NONE) {
+            return;
+        }
+        Object value = cellValue(cell);
+        if (value == null) {
+            return;
+        }
+        for (CompiledCondition condition : column.conditions) {
+            if (condition.predicate.test(value)) {
+                CellStyle style = styleCache(cell.getSheet().getWorkbook()).styleFor(cell.getCellStyle(), condition.style);
+                if (style != null) {
+                    cell.setCellStyle(style);
+                }
+                return;
+            }
+        }
+    }
+
+    /**
+     * 已创建的条件样式数（所有工作簿合计）
+     */
+    public int getStyleCount() {
+        synchronized (styleCaches) {
+            return styleCaches.values().stream().mapToInt(cache -> cache.styles.size()).sum();
+        }
+    }
+
+    private CompiledColumn column(WriteSheetHolder writeSheetHolder, int columnIndex, Head head) {
+        Class<?> type = clazz != null ? clazz : writeSheetHolder.excelWriteHeadProperty().getHeadClazz();
+        if (type == null || head.getFieldName() == null) {
+            return CompiledColumn.NONE;
+        }
+        ColumnTable table = lastTable;
+        if (table == null || table.type != type) {
+            table = columnTables.computeIfAbsent(type, ColumnTable::new);
+            lastTable = table;
+        }
+        return table.get(columnIndex, head.getFieldName());
+    }
+
+    private StyleCache styleCache(Workbook workbook) {
+        synchronized (styleCaches) {
+            return styleCaches.computeIfAbsent(workbook, key -> new StyleCache(key, maxStyles));
+        }
+    }
+
+    private static Object cellValue(Cell cell) {
+        CellType type = cell.getCellType() == CellType.FORMULA ? cell.getCachedFormulaResultType() : cell.getCellType();
+        switch (type) {
+            case NUMERIC:
+                return cell.getNumericCellValue();
+            case STRING:
+                return cell.getStringCellValue();
+            case BOOLEAN:
+                return String.valueOf(cell.getBooleanCellValue());
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * 按类解析规则（字段名 -> 编译后的规则），每个类只解析一次
+     */
+    static Map<String, CompiledColumn> plan(Class<?> type) {
+        return PLANS.get(type);
+    }
+
+    private static CompiledColumn compile(ConditionalStyle annotation) {
+        List<CompiledCondition> conditions = new ArrayList<>();
+        for (Condition condition : annotation.conditions()) {
+            conditions.add(new CompiledCondition(compileExpression(condition.value().trim()),
+                    StyleDef.of(condition.style())));
+        }
+        return new CompiledColumn(conditions.toArray(new CompiledCondition[0]));
+    }
+
+    /**
+     * 编译条件表达式：regex: 前缀为正则；>=、<=、!=、==、>、<、= 开头为数值比较；其余按文本相等
+     */
+    static Predicate<Object> compileExpression(String expression) {
+        if (expression.startsWith("regex:")) {
+            Pattern pattern = Pattern.compile(expression.substring("regex:".length()));
+            return value -> pattern.matcher(text(value)).find();
+        }
+        for (String operator : new String[]{">=", "<=", "!=", "==", ">", "<", "="}) {
+            if (expression.startsWith(operator)) {
+                BigDecimal threshold = parseNumber(expression.substring(operator.length()).trim());
+                if (threshold != null) {
+                    return numeric(operator, threshold);
+                }
+                break;
+            }
+        }
+        return value -> expression.equals(text(value));
+    }
+
+    private static Predicate<Object> numeric(String operator, BigDecimal threshold) {
+        // 阈值能精确表示为 double 时直接比较 double，避免每个单元格创建 BigDecimal
+        double limit = threshold.doubleValue();
+        boolean exact = new BigDecimal(limit).compareTo(threshold) == 0;
+        return value -> {
+            int cmp;
+            if (value instanceof Double && exact) {
+                cmp = Double.compare((Double) value, limit);
+            } else {
+                BigDecimal number = value instanceof Double ? BigDecimal.valueOf((Double) value) : parseNumber(text(value));
+                if (number == null) {
+                    return false;
+                }
+                cmp = number.compareTo(threshold);
+            }
+            switch (operator) {
+                case ">=":
+                    return cmp >= 0;
+                case "<=":
+                    return cmp <= 0;
+                case ">":
+                    return cmp > 0;
+                case "<":
+                    return cmp < 0;
+                case "!=":
+                    return cmp != 0;
+                default:
+                    return cmp == 0;
+            }
+        };
+    }
+
+    private static String text(Object value) {
+        if (value instanceof Double) {
+            double number = (Double) value;
+            return number == Math.rint(number) && !Double.isInfinite(number)
+                    ? String.valueOf((long) number)
+                    : String.valueOf(number);
+        }
+        return String.valueOf(value);
+    }
+
+    private static BigDecimal parseNumber(String text) {
+        try {
+            return new BigDecimal(text.trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 单个表头类型按列下标存放的规则，未解析的列为 null，没有规则的列为 {@link CompiledColumn#NONE}
+     */
+    private static final class ColumnTable {
+        private final Class<?> type;
+        private volatile CompiledColumn[] columns = new CompiledColumn[0];
+
+        ColumnTable(Class<?> type) {
+            this.type = type;
+        }
+
+        CompiledColumn get(int columnIndex, String fieldName) {
+            CompiledColumn[] current = columns;
+            if (columnIndex < current.length && current[columnIndex] != null) {
+                return current[columnIndex];
+            }
+            CompiledColumn column = plan(type).getOrDefault(fieldName, CompiledColumn.NONE);
+            synchronized (this) {
+                CompiledColumn[] grown = columns.length > columnIndex ? columns.clone() : Arrays.copyOf(columns, columnIndex + 1);
+                grown[columnIndex] = column;
+                columns = grown;
+            }
+            return column;
+        }
+    }
+
+    /**
+     * 单列编译后的规则，按声明顺序匹配第一个
+     */
+    static final class CompiledColumn {
+        static final CompiledColumn NONE = new CompiledColumn(new CompiledCondition[0]);
+
+        final CompiledCondition[] conditions;
+
+        CompiledColumn(CompiledCondition[] conditions) {
+            this.conditions = conditions;
+        }
+    }
+
+    static final class CompiledCondition {
+        final Predicate<Object> predicate;
+        final StyleDef style;
+
+        CompiledCondition(Predicate<Object> predicate, StyleDef style) {
+            this.predicate = predicate;
+            this.style = style;
+        }
+    }
+
+    /**
+     * 样式定义（去重用的值对象）
+     */
+    static final class StyleDef {
+        final byte[] backgroundColor;
+        final byte[] fontColor;
+        final boolean bold;
+        private final int hash;
+
+        private StyleDef(byte[] backgroundColor, byte[] fontColor, boolean bold) {
+            this.backgroundColor = backgroundColor;
+            this.fontColor = fontColor;
+            this.bold = bold;
+            this.hash = Objects.hash(Arrays.hashCode(backgroundColor), Arrays.hashCode(fontColor), bold);
+        }
+
+        static StyleDef of(CellStyleDef def) {
+            return new StyleDef(rgb(def.backgroundColor()), rgb(def.fontColor()), def.bold());
+        }
+
+        boolean hasFont() {
+            return fontColor != null || bold;
+        }
+
+        private static byte[] rgb(String color) {
+            if (color == null || color.isEmpty()) {
+                return null;
+            }
+            String hex = color.startsWith("#") ? color.substring(1) : color;
+            if (hex.length() != 6) {
+                return null;
+            }
+            int value = Integer.parseInt(hex, 16);
+            return new byte[]{(byte) (value >> 16), (byte) (value >> 8), (byte) value};
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof StyleDef)) {
+                return false;
+            }
+            StyleDef other = (StyleDef) o;
+            return bold == other.bold && Arrays.equals(backgroundColor, other.backgroundColor)
+                    && Arrays.equals(fontColor, other.fontColor);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    /**
+     * 单个工作簿的样式缓存
+     */
+    private static final class StyleCache {
+        private final Workbook workbook;
+        private final int maxStyles;
+        private final Map<StyleKey, CellStyle> styles = new HashMap<>();
+        private final Map<StyleDef, XSSFFont> fonts = new HashMap<>();
+        private boolean warned;
+
+        StyleCache(Workbook workbook, int maxStyles) {
+            this.workbook = workbook;
+            this.maxStyles = maxStyles;
+        }
+
+        synchronized CellStyle styleFor(CellStyle base, StyleDef def) {
+            StyleKey key = new StyleKey(base != null ? base.getIndex() : -1, def);
+            CellStyle style = styles.get(key);
+            if (style != null) {
+                return style;
+            }
+            if (styles.size() >= maxStyles) {
+                if (!warned) {
+                    warned = true;
+                    log.warn("条件样式数已达上限 {}，后续单元格不再应用新样式", maxStyles);
+                }
+                return null;
+            }
+            CellStyle created = workbook.createCellStyle();
+            if (!(created instanceof XSSFCellStyle)) {
+                return null;
+            }
+            if (base != null) {
+                created.cloneStyleFrom(base);
+            }
+            XSSFCellStyle xssfStyle = (XSSFCellStyle) created;
+            if (def.backgroundColor != null) {
+                xssfStyle.setFillForegroundColor(new XSSFColor(def.backgroundColor, null));
+                xssfStyle.setFillPattern(FillPatternType.SOLID_FOREGROUND);
+            }
+            if (def.hasFont()) {
+                xssfStyle.setFont(fonts.computeIfAbsent(def, this::createFont));
+            }
+            styles.put(key, created);
+            return created;
+        }
+
+        private XSSFFont createFont(StyleDef def) {
+            XSSFFont font = (XSSFFont) workbook.createFont();
+            if (def.fontColor != null) {
+                font.setColor(new XSSFColor(def.fontColor, null));
+            }
+            font.setBold(def.bold);
+            return font;
+        }
+    }
+
+    private static final class StyleKey {
+        private final short baseIndex;
+        private final StyleDef def;
+
+        StyleKey(int baseIndex, StyleDef def) {
+            this.baseIndex = (short) baseIndex;
+            this.def = def;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof StyleKey)) {
+                return false;
+            }
+            StyleKey other = (StyleKey) o;
+            return baseIndex == other.baseIndex && def.equals(other.def);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * baseIndex + def.hashCode();
+        }
+    }
+}
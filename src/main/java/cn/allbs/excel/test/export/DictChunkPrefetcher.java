@@ -0,0 +1,134 @@
+package cn.allbs.excel.test.export;
+
+import cn.allbs.excel.annotation.ExcelDict;
+import cn.allbs.excel.service.DictService;
+import cn.allbs.excel.test.meta.ClassMetadata;
+import cn.allbs.excel.test.meta.FieldMetadata;
+import cn.allbs.excel.test.meta.PropertyPath;
+import cn.allbs.excel.test.service.CachingDictService;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+
+/**
+ * 按块预取字典标签
+ * 每块数据写入前收集各 {@code @ExcelDict} 字段的去重值，每个字典类型调用一次批量查询写入字典缓存，
+ * 写入时 DictConverter 逐个单元格的查询都命中缓存，一块数据对字典后端只有一次往返
+ * <p>
+ * 只有 {@code DictService} 是 {@link CachingDictService} 时才预取，否则查询结果留不下来。
+ * 同理，某个字典类型的缓存已到条目上限（{@code max-entries-per-type}）时跳过该类型的预取并警告一次：
+ * 批量结果存不进缓存，预取只会多一次往返，单元格照样逐个查询
+ */
+@Slf4j
+public final class DictChunkPrefetcher implements Consumer<List<?>> {
+
+    private final Class<?> type;
+    private final CachingDictService dictService;
+
+    /**
+     * 字典类型 -> 使用该字典的字段
+     */
+    private final Map<String, List<DictField>> fields;
+
+    /**
+     * 已到缓存上限、不再预取的字典类型
+     */
+    private final Set<String> capped = new HashSet<>();
+
+    private DictChunkPrefetcher(Class<?> type, CachingDictService dictService, Map<String, List<DictField>> fields) {
+        this.type = type;
+        this.dictService = dictService;
+        this.fields = fields;
+    }
+
+    /**
+     * 类型没有 {@code @ExcelDict} 字段或字典服务不带缓存时返回 null
+     */
+    public static DictChunkPrefetcher of(Class<?> type, DictService dictService) {
+        if (type == null || !(dictService instanceof CachingDictService)) {
+            return null;
+        }
+        List<FieldMetadata> dictFields = ClassMetadata.of(type).getFields(ExcelDict.class);
+        if (dictFields.isEmpty()) {
+            return null;
+        }
+        Map<String, List<DictField>> fields = new LinkedHashMap<>();
+        for (FieldMetadata field : dictFields) {
+            ExcelDict dict = field.getAnnotation(ExcelDict.class);
+            fields.computeIfAbsent(dict.dictType(), k -> new ArrayList<>())
+                    .add(new DictField(PropertyPath.compile(type, field.getName()), dict.separator()));
+        }
+        return new DictChunkPrefetcher(type, (CachingDictService) dictService, fields);
+    }
+
+    @Override
+    public void accept(List<?> chunk) {
+        for (Map.Entry<String, List<DictField>> entry : fields.entrySet()) {
+            if (isCapped(entry.getKey())) {
+                continue;
+            }
+            Set<String> values = new HashSet<>();
+            for (Object row : chunk) {
+                if (!type.isInstance(row)) {
+                    continue;
+                }
+                for (DictField field : entry.getValue()) {
+                    field.collect(row, values);
+                }
+            }
+            if (!values.isEmpty()) {
+                dictService.getLabels(entry.getKey(), values);
+            }
+        }
+    }
+
+    private boolean isCapped(String dictType) {
+        if (capped.contains(dictType)) {
+            return true;
+        }
+        if (!dictService.isLabelCacheFull(dictType)) {
+            return false;
+        }
+        capped.add(dictType);
+        log.warn("字典 {} 的缓存已到条目上限，{} 导出不再按块预取该字典，可调大 app.dict.cache.max-entries-per-type",
+                dictType, type.getSimpleName());
+        return true;
+    }
+
+    private static final class DictField {
+        private final PropertyPath path;
+        /**
+         * 多值分隔符，单值字段为 null
+         */
+        private final Pattern separator;
+
+        DictField(PropertyPath path, String separator) {
+            this.path = path;
+            this.separator = separator == null || separator.isEmpty() ? null : Pattern.compile(Pattern.quote(separator));
+        }
+
+        void collect(Object row, Set<String> values) {
+            Object value = path.get(row);
+            if (value == null) {
+                return;
+            }
+            String text = value.toString();
+            if (separator == null) {
+                values.add(text);
+                return;
+            }
+            for (String part : separator.split(text)) {
+                if (!part.trim().isEmpty()) {
+                    values.add(part.trim());
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package cn.allbs.excel.test.export;
+
+import com.alibaba.excel.EasyExcel;
+import org.apache.poi.poifs.crypt.EncryptionInfo;
+import org.apache.poi.poifs.crypt.EncryptionMode;
+import org.apache.poi.poifs.crypt.Encryptor;
+import org.apache.poi.poifs.filesystem.POIFSFileSystem;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Path;
+import java.security.GeneralSecurityException;
+import java.util.Collection;
+
+/**
+ * 加密导出
+ * 工作簿按 SXSSF 行窗口流式生成，直接写进 POI 的加密流，加密容器（OLE2）建在目标文件上，
+ * 不再先写明文临时文件、再加密到第二个临时文件；工作簿的堆占用与行数无关
+ * <p>
+ * SXSSF 刷出的 Sheet 数据经 {@link EncryptedTempWorkbookHandler} 用一次性密钥加密后落盘，明文不落盘。
+ * POI 的加密流（{@code ChunkedCipherOutputStream}）先把密文写到自己的临时文件，关闭时算完整性校验、拷进目标文件后删除；
+ * 这些临时文件都由创建者删除，配合 {@link OwnedTempFileStrategy} 不再登记 {@code deleteOnExit()}
+ * <p>
+ * 加密包的长度和完整性校验要在写完后才能确定，所以无法直接写响应，只能落一个文件后再整体发送（见 {@link RangeFileSender#send}）
+ */
+public final class EncryptedExcelWriter {
+
+    private EncryptedExcelWriter() {
+    }
+
+    /**
+     * 写入工作簿的回调
+     */
+    @FunctionalInterface
+    public interface WorkbookWriter {
+        void write(OutputStream out) throws IOException;
+    }
+
+    /**
+     * 流式生成单 Sheet 工作簿并加密写入目标文件
+     *
+     * @param target   目标文件，已存在时覆盖
+     * @param password 打开密码
+     * @param mode     加密算法，一般用 {@link EncryptionMode#agile}
+     */
+    public static void write(Path target, String password, EncryptionMode mode, Class<?> head, String sheetName,
+                             Collection<?> data) throws IOException {
+        write(target, password, mode, out -> EasyExcel.write(out, head)
+                .registerWriteHandler(new EncryptedTempWorkbookHandler())
+                .autoCloseStream(false)
+                .sheet(sheetName)
+                .doWrite(data));
+    }
+
+    /**
+     * 加密写入目标文件
+     *
+     * @param target   目标文件，已存在时覆盖
+     * @param password 打开密码
+     * @param mode     加密算法，一般用 {@link EncryptionMode#agile}
+     * @param workbook 把工作簿写到给定的流，不要关闭该流；注册 {@link EncryptedTempWorkbookHandler}，
+     *                 否则 SXSSF 会把明文 Sheet 写到临时文件
+     */
+    public static void write(Path target, String password, EncryptionMode mode, WorkbookWriter workbook)
+            throws IOException {
+        try (POIFSFileSystem fs = POIFSFileSystem.create(target.toFile())) {
+            Encryptor encryptor = new EncryptionInfo(mode).getEncryptor();
+            encryptor.confirmPassword(password);
+            try (OutputStream plain = encryptor.getDataStream(fs)) {
+                workbook.write(plain);
+            }
+            fs.writeFilesystem();
+        } catch (GeneralSecurityException e) {
+            throw new IOException("加密导出失败: " + e.getMessage(), e);
+        }
+    }
+}
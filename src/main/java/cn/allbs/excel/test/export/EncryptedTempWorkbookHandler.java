@@ -0,0 +1,30 @@
+package cn.allbs.excel.test.export;
+
+import com.alibaba.excel.write.handler.WorkbookWriteHandler;
+import com.alibaba.excel.write.metadata.holder.WriteWorkbookHolder;
+import org.apache.poi.poifs.crypt.temp.SXSSFWorkbookWithCustomZipEntrySource;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+
+/**
+ * SXSSF 临时文件加密
+ * 工作簿创建后换成 POI 的 {@link SXSSFWorkbookWithCustomZipEntrySource}：仍按行窗口流式写出，
+ * 刷出的 Sheet 数据和输出前组装的整个 xlsx 都用一次性的 AES 密钥加密后再落盘，明文不出堆
+ * <p>
+ * 只处理 SXSSF 工作簿，{@code inMemory(true)} 或 xls 导出原样保留；用模板的导出不要注册
+ */
+public class EncryptedTempWorkbookHandler implements WorkbookWriteHandler {
+
+    @Override
+    public void afterWorkbookCreate(WriteWorkbookHolder writeWorkbookHolder) {
+        Workbook workbook = writeWorkbookHolder.getWorkbook();
+        if (!(workbook instanceof SXSSFWorkbook) || workbook instanceof SXSSFWorkbookWithCustomZipEntrySource) {
+            return;
+        }
+        // 此时还没有创建任何 Sheet，原工作簿没有临时文件
+        ((SXSSFWorkbook) workbook).dispose();
+        SXSSFWorkbookWithCustomZipEntrySource encrypted = new SXSSFWorkbookWithCustomZipEntrySource();
+        writeWorkbookHolder.setWorkbook(encrypted);
+        writeWorkbookHolder.setCachedWorkbook(encrypted.getXSSFWorkbook());
+    }
+}
@@ -0,0 +1,60 @@
+package cn.allbs.excel.test.export;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * 分页取数 - {@code @ExportExcel} 方法可以返回它代替完整 List，导出时按页拉取、边取边写
+ *
+ * @param <T> 行类型
+ */
+@FunctionalInterface
+public interface ExportPageSupplier<T> {
+
+    /**
+     * 取一页数据
+     *
+     * @param pageNo   页码，从 1 开始
+     * @param pageSize 每页条数
+     * @return 该页数据，返回空列表或不足 pageSize 条表示没有更多数据
+     */
+    List<T> fetch(int pageNo, int pageSize);
+
+    /**
+     * 逐行遍历，当前页用完才取下一页，已写出的页随即可回收
+     */
+    default Iterator<T> iterator(int pageSize) {
+        return new Iterator<T>() {
+            private Iterator<T> page = Collections.emptyIterator();
+            private int pageNo;
+            private boolean last;
+
+            @Override
+            public boolean hasNext() {
+                while (!page.hasNext()) {
+                    if (last) {
+                        return false;
+                    }
+                    List<T> rows = fetch(++pageNo, pageSize);
+                    if (rows == null || rows.isEmpty()) {
+                        last = true;
+                        return false;
+                    }
+                    last = rows.size() < pageSize;
+                    page = rows.iterator();
+                }
+                return true;
+            }
+
+            @Override
+            public T next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return page.next();
+            }
+        };
+    }
+}
@@ -0,0 +1,334 @@
+package cn.allbs.excel.test.export;
+
+import cn.allbs.excel.annotation.Desensitize;
+import cn.allbs.excel.annotation.ExcelDict;
+import cn.allbs.excel.annotation.FlattenList;
+import cn.allbs.excel.annotation.FlattenProperty;
+import cn.allbs.excel.test.meta.ClassMetadata;
+import cn.allbs.excel.test.meta.FieldMetadata;
+import cn.allbs.excel.test.meta.PropertyPath;
+import com.alibaba.excel.ExcelWriter;
+import com.alibaba.excel.annotation.ExcelIgnoreUnannotated;
+import com.alibaba.excel.annotation.ExcelProperty;
+import com.alibaba.excel.annotation.format.DateTimeFormat;
+import com.alibaba.excel.annotation.format.NumberFormat;
+import com.alibaba.excel.converters.AutoConverter;
+import com.alibaba.excel.write.metadata.WriteSheet;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.util.CellRangeAddress;
+
+import java.lang.annotation.Annotation;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.TemporalAccessor;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.LongConsumer;
+import java.util.stream.IntStream;
+
+/**
+ * {@code @FlattenList} 流式展开写入
+ * 每个父对象边取边展开：行数取各 List 最长者，父字段（含 {@code @FlattenProperty} 展开的字段）只写在第一行，
+ * 随即按父对象添加合并区域；展开行写入可复用的行缓冲，攒满一块写入 SXSSF 窗口后复用，
+ * 不为每个子项创建中间行对象，也不在整个 Sheet 范围内记录合并
+ * <p>
+ * 列按字段声明顺序排列，List 与 {@code @FlattenProperty} 只展开一层，表头为 prefix + 子字段表头。
+ * 合并区域由 POI 保存在 Sheet 中直到输出，每个父对象每个父字段一个
+ * <p>
+ * 单元格写原始值，只处理 {@code @DateTimeFormat} 和父类型上的 {@code @ExcelIgnoreUnannotated}；
+ * 字段转换器（{@code @ExcelProperty(converter)}）、{@code @NumberFormat}、{@code @ExcelDict}、{@code @Desensitize} 不生效，
+ * 由 {@link #getIgnoredAnnotations()} 列出供调用方警告
+ */
+public final class FlattenListExcelWriter {
+
+    /**
+     * 列字段上展开写入不处理的注解（转换器另行判断）
+     */
+    private static final List<Class<? extends Annotation>> IGNORED = Arrays.asList(
+            NumberFormat.class, ExcelDict.class, Desensitize.class);
+
+    private static final ClassValue<FlattenListExcelWriter> PLANS = new ClassValue<FlattenListExcelWriter>() {
+        @Override
+        protected FlattenListExcelWriter computeValue(Class<?> type) {
+            return compile(type);
+        }
+    };
+
+    private final List<List<String>> head;
+
+    /**
+     * 各列的取值方式，按列下标
+     */
+    private final Column[] columns;
+
+    /**
+     * 各列所属的 List 下标，父字段为 -1
+     */
+    private final int[] groups;
+
+    /**
+     * 父字段列下标
+     */
+    private final int[] parentColumns;
+
+    /**
+     * 各 List 字段
+     */
+    private final PropertyPath[] lists;
+
+    /**
+     * 列字段上不生效的注解
+     */
+    private final List<String> ignoredAnnotations;
+
+    private FlattenListExcelWriter(List<List<String>> head, List<Column> columns, List<Integer> groups,
+                                   List<PropertyPath> lists, Set<String> ignoredAnnotations) {
+        this.head = Collections.unmodifiableList(head);
+        this.columns = columns.toArray(new Column[0]);
+        this.groups = groups.stream().mapToInt(Integer::intValue).toArray();
+        this.parentColumns = IntStream.range(0, this.groups.length)
+                .filter(i -> this.groups[i] < 0).toArray();
+        this.lists = lists.toArray(new PropertyPath[0]);
+        this.ignoredAnnotations = Collections.unmodifiableList(new ArrayList<>(ignoredAnnotations));
+    }
+
+    /**
+     * 类型是否包含 {@code @FlattenList} 字段
+     */
+    public static boolean supports(Class<?> type) {
+        return ClassMetadata.of(type).hasFieldAnnotation(FlattenList.class);
+    }
+
+    /**
+     * 按类解析展开方式，每个类只解析一次
+     */
+    public static FlattenListExcelWriter of(Class<?> type) {
+        return PLANS.get(type);
+    }
+
+    /**
+     * 展开后的表头，供 {@code ExcelWriterBuilder#head(List)} 使用
+     */
+    public List<List<String>> head() {
+        return head;
+    }
+
+    /**
+     * 列字段（父字段、{@code @FlattenProperty} 子字段、List 元素字段）上带有、但展开写入不处理的注解，如 {@code @ExcelDict}
+     */
+    public List<String> getIgnoredAnnotations() {
+        return ignoredAnnotations;
+    }
+
+    /**
+     * 展开并写入全部父对象
+     *
+     * @param chunkRows 每块行数
+     * @param onChunk   每写完一块回调累计行数，可为 null
+     * @return 写入行数
+     */
+    public long write(ExcelWriter writer, WriteSheet sheet, Iterator<?> parents, int chunkRows, LongConsumer onChunk) {
+        // 先写表头，拿到 Sheet 和数据起始行
+        writer.write(Collections.emptyList(), sheet);
+        Sheet poiSheet = writer.writeContext().writeSheetHolder().getSheet();
+        int nextRow = poiSheet.getLastRowNum() + 1;
+
+        RowBuffer buffer = new RowBuffer(Math.max(1, chunkRows), columns.length);
+        Object[] parentValues = new Object[columns.length];
+        List<?>[] items = new List<?>[lists.length];
+        long written = 0;
+        while (parents.hasNext()) {
+            Object parent = parents.next();
+            if (parent == null) {
+                continue;
+            }
+            int rows = 1;
+            for (int g = 0; g < lists.length; g++) {
+                items[g] = toList(lists[g].get(parent));
+                rows = Math.max(rows, items[g].size());
+            }
+            for (int c : parentColumns) {
+                parentValues[c] = columns[c].read(parent);
+            }
+
+            for (int r = 0; r < rows; r++) {
+                List<Object> row = buffer.next();
+                for (int c = 0; c < columns.length; c++) {
+                    int g = groups[c];
+                    if (g < 0) {
+                        row.set(c, r == 0 ? parentValues[c] : null);
+                    } else {
+                        row.set(c, r < items[g].size() ? columns[c].read(items[g].get(r)) : null);
+                    }
+                }
+                if (buffer.isFull()) {
+                    written += buffer.flush(writer, sheet);
+                    if (onChunk != null) {
+                        onChunk.accept(written);
+                    }
+                }
+            }
+            if (rows > 1) {
+                for (int c : parentColumns) {
+                    poiSheet.addMergedRegionUnsafe(new CellRangeAddress(nextRow, nextRow + rows - 1, c, c));
+                }
+            }
+            nextRow += rows;
+        }
+        if (buffer.size() > 0) {
+            written += buffer.flush(writer, sheet);
+            if (onChunk != null) {
+                onChunk.accept(written);
+            }
+        }
+        return written;
+    }
+
+    private static FlattenListExcelWriter compile(Class<?> type) {
+        List<List<String>> head = new ArrayList<>();
+        List<Column> columns = new ArrayList<>();
+        List<Integer> groups = new ArrayList<>();
+        List<PropertyPath> lists = new ArrayList<>();
+        Set<String> ignored = new LinkedHashSet<>();
+        ClassMetadata metadata = ClassMetadata.of(type);
+        boolean ignoreUnannotated = metadata.isAnnotationPresent(ExcelIgnoreUnannotated.class);
+        for (FieldMetadata field : metadata.getColumns()) {
+            FlattenList flattenList = field.getAnnotation(FlattenList.class);
+            FlattenProperty flattenProperty = field.getAnnotation(FlattenProperty.class);
+            if (flattenList == null && flattenProperty == null && ignoreUnannotated
+                    && !field.isAnnotationPresent(ExcelProperty.class)) {
+                continue;
+            }
+            if (flattenList != null) {
+                Class<?> itemType = listItemType(field);
+                for (FieldMetadata itemField : ClassMetadata.of(itemType).getPropertyColumns()) {
+                    head.add(Collections.singletonList(flattenList.prefix() + itemField.getHead()));
+                    columns.add(Column.of(itemType, itemField.getName(), itemField));
+                    collectIgnored(itemField, ignored);
+                    groups.add(lists.size());
+                }
+                lists.add(PropertyPath.compile(type, field.getName()));
+            } else if (flattenProperty != null) {
+                for (FieldMetadata childField : ClassMetadata.of(field.getType()).getPropertyColumns()) {
+                    head.add(Collections.singletonList(flattenProperty.prefix() + childField.getHead()));
+                    columns.add(Column.of(type, field.getName() + "." + childField.getName(), childField));
+                    collectIgnored(childField, ignored);
+                    groups.add(-1);
+                }
+            } else {
+                head.add(Collections.singletonList(field.getHead()));
+                columns.add(Column.of(type, field.getName(), field));
+                collectIgnored(field, ignored);
+                groups.add(-1);
+            }
+        }
+        return new FlattenListExcelWriter(head, columns, groups, lists, ignored);
+    }
+
+    private static void collectIgnored(FieldMetadata field, Set<String> ignored) {
+        ExcelProperty property = field.getAnnotation(ExcelProperty.class);
+        if (property != null && property.converter() != AutoConverter.class) {
+            ignored.add("@ExcelProperty(converter)");
+        }
+        for (Class<? extends Annotation> annotation : IGNORED) {
+            if (field.isAnnotationPresent(annotation)) {
+                ignored.add("@" + annotation.getSimpleName());
+            }
+        }
+    }
+
+    private static Class<?> listItemType(FieldMetadata field) {
+        if (field.getElementType() == null) {
+            throw new IllegalStateException("@FlattenList 字段需要声明元素类型: " + field);
+        }
+        return field.getElementType();
+    }
+
+    private static List<?> toList(Object value) {
+        if (value instanceof List) {
+            return (List<?>) value;
+        }
+        if (value instanceof Collection) {
+            return new ArrayList<>((Collection<?>) value);
+        }
+        return Collections.emptyList();
+    }
+
+    /**
+     * 单列取值：预编译的属性路径 + 日期格式
+     */
+    private static final class Column {
+
+        private final PropertyPath path;
+        private final DateTimeFormatter formatter;
+
+        private Column(PropertyPath path, DateTimeFormatter formatter) {
+            this.path = path;
+            this.formatter = formatter;
+        }
+
+        static Column of(Class<?> root, String path, FieldMetadata field) {
+            DateTimeFormat format = field.getAnnotation(DateTimeFormat.class);
+            DateTimeFormatter formatter = format != null && !format.value().isEmpty()
+                    ? DateTimeFormatter.ofPattern(format.value()).withZone(ZoneId.systemDefault())
+                    : null;
+            return new Column(PropertyPath.compile(root, path), formatter);
+        }
+
+        Object read(Object target) {
+            Object value = path.get(target);
+            if (formatter == null || value == null) {
+                return value;
+            }
+            if (value instanceof TemporalAccessor) {
+                return formatter.format((TemporalAccessor) value);
+            }
+            if (value instanceof Date) {
+                return formatter.format(((Date) value).toInstant());
+            }
+            return value;
+        }
+    }
+
+    /**
+     * 可复用的行缓冲，写入后各行原地覆盖
+     */
+    private static final class RowBuffer {
+
+        private final List<List<Object>> rows;
+        private int size;
+
+        RowBuffer(int capacity, int width) {
+            this.rows = new ArrayList<>(capacity);
+            for (int i = 0; i < capacity; i++) {
+                rows.add(new ArrayList<>(Collections.nCopies(width, null)));
+            }
+        }
+
+        List<Object> next() {
+            return rows.get(size++);
+        }
+
+        boolean isFull() {
+            return size == rows.size();
+        }
+
+        int size() {
+            return size;
+        }
+
+        int flush(ExcelWriter writer, WriteSheet sheet) {
+            int flushed = size;
+            writer.write(size == rows.size() ? rows : rows.subList(0, size), sheet);
+            size = 0;
+            return flushed;
+        }
+    }
+}
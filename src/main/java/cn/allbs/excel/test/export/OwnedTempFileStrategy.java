@@ -0,0 +1,68 @@
+package cn.allbs.excel.test.export;
+
+import org.apache.poi.util.TempFile;
+import org.apache.poi.util.TempFileCreationStrategy;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+/**
+ * POI 临时文件创建策略：不登记 {@code deleteOnExit()}
+ * POI 默认策略给每个临时文件调用 {@code deleteOnExit()}，加密流（{@code ChunkedCipherOutputStream}）还会再调一次，
+ * 路径留在 JVM 的退出删除列表里直到进程退出，长期运行的服务每次导出都多几条，只增不减。
+ * 这些临时文件本来就由创建者删除（SXSSF {@code dispose()}、加密流关闭、{@code EncryptedTempData#dispose()}），
+ * 这里创建的文件忽略 {@code deleteOnExit()}，其余行为与默认策略一致（放在 {@code java.io.tmpdir/poifiles} 下）
+ * <p>
+ * 进程异常退出时残留的文件在 poifiles 目录下，默认策略同样只在正常退出时清理
+ */
+public final class OwnedTempFileStrategy implements TempFileCreationStrategy {
+
+    private static final String POIFILES = "poifiles";
+
+    private volatile File dir;
+
+    /**
+     * 替换 POI 全局的临时文件创建策略
+     */
+    public static void install() {
+        TempFile.setTempFileCreationStrategy(new OwnedTempFileStrategy());
+    }
+
+    @Override
+    public File createTempFile(String prefix, String suffix) throws IOException {
+        return new OwnedFile(File.createTempFile(prefix, suffix, dir()));
+    }
+
+    @Override
+    public File createTempDirectory(String prefix) throws IOException {
+        return new OwnedFile(Files.createTempDirectory(dir().toPath(), prefix).toFile());
+    }
+
+    private File dir() throws IOException {
+        File current = dir;
+        if (current == null) {
+            current = new File(System.getProperty(TempFile.JAVA_IO_TMPDIR), POIFILES);
+            Files.createDirectories(current.toPath());
+            dir = current;
+        }
+        return current;
+    }
+
+    /**
+     * 由创建者负责删除的临时文件，忽略 {@code deleteOnExit()}
+     */
+    private static final class OwnedFile extends File {
+
+        private static final long serialVersionUID = 1L;
+
+        OwnedFile(File file) {
+            super(file.getPath());
+        }
+
+        @Override
+        public void deleteOnExit() {
+            // 创建者会删除，不进 JVM 的退出删除列表
+        }
+    }
+}
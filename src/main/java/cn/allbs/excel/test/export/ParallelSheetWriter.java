@@ -0,0 +1,243 @@
+package cn.allbs.excel.test.export;
+
+import cn.allbs.excel.test.listener.ProgressContext;
+import com.alibaba.excel.ExcelWriter;
+import com.alibaba.excel.write.metadata.WriteSheet;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * 多 Sheet 并行取数写入
+ * 每个 Sheet 的数据在工作线程上并行生成，按块放进各自的有界队列；写入线程按 Sheet 顺序取块写入，
+ * 写到后面的 Sheet 时它的数据多半已经备好
+ * <p>
+ * 工作簿本身（样式表、SXSSF 窗口）不是线程安全的，写入仍在一个线程上。
+ * 写入线程轮到某个 Sheet 而它还没被工作线程领走时，直接在写入线程上取数，线程池占满也不会互相等待
+ */
+public class ParallelSheetWriter {
+
+    /**
+     * 队列结束标记
+     */
+    private static final List<Object> END = new ArrayList<>(0);
+
+    private final ExecutorService pool;
+
+    private final int chunkSize;
+
+    private final int prefetchChunks;
+
+    /**
+     * @param threads        取数线程数
+     * @param chunkSize      每块行数
+     * @param prefetchChunks 每个 Sheet 最多预先备好的块数
+     */
+    public ParallelSheetWriter(int threads, int chunkSize, int prefetchChunks) {
+        AtomicInteger threadNo = new AtomicInteger();
+        this.pool = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "sheet-producer-" + threadNo.getAndIncrement());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.chunkSize = chunkSize;
+        this.prefetchChunks = prefetchChunks;
+    }
+
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    /**
+     * 按顺序写入所有 Sheet
+     *
+     * @return 各 Sheet 写入行数
+     */
+    public long[] write(ExcelWriter writer, List<SheetSource> sheets) {
+        List<Producer> producers = new ArrayList<>(sheets.size());
+        for (SheetSource sheet : sheets) {
+            producers.add(new Producer(sheet.rows, sheet.beforeWrite, chunkSize, prefetchChunks));
+        }
+        // 第一个 Sheet 由写入线程自己取数，其余的交给工作线程
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 1; i < producers.size(); i++) {
+            futures.add(pool.submit(ProgressContext.wrapCurrent(producers.get(i))));
+        }
+
+        long[] written = new long[sheets.size()];
+        try {
+            for (int i = 0; i < sheets.size(); i++) {
+                SheetSource sheet = sheets.get(i);
+                sheet.callback.started();
+                written[i] = producers.get(i).drainTo(writer, sheet.sheet, sheet.callback);
+                sheet.callback.completed(written[i]);
+            }
+            return written;
+        } catch (RuntimeException e) {
+            producers.forEach(Producer::cancel);
+            futures.forEach(future -> future.cancel(true));
+            throw e;
+        }
+    }
+
+    /**
+     * 单个 Sheet 的写入来源
+     */
+    public static final class SheetSource {
+        private final WriteSheet sheet;
+        private final Supplier<? extends Stream<?>> rows;
+        private final SheetCallback callback;
+        private final Consumer<? super List<Object>> beforeWrite;
+
+        /**
+         * @param rows 数据来源，在取数线程上调用，返回的 Stream 取完后关闭
+         */
+        public SheetSource(WriteSheet sheet, Supplier<? extends Stream<?>> rows, SheetCallback callback) {
+            this(sheet, rows, callback, null);
+        }
+
+        /**
+         * @param beforeWrite 每块备好后、写入前的处理（如按块预取字典），在取数线程上调用，可为 null
+         */
+        public SheetSource(WriteSheet sheet, Supplier<? extends Stream<?>> rows, SheetCallback callback,
+                           Consumer<? super List<Object>> beforeWrite) {
+            this.sheet = sheet;
+            this.rows = rows;
+            this.callback = callback != null ? callback : SheetCallback.NONE;
+            this.beforeWrite = beforeWrite;
+        }
+    }
+
+    /**
+     * Sheet 写入回调，在写入线程上调用
+     */
+    public interface SheetCallback {
+
+        SheetCallback NONE = new SheetCallback() {
+        };
+
+        default void started() {
+        }
+
+        /**
+         * 每写完一块回调累计行数
+         */
+        default void chunkWritten(long written) {
+        }
+
+        default void completed(long written) {
+        }
+    }
+
+    /**
+     * 单个 Sheet 的取数任务
+     */
+    private static final class Producer implements Runnable {
+
+        private final Supplier<? extends Stream<?>> rows;
+        private final Consumer<? super List<Object>> beforeWrite;
+        private final int chunkSize;
+        private final BlockingQueue<List<Object>> queue;
+        private final AtomicBoolean claimed = new AtomicBoolean();
+        private volatile boolean cancelled;
+        private volatile Throwable failure;
+
+        Producer(Supplier<? extends Stream<?>> rows, Consumer<? super List<Object>> beforeWrite, int chunkSize,
+                 int prefetchChunks) {
+            this.rows = rows;
+            this.beforeWrite = beforeWrite;
+            this.chunkSize = chunkSize;
+            this.queue = new ArrayBlockingQueue<>(Math.max(1, prefetchChunks));
+        }
+
+        @Override
+        public void run() {
+            if (!claimed.compareAndSet(false, true)) {
+                return;
+            }
+            try (Stream<?> stream = rows.get()) {
+                Iterator<?> iterator = stream.iterator();
+                List<Object> chunk = new ArrayList<>(chunkSize);
+                while (iterator.hasNext() && !cancelled) {
+                    chunk.add(iterator.next());
+                    if (chunk.size() == chunkSize) {
+                        offer(chunk);
+                        chunk = new ArrayList<>(chunkSize);
+                    }
+                }
+                if (!chunk.isEmpty()) {
+                    offer(chunk);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException | Error e) {
+                failure = e;
+            }
+            try {
+                queue.put(END);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        /**
+         * 在写入线程上写入该 Sheet：工作线程还没开始就直接在当前线程取数，否则从队列取块
+         */
+        long drainTo(ExcelWriter writer, WriteSheet sheet, SheetCallback callback) {
+            if (claimed.compareAndSet(false, true)) {
+                try (Stream<?> stream = rows.get()) {
+                    return ChunkedExcelWriter.write(writer, sheet, stream.iterator(), chunkSize, callback::chunkWritten,
+                            beforeWrite);
+                }
+            }
+            long written = 0;
+            try {
+                for (List<Object> chunk = queue.take(); chunk != END; chunk = queue.take()) {
+                    writer.write(chunk, sheet);
+                    written += chunk.size();
+                    callback.chunkWritten(written);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("等待 Sheet 数据时被中断", e);
+            }
+            if (failure instanceof RuntimeException) {
+                throw (RuntimeException) failure;
+            }
+            if (failure != null) {
+                throw new IllegalStateException("生成 Sheet 数据失败: " + failure.getMessage(), failure);
+            }
+            if (written == 0) {
+                // 没有数据时也写一次，保证输出表头
+                writer.write(new ArrayList<>(0), sheet);
+            }
+            return written;
+        }
+
+        private void offer(List<Object> chunk) throws InterruptedException {
+            if (beforeWrite != null) {
+                beforeWrite.accept(chunk);
+            }
+            queue.put(chunk);
+        }
+
+        void cancel() {
+            cancelled = true;
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package cn.allbs.excel.test.export;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * 多 Sheet 并行导出的返回值
+ * 按 {@code @ExportExcel(sheets)} 的顺序给出每个 Sheet 的数据来源，各 Sheet 在取数线程上并行生成，
+ * 表头类型取各自的 {@code @Sheet(clazz)}
+ */
+public final class ParallelSheets {
+
+    private final List<Supplier<? extends Stream<?>>> sources;
+
+    private ParallelSheets(List<Supplier<? extends Stream<?>>> sources) {
+        this.sources = Collections.unmodifiableList(sources);
+    }
+
+    /**
+     * @param sources 每个 Sheet 的数据来源，在取数线程上调用，返回的 Stream 取完后关闭
+     */
+    @SafeVarargs
+    public static ParallelSheets of(Supplier<? extends Stream<?>>... sources) {
+        return new ParallelSheets(Arrays.asList(sources));
+    }
+
+    public List<Supplier<? extends Stream<?>>> getSources() {
+        return sources;
+    }
+}
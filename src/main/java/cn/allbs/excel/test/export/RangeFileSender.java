@@ -0,0 +1,170 @@
+package cn.allbs.excel.test.export;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URLEncoder;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * 文件下载，支持单段 Range 断点续传
+ * <p>
+ * 容器支持 sendfile（Tomcat NIO/NIO2 连接器默认开启）时，完整文件和 Range 请求都交给容器用 sendfile 从文件直接写到 socket，
+ * 只有这条路径是零拷贝；容器要在请求方法返回后才读文件，调用方不能马上删除文件（见 {@link #send} 的返回值）。
+ * 不支持时退回 {@link #transfer}：目标是响应输出流而不是 socket 通道，{@link FileChannel#transferTo} 会经过堆上缓冲区逐段拷贝，
+ * 与普通的缓冲读写没有本质区别，只是省掉了手写的拷贝循环
+ */
+public final class RangeFileSender {
+
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    /**
+     * Range 无法满足，返回 416
+     */
+    private static final long[] UNSATISFIABLE = new long[0];
+
+    private RangeFileSender() {
+    }
+
+    /**
+     * 发送文件
+     *
+     * @param downloadName 下载文件名（含扩展名）
+     * @param etag         文件版本标识，用于 If-Range 校验
+     * @return 是否交给了容器的 sendfile；为 true 时文件在方法返回后才被读取，临时文件要延后删除
+     */
+    public static boolean send(HttpServletRequest request, HttpServletResponse response, Path file,
+                            String downloadName, String contentType, String etag) throws IOException {
+        long length = Files.size(file);
+        long lastModified = Files.getLastModifiedTime(file).toMillis();
+
+        response.setContentType(contentType);
+        response.setHeader("Accept-Ranges", "bytes");
+        response.setHeader("ETag", etag);
+        response.setDateHeader("Last-Modified", lastModified);
+        String fileName = URLEncoder.encode(downloadName, "UTF-8").replaceAll("\\+", "%20");
+        response.setHeader("Content-disposition", "attachment;filename*=utf-8''" + fileName);
+
+        long start = 0;
+        long end = length - 1;
+        String range = request.getHeader("Range");
+        if (range != null && ifRangeMatches(request, etag, lastModified)) {
+            long[] bytes = parseRange(range, length);
+            if (bytes == UNSATISFIABLE) {
+                response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                response.setHeader("Content-Range", "bytes */" + length);
+                return false;
+            }
+            if (bytes != null) {
+                start = bytes[0];
+                end = bytes[1];
+                response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+                response.setHeader("Content-Range", "bytes " + start + "-" + end + "/" + length);
+            }
+        }
+        long count = end - start + 1;
+        response.setContentLengthLong(count);
+        if ("HEAD".equalsIgnoreCase(request.getMethod()) || count <= 0) {
+            return false;
+        }
+
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            request.setAttribute(SENDFILE_FILENAME, file.toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, end + 1);
+            return true;
+        }
+
+        transfer(file, start, count, response.getOutputStream());
+        return false;
+    }
+
+    /**
+     * 把文件的一段写到输出流，返回时已写完，文件可以立即删除
+     * <p>
+     * 普通输出流经 {@link Channels#newChannel} 包装后不是 socket 通道，{@link FileChannel#transferTo} 走的是带缓冲的拷贝，
+     * 不是零拷贝；能用 sendfile 的下载请走 {@link #send}
+     */
+    public static void transfer(Path file, long position, long count, OutputStream out) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            WritableByteChannel target = Channels.newChannel(out);
+            long remaining = count;
+            while (remaining > 0) {
+                long transferred = channel.transferTo(position, remaining, target);
+                if (transferred <= 0) {
+                    break;
+                }
+                position += transferred;
+                remaining -= transferred;
+            }
+        }
+    }
+
+    /**
+     * If-Range 与当前文件一致（或没有 If-Range）时才按 Range 返回部分内容
+     */
+    private static boolean ifRangeMatches(HttpServletRequest request, String etag, long lastModified) {
+        String ifRange = request.getHeader("If-Range");
+        if (ifRange == null) {
+            return true;
+        }
+        if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+            return ifRange.equals(etag);
+        }
+        try {
+            long date = request.getDateHeader("If-Range");
+            return date >= 0 && lastModified / 1000 <= date / 1000;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    /**
+     * 解析单段 Range，格式不对或多段时返回 null（按完整文件返回）
+     */
+    private static long[] parseRange(String range, long length) {
+        if (!range.startsWith("bytes=") || range.indexOf(',') >= 0) {
+            return null;
+        }
+        String spec = range.substring("bytes=".length()).trim();
+        int dash = spec.indexOf('-');
+        if (dash < 0) {
+            return null;
+        }
+        try {
+            long start;
+            long end;
+            if (dash == 0) {
+                // bytes=-N 表示最后 N 个字节
+                long suffix = Long.parseLong(spec.substring(1));
+                if (suffix <= 0) {
+                    return UNSATISFIABLE;
+                }
+                start = Math.max(0, length - suffix);
+                end = length - 1;
+            } else {
+                start = Long.parseLong(spec.substring(0, dash));
+                end = dash == spec.length() - 1 ? length - 1 : Long.parseLong(spec.substring(dash + 1));
+                if (end < start) {
+                    return null;
+                }
+                end = Math.min(end, length - 1);
+            }
+            if (start >= length) {
+                return UNSATISFIABLE;
+            }
+            return new long[]{start, end};
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,216 @@
+package cn.allbs.excel.test.export;
+
+import cn.allbs.excel.annotation.ExcelMerge;
+import cn.allbs.excel.test.meta.ClassMetadata;
+import cn.allbs.excel.test.meta.FieldMetadata;
+import com.alibaba.excel.metadata.Head;
+import com.alibaba.excel.write.handler.RowWriteHandler;
+import com.alibaba.excel.write.handler.WorkbookWriteHandler;
+import com.alibaba.excel.write.metadata.holder.WriteSheetHolder;
+import com.alibaba.excel.write.metadata.holder.WriteTableHolder;
+import com.alibaba.excel.write.metadata.holder.WriteWorkbookHolder;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellType;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.util.CellRangeAddress;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * 按游程合并单元格
+ * 逐行扫描 {@code @ExcelMerge} 列，只记住每列当前游程的起始行和值；值变化（或所依赖的列断开）时
+ * 输出一个合并区域，导出结束时补齐最后一段。合并区域直接追加，不做逐个重叠校验，合并开销随行数线性增长
+ * <p>
+ * 游程按列、按行严格递增，天然互不重叠，跳过 POI 的校验是安全的。空值不参与合并。
+ * 流式分块写入同一 Sheet 时游程跨块延续
+ * <p>
+ * 用法：{@code @ExportExcel(writeHandler = RunLengthMergeWriteHandler.class)}，不再设置 {@code autoMerge}
+ */
+@Slf4j
+public class RunLengthMergeWriteHandler implements RowWriteHandler, WorkbookWriteHandler {
+
+    /**
+     * 各 Sheet 的游程状态，写入在单线程上进行
+     */
+    private final Map<Sheet, SheetRuns> sheets = new IdentityHashMap<>();
+
+    private long mergedRegions;
+
+    @Override
+    public void afterRowDispose(WriteSheetHolder writeSheetHolder, WriteTableHolder writeTableHolder, Row row,
+                                Integer relativeRowIndex, Boolean isHead) {
+        if (Boolean.TRUE.equals(isHead)) {
+            return;
+        }
+        sheets.computeIfAbsent(row.getSheet(), sheet -> SheetRuns.of(writeSheetHolder)).accept(row, this);
+    }
+
+    @Override
+    public void afterWorkbookDispose(WriteWorkbookHolder writeWorkbookHolder) {
+        // EasyExcel 在输出工作簿之前回调，此时补齐各 Sheet 最后一段游程
+        sheets.forEach((sheet, runs) -> runs.finish(sheet, this));
+        log.debug("游程合并完成: {} 个合并区域", mergedRegions);
+        sheets.clear();
+    }
+
+    /**
+     * 已添加的合并区域数
+     */
+    public long getMergedRegions() {
+        return mergedRegions;
+    }
+
+    /**
+     * 添加合并区域，游程互不重叠，跳过 POI 的重叠校验
+     */
+    protected void addMergedRegion(Sheet sheet, CellRangeAddress region) {
+        sheet.addMergedRegionUnsafe(region);
+    }
+
+    private void merge(Sheet sheet, int firstRow, int lastRow, int column) {
+        if (lastRow > firstRow) {
+            addMergedRegion(sheet, new CellRangeAddress(firstRow, lastRow, column, column));
+            mergedRegions++;
+        }
+    }
+
+    private static Object cellValue(Cell cell) {
+        if (cell == null) {
+            return null;
+        }
+        CellType type = cell.getCellType() == CellType.FORMULA ? cell.getCachedFormulaResultType() : cell.getCellType();
+        switch (type) {
+            case NUMERIC:
+                return cell.getNumericCellValue();
+            case STRING:
+                String text = cell.getStringCellValue();
+                return text.isEmpty() ? null : text;
+            case BOOLEAN:
+                return cell.getBooleanCellValue();
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * 单个 Sheet 的游程状态
+     */
+    private static final class SheetRuns {
+
+        private static final SheetRuns NONE = new SheetRuns(new int[0], new int[0]);
+
+        /**
+         * 合并列下标，依赖的列排在前面
+         */
+        private final int[] columns;
+
+        /**
+         * 所依赖的列在 columns 中的位置，没有依赖为 -1
+         */
+        private final int[] parents;
+
+        private final Object[] values;
+        private final int[] starts;
+        private final boolean[] broken;
+        private int lastRow = -1;
+
+        private SheetRuns(int[] columns, int[] parents) {
+            this.columns = columns;
+            this.parents = parents;
+            this.values = new Object[columns.length];
+            this.starts = new int[columns.length];
+            this.broken = new boolean[columns.length];
+        }
+
+        /**
+         * 从表头解析合并列
+         */
+        static SheetRuns of(WriteSheetHolder writeSheetHolder) {
+            Class<?> type = writeSheetHolder.excelWriteHeadProperty().getHeadClazz();
+            if (type == null) {
+                return NONE;
+            }
+            Map<String, Integer> columnByField = new HashMap<>();
+            Map<String, String> dependOn = new HashMap<>();
+            for (Map.Entry<Integer, Head> entry : writeSheetHolder.excelWriteHeadProperty().getHeadMap().entrySet()) {
+                String fieldName = entry.getValue().getFieldName();
+                FieldMetadata field = fieldName != null ? ClassMetadata.of(type).getField(fieldName) : null;
+                ExcelMerge merge = field != null ? field.getAnnotation(ExcelMerge.class) : null;
+                if (merge != null && merge.enabled()) {
+                    columnByField.put(fieldName, entry.getKey());
+                    dependOn.put(fieldName, merge.dependOn());
+                }
+            }
+            if (columnByField.isEmpty()) {
+                return NONE;
+            }
+
+            // 按依赖排序，保证处理某列时它依赖的列已经判断过
+            List<String> ordered = new ArrayList<>();
+            for (String fieldName : columnByField.keySet()) {
+                addInOrder(fieldName, dependOn, ordered, new ArrayList<>());
+            }
+            int[] columns = new int[ordered.size()];
+            int[] parents = new int[ordered.size()];
+            for (int i = 0; i < ordered.size(); i++) {
+                String fieldName = ordered.get(i);
+                columns[i] = columnByField.get(fieldName);
+                parents[i] = ordered.indexOf(dependOn.get(fieldName));
+            }
+            return new SheetRuns(columns, parents);
+        }
+
+        private static void addInOrder(String fieldName, Map<String, String> dependOn, List<String> ordered,
+                                       List<String> visiting) {
+            if (ordered.contains(fieldName)) {
+                return;
+            }
+            if (visiting.contains(fieldName)) {
+                throw new IllegalStateException("@ExcelMerge(dependOn) 存在循环依赖: " + visiting);
+            }
+            visiting.add(fieldName);
+            String parent = dependOn.get(fieldName);
+            if (parent != null && dependOn.containsKey(parent)) {
+                addInOrder(parent, dependOn, ordered, visiting);
+            }
+            ordered.add(fieldName);
+        }
+
+        void accept(Row row, RunLengthMergeWriteHandler handler) {
+            if (columns.length == 0) {
+                return;
+            }
+            int rowNum = row.getRowNum();
+            for (int i = 0; i < columns.length; i++) {
+                Object value = cellValue(row.getCell(columns[i]));
+                broken[i] = lastRow < 0 || rowNum != lastRow + 1 || value == null
+                        || !Objects.equals(value, values[i]) || (parents[i] >= 0 && broken[parents[i]]);
+                if (broken[i]) {
+                    if (lastRow >= 0) {
+                        handler.merge(row.getSheet(), starts[i], lastRow, columns[i]);
+                    }
+                    starts[i] = rowNum;
+                    values[i] = value;
+                }
+            }
+            lastRow = rowNum;
+        }
+
+        void finish(Sheet sheet, RunLengthMergeWriteHandler handler) {
+            if (lastRow < 0) {
+                return;
+            }
+            for (int i = 0; i < columns.length; i++) {
+                handler.merge(sheet, starts[i], lastRow, columns[i]);
+            }
+            lastRow = -1;
+        }
+    }
+}
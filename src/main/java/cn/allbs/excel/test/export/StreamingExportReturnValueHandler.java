@@ -0,0 +1,381 @@
+package cn.allbs.excel.test.export;
+
+import cn.allbs.excel.annotation.DynamicHeaders;
+import cn.allbs.excel.annotation.ExcelComment;
+import cn.allbs.excel.annotation.ExcelImage;
+import cn.allbs.excel.annotation.ExcelLine;
+import cn.allbs.excel.annotation.ExcelSheetStyle;
+import cn.allbs.excel.annotation.ExportExcel;
+import cn.allbs.excel.annotation.ExportProgress;
+import cn.allbs.excel.annotation.FlattenProperty;
+import cn.allbs.excel.annotation.RelatedSheet;
+import cn.allbs.excel.annotation.Sheet;
+import cn.allbs.excel.listener.ExportProgressListener;
+import cn.allbs.excel.service.DictService;
+import cn.allbs.excel.test.listener.ProgressContext;
+import cn.allbs.excel.test.meta.ClassMetadata;
+import com.alibaba.excel.EasyExcel;
+import com.alibaba.excel.ExcelWriter;
+import com.alibaba.excel.write.builder.ExcelWriterBuilder;
+import com.alibaba.excel.write.handler.WriteHandler;
+import com.alibaba.excel.write.metadata.WriteSheet;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.BeanUtils;
+import org.springframework.context.ApplicationContext;
+import org.springframework.core.MethodParameter;
+import org.springframework.core.ResolvableType;
+import org.springframework.util.StringUtils;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.method.support.HandlerMethodReturnValueHandler;
+import org.springframework.web.method.support.ModelAndViewContainer;
+
+import javax.servlet.http.HttpServletResponse;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.net.URLEncoder;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * 流式导出返回值处理
+ * {@code @ExportExcel} 方法返回 {@link Stream}、{@link Iterator} 或 {@link ExportPageSupplier} 时，
+ * 不再先收集成 List，而是按块取数写入响应，写出的行随即可回收，只处理第一个 {@code @Sheet}；
+ * 返回 {@link ParallelSheets} 时各 Sheet 并行取数，按顺序写入；数据类型含 {@code @FlattenList} 时
+ * 由 {@link FlattenListExcelWriter} 边取边展开
+ * <p>
+ * {@code @ExportProgress} 的监听器按块回调，总行数未知时传 0
+ * <p>
+ * 流式导出自己构建写入器，只注册 {@code writeHandler} 里的处理器，不经过 allbs-excel 的导出流程：
+ * <ul>
+ *     <li>{@code password}、{@code template}、{@code autoMerge}（含 {@code @Sheet(autoMerge)}）、{@code onlyExcelProperty}、
+ *     {@code i18nHeader} 以及非 {@link ParallelSheets} 返回值配置多个 {@code @Sheet} 时直接报错，不会导出与 List 返回值不同的文件</li>
+ *     <li>allbs-excel 自动注册的处理器（{@code @FlattenProperty}、{@code @DynamicHeaders}、{@code @RelatedSheet}、
+ *     {@code @ExcelSheetStyle}、{@code @ExcelLine}、{@code @ExcelImage}、{@code @ExcelComment} 等）不会注册，数据类型带这些注解时
+ *     每个方法打一次警告；{@code @FlattenList} 由 {@link FlattenListExcelWriter} 处理，合并和条件样式通过 {@code writeHandler}
+ *     显式注册 {@link RunLengthMergeWriteHandler}、{@link CompiledConditionalStyleWriteHandler}</li>
+ *     <li>字段上的转换器（{@code DictConverter}、{@code DesensitizeConverter} 等）照常生效；含 {@code @FlattenList} 的类型例外：
+ *     展开写入只处理 {@code @DateTimeFormat} 和 {@code @ExcelIgnoreUnannotated}，字段转换器、{@code @NumberFormat}、
+ *     {@code @ExcelDict}、{@code @Desensitize} 不生效，带这些注解时同样警告</li>
+ * </ul>
+ * 写入中途出错时不再写出工作簿：响应未提交则重置，异常按普通错误响应返回；已提交则中断响应，客户端拿到的是不完整的下载而不是 200 的截断文件
+ */
+@Slf4j
+public class StreamingExportReturnValueHandler implements HandlerMethodReturnValueHandler {
+
+    /**
+     * 由 allbs-excel 自动注册的处理器处理的注解，流式导出不会注册这些处理器
+     */
+    private static final List<Class<? extends Annotation>> AUTO_HANDLED = Arrays.asList(
+            FlattenProperty.class, DynamicHeaders.class, RelatedSheet.class, ExcelSheetStyle.class,
+            ExcelLine.class, ExcelImage.class, ExcelComment.class);
+
+    private final ApplicationContext applicationContext;
+
+    private final int chunkSize;
+
+    private final ParallelSheetWriter parallelSheetWriter;
+
+    /**
+     * 已打过未注册处理器警告的方法
+     */
+    private final Set<Method> warnedMethods = ConcurrentHashMap.newKeySet();
+
+    public StreamingExportReturnValueHandler(ApplicationContext applicationContext, int chunkSize,
+                                             ParallelSheetWriter parallelSheetWriter) {
+        this.applicationContext = applicationContext;
+        this.chunkSize = chunkSize;
+        this.parallelSheetWriter = parallelSheetWriter;
+    }
+
+    /**
+     * 是否是流式导出支持的返回类型
+     */
+    public static boolean isStreamingType(Class<?> type) {
+        return Stream.class.isAssignableFrom(type)
+                || Iterator.class.isAssignableFrom(type)
+                || ExportPageSupplier.class.isAssignableFrom(type)
+                || ParallelSheets.class.isAssignableFrom(type);
+    }
+
+    @Override
+    public boolean supportsReturnType(MethodParameter returnType) {
+        return returnType.hasMethodAnnotation(ExportExcel.class) && isStreamingType(returnType.getParameterType());
+    }
+
+    @Override
+    public void handleReturnValue(Object returnValue, MethodParameter returnType,
+                                  ModelAndViewContainer mavContainer, NativeWebRequest webRequest) throws Exception {
+        mavContainer.setRequestHandled(true);
+        HttpServletResponse response = webRequest.getNativeResponse(HttpServletResponse.class);
+        ExportExcel exportExcel = returnType.getMethodAnnotation(ExportExcel.class);
+        checkSupported(exportExcel, returnType.getMethod(), returnValue instanceof ParallelSheets);
+
+        response.setContentType("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet");
+        response.setCharacterEncoding("utf-8");
+        String fileName = URLEncoder.encode(exportExcel.name(), "UTF-8").replaceAll("\\+", "%20");
+        response.setHeader("Content-disposition", "attachment;filename*=utf-8''" + fileName + ".xlsx");
+
+        ExcelWriterBuilder builder = EasyExcel.write(response.getOutputStream()).autoCloseStream(false);
+        for (Class<? extends WriteHandler> handlerClass : exportExcel.writeHandler()) {
+            builder.registerWriteHandler(BeanUtils.instantiateClass(handlerClass));
+        }
+        ExportProgress exportProgress = returnType.getMethodAnnotation(ExportProgress.class);
+        if (returnValue instanceof ParallelSheets) {
+            writeParallel((ParallelSheets) returnValue, exportExcel.sheets(), returnType.getMethod(), exportProgress,
+                    builder, response);
+            return;
+        }
+
+        Sheet sheet = exportExcel.sheets()[0];
+        Class<?> head = resolveHead(returnType, sheet);
+        FlattenListExcelWriter flattenWriter = FlattenListExcelWriter.supports(head) ? FlattenListExcelWriter.of(head) : null;
+        warnUnregisteredHandlers(returnType.getMethod(), head, flattenWriter);
+        if (flattenWriter != null) {
+            builder.head(flattenWriter.head());
+        } else {
+            builder.head(head);
+        }
+        WriteSheet writeSheet = EasyExcel.writerSheet(sheet.sheetName()).build();
+        ProgressReporter progress = ProgressReporter.of(applicationContext, exportProgress, sheet.sheetName());
+
+        try (Stream<?> ignored = returnValue instanceof Stream ? (Stream<?>) returnValue : null) {
+            ExcelWriter writer = builder.build();
+            long written;
+            try {
+                progress.start();
+                written = flattenWriter != null
+                        ? flattenWriter.write(writer, writeSheet, toIterator(returnValue), chunkSize, progress::chunkWritten)
+                        : ChunkedExcelWriter.write(writer, writeSheet, toIterator(returnValue), chunkSize,
+                        progress::chunkWritten, dictPrefetcher(head));
+            } catch (RuntimeException e) {
+                progress.error(e);
+                abort(writer, response);
+                throw e;
+            }
+            writer.finish();
+            progress.complete(written);
+            log.debug("流式导出完成: {} 行", written);
+        }
+    }
+
+    /**
+     * 多 Sheet 并行取数，按 {@code @Sheet} 顺序写入
+     */
+    private void writeParallel(ParallelSheets parallelSheets, Sheet[] sheets, Method method, ExportProgress exportProgress,
+                               ExcelWriterBuilder builder, HttpServletResponse response) {
+        if (parallelSheets.getSources().size() != sheets.length) {
+            throw new IllegalStateException(String.format("ParallelSheets 数据来源数量（%d）与 @Sheet 数量（%d）不一致",
+                    parallelSheets.getSources().size(), sheets.length));
+        }
+        List<ParallelSheetWriter.SheetSource> sources = new ArrayList<>(sheets.length);
+        for (int i = 0; i < sheets.length; i++) {
+            Sheet sheet = sheets[i];
+            if (sheet.clazz() == null || sheet.clazz() == Object.class || sheet.clazz() == Void.class) {
+                throw new IllegalStateException("并行导出需要为每个 Sheet 指定 @Sheet(clazz): " + sheet.sheetName());
+            }
+            warnUnregisteredHandlers(method, sheet.clazz(), null);
+            WriteSheet writeSheet = EasyExcel.writerSheet(i, sheet.sheetName()).head(sheet.clazz()).build();
+            sources.add(new ParallelSheetWriter.SheetSource(writeSheet, parallelSheets.getSources().get(i),
+                    ProgressReporter.of(applicationContext, exportProgress, sheet.sheetName()), dictPrefetcher(sheet.clazz())));
+        }
+
+        ExcelWriter writer = builder.build();
+        long[] written;
+        try {
+            written = parallelSheetWriter.write(writer, sources);
+        } catch (RuntimeException e) {
+            ProgressReporter.of(applicationContext, exportProgress, null).error(e);
+            abort(writer, response);
+            throw e;
+        }
+        writer.finish();
+        log.debug("并行导出完成: 各 Sheet 行数 {}", Arrays.toString(written));
+    }
+
+    /**
+     * 丢弃写了一半的工作簿：只清理临时文件不写出；响应未提交时重置，让异常按普通错误响应返回
+     */
+    private static void abort(ExcelWriter writer, HttpServletResponse response) {
+        try {
+            writer.writeContext().finish(true);
+        } catch (RuntimeException e) {
+            log.warn("清理未完成的流式导出失败", e);
+        }
+        if (!response.isCommitted()) {
+            response.reset();
+        }
+    }
+
+    /**
+     * 流式导出不支持的 {@code @ExportExcel} 配置直接报错
+     */
+    private static void checkSupported(ExportExcel exportExcel, Method method, boolean parallel) {
+        List<String> unsupported = new ArrayList<>();
+        if (!parallel && exportExcel.sheets().length > 1) {
+            unsupported.add("多个 @Sheet（多 Sheet 请返回 ParallelSheets）");
+        }
+        if (StringUtils.hasText(exportExcel.password())) {
+            unsupported.add("password");
+        }
+        if (StringUtils.hasText(exportExcel.template())) {
+            unsupported.add("template");
+        }
+        if (exportExcel.autoMerge() || Arrays.stream(exportExcel.sheets()).anyMatch(Sheet::autoMerge)) {
+            unsupported.add("autoMerge（请改用 writeHandler = RunLengthMergeWriteHandler.class）");
+        }
+        if (exportExcel.onlyExcelProperty() || Arrays.stream(exportExcel.sheets()).anyMatch(Sheet::onlyExcelProperty)) {
+            unsupported.add("onlyExcelProperty（请在数据类型上加 @ExcelIgnoreUnannotated）");
+        }
+        if (exportExcel.i18nHeader()) {
+            unsupported.add("i18nHeader");
+        }
+        if (!unsupported.isEmpty()) {
+            throw new IllegalStateException("流式导出不支持 @ExportExcel 的以下配置: " + String.join("、", unsupported)
+                    + "，方法: " + method);
+        }
+    }
+
+    /**
+     * 数据类型带有 allbs-excel 自动注册的处理器才处理的注解时警告（每个方法一次），流式导出不会注册这些处理器；
+     * 展开写入时再加上 {@link FlattenListExcelWriter} 不处理的字段注解
+     *
+     * @param flattenWriter 展开写入时的写入器，否则为 null
+     */
+    private void warnUnregisteredHandlers(Method method, Class<?> head, FlattenListExcelWriter flattenWriter) {
+        ClassMetadata metadata = ClassMetadata.of(head);
+        boolean flattened = flattenWriter != null;
+        List<String> ignored = new ArrayList<>();
+        for (Class<? extends Annotation> annotation : AUTO_HANDLED) {
+            // 含 @FlattenList 的类型由 FlattenListExcelWriter 一并展开 @FlattenProperty
+            if (annotation == FlattenProperty.class && flattened) {
+                continue;
+            }
+            if (metadata.isAnnotationPresent(annotation) || metadata.hasFieldAnnotation(annotation)) {
+                ignored.add("@" + annotation.getSimpleName());
+            }
+        }
+        if (flattened) {
+            ignored.addAll(flattenWriter.getIgnoredAnnotations());
+        }
+        if (!ignored.isEmpty() && warnedMethods.add(method)) {
+            log.warn("流式导出不会处理的注解 {}（数据类型 {}），导出结果与 List 返回值不同，方法: {}",
+                    ignored, head.getName(), method);
+        }
+    }
+
+    private Iterator<?> toIterator(Object returnValue) {
+        if (returnValue == null) {
+            return Collections.emptyIterator();
+        }
+        if (returnValue instanceof Stream) {
+            return ((Stream<?>) returnValue).iterator();
+        }
+        if (returnValue instanceof ExportPageSupplier) {
+            return ((ExportPageSupplier<?>) returnValue).iterator(chunkSize);
+        }
+        return (Iterator<?>) returnValue;
+    }
+
+    /**
+     * 按块预取 {@code @ExcelDict} 字典，不需要时为 null
+     */
+    private DictChunkPrefetcher dictPrefetcher(Class<?> head) {
+        return DictChunkPrefetcher.of(head, applicationContext.getBeanProvider(DictService.class).getIfAvailable());
+    }
+
+    /**
+     * 表头类型：优先取返回值的泛型参数，取不到时用 {@code @Sheet(clazz)}
+     */
+    private static Class<?> resolveHead(MethodParameter returnType, Sheet sheet) {
+        Class<?> head = ResolvableType.forMethodParameter(returnType).getGeneric(0).resolve();
+        if (head == null || head == Object.class) {
+            head = sheet.clazz();
+        }
+        if (head == null || head == Object.class || head == Void.class) {
+            throw new IllegalStateException("无法确定流式导出的数据类型，请声明泛型或指定 @Sheet(clazz): " + returnType.getMethod());
+        }
+        return head;
+    }
+
+    /**
+     * 按块回调导出进度监听器
+     * 创建时（请求线程上）取 {@link ProgressContext}，每次回调都绑定它，写入转到其他线程时监听器照样取得到会话
+     */
+    private static final class ProgressReporter implements ParallelSheetWriter.SheetCallback {
+
+        private static final ProgressReporter NONE = new ProgressReporter(null, 0, null, null);
+
+        private final ExportProgressListener listener;
+        private final int interval;
+        private final String sheetName;
+        private final ProgressContext context;
+        private long lastReported;
+
+        private ProgressReporter(ExportProgressListener listener, int interval, String sheetName, ProgressContext context) {
+            this.listener = listener;
+            this.interval = Math.max(1, interval);
+            this.sheetName = sheetName;
+            this.context = context;
+        }
+
+        static ProgressReporter of(ApplicationContext context, ExportProgress annotation, String sheetName) {
+            if (annotation == null) {
+                return NONE;
+            }
+            Class<? extends ExportProgressListener> type = annotation.listener();
+            ExportProgressListener listener = context.getBeanProvider(type)
+                    .getIfAvailable(() -> BeanUtils.instantiateClass(type));
+            return new ProgressReporter(listener, annotation.interval(), sheetName, ProgressContext.current());
+        }
+
+        @Override
+        public void started() {
+            start();
+        }
+
+        @Override
+        public void completed(long written) {
+            complete(written);
+        }
+
+        void start() {
+            if (listener != null) {
+                report(() -> listener.onStart(0, sheetName));
+            }
+        }
+
+        @Override
+        public void chunkWritten(long written) {
+            if (listener != null && written - lastReported >= interval) {
+                lastReported = written;
+                report(() -> listener.onProgress((int) written, 0, 0.0, sheetName));
+            }
+        }
+
+        void complete(long written) {
+            if (listener != null) {
+                report(() -> listener.onComplete((int) written, sheetName));
+            }
+        }
+
+        void error(Exception e) {
+            if (listener != null) {
+                report(() -> listener.onError(e, sheetName));
+            }
+        }
+
+        private void report(Runnable callback) {
+            if (context != null) {
+                context.wrap(callback).run();
+            } else {
+                callback.run();
+            }
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package cn.allbs.excel.test.listener;
+
+import cn.allbs.excel.test.service.ImportBatchSink;
+import cn.allbs.excel.vo.FieldError;
+import com.alibaba.excel.context.AnalysisContext;
+import com.alibaba.excel.event.AnalysisEventListener;
+import com.alibaba.excel.metadata.data.ReadCellData;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * 分批导入监听器
+ * 逐行校验，有效数据攒满一个批次后交给 {@link ImportBatchSink}，缓冲区复用，内存占用与文件行数无关
+ * <p>
+ * 严格模式（skipErrors=false）下发现第一条错误后不再向 sink 写入，已写入的批次由 sink 在 onAbort 中回滚
+ * <p>
+ * 每行都会检查 {@link #isCancelled()}，取消后丢弃缓冲区并通过 hasNext 让 EasyExcel 停止读取
+ *
+ * @param <T> 数据类型
+ */
+@Slf4j
+public class BatchImportListener<T> extends AnalysisEventListener<T> {
+
+    private final int batchSize;
+    private final boolean skipErrors;
+    private final ImportBatchSink<T> sink;
+    private final Function<T, List<FieldError>> validator;
+    private final List<T> buffer;
+
+    /**
+     * Excel 行号（表头是第1行）
+     */
+    private int rowIndex = 1;
+    private int totalRows;
+    private int processedRows;
+    private int successCount;
+    private int errorCount;
+
+    public BatchImportListener(int batchSize, boolean skipErrors, ImportBatchSink<T> sink,
+                               Function<T, List<FieldError>> validator) {
+        this.batchSize = Math.max(1, batchSize);
+        this.skipErrors = skipErrors;
+        this.sink = sink;
+        this.validator = validator;
+        this.buffer = new ArrayList<>(this.batchSize);
+    }
+
+    @Override
+    public void invokeHead(Map<Integer, ReadCellData<?>> headMap, AnalysisContext context) {
+        // 尝试获取总行数
+        try {
+            if (context.readSheetHolder() != null &&
+                    context.readSheetHolder().getApproximateTotalRowNumber() != null) {
+                totalRows = context.readSheetHolder().getApproximateTotalRowNumber() - 1;
+                onTotalRows(totalRows);
+            }
+        } catch (Exception e) {
+            log.debug("无法获取总行数", e);
+        }
+    }
+
+    @Override
+    public void invoke(T data, AnalysisContext context) {
+        if (isCancelled()) {
+            buffer.clear();
+            return;
+        }
+
+        rowIndex++;
+        processedRows++;
+
+        List<FieldError> fieldErrors = validator.apply(data);
+        if (!fieldErrors.isEmpty()) {
+            errorCount++;
+            onRowError(rowIndex, data, fieldErrors);
+            if (!skipErrors) {
+                // 严格模式，后续数据不再入库
+                buffer.clear();
+            }
+        } else {
+            successCount++;
+            onRowAccepted(rowIndex, data);
+            if (!isRejected()) {
+                buffer.add(data);
+                if (buffer.size() >= batchSize) {
+                    flush();
+                }
+            }
+        }
+
+        onRowProcessed(processedRows, totalRows);
+    }
+
+    @Override
+    public boolean hasNext(AnalysisContext context) {
+        if (isCancelled()) {
+            buffer.clear();
+            return false;
+        }
+        return true;
+    }
+
+    @Override
+    public void doAfterAllAnalysed(AnalysisContext context) {
+        if (!isRejected() && !isCancelled()) {
+            flush();
+        }
+        buffer.clear();
+        totalRows = processedRows;
+    }
+
+    /**
+     * 严格模式下存在错误数据，本次导入不应提交
+     */
+    public boolean isRejected() {
+        return !skipErrors && errorCount > 0;
+    }
+
+    private void flush() {
+        if (buffer.isEmpty()) {
+            return;
+        }
+        try {
+            sink.write(buffer);
+        } catch (Exception e) {
+            throw new IllegalStateException("批次写入失败: " + e.getMessage(), e);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * 是否已请求取消，每行检查一次
+     */
+    protected boolean isCancelled() {
+        return false;
+    }
+
+    /**
+     * 获取到预估总行数
+     */
+    protected void onTotalRows(int totalRows) {
+    }
+
+    /**
+     * 校验通过的行
+     */
+    protected void onRowAccepted(int rowIndex, T data) {
+    }
+
+    /**
+     * 校验失败的行
+     */
+    protected void onRowError(int rowIndex, T data, List<FieldError> fieldErrors) {
+    }
+
+    /**
+     * 每行处理完成
+     */
+    protected void onRowProcessed(int processedRows, int totalRows) {
+    }
+
+    public int getTotalRows() {
+        return totalRows;
+    }
+
+    public int getProcessedRows() {
+        return processedRows;
+    }
+
+    public int getSuccessCount() {
+        return successCount;
+    }
+
+    public int getErrorCount() {
+        return errorCount;
+    }
+}
@@ -0,0 +1,566 @@
+package cn.allbs.excel.test.listener;
+
+import cn.allbs.excel.annotation.FlattenList;
+import cn.allbs.excel.annotation.FlattenProperty;
+import cn.allbs.excel.test.meta.AccessorPlan;
+import cn.allbs.excel.test.meta.ClassMetadata;
+import cn.allbs.excel.test.meta.FieldMetadata;
+import cn.allbs.excel.test.meta.PropertyPath;
+import cn.allbs.excel.test.service.ImportBatchSink;
+import com.alibaba.excel.annotation.format.DateTimeFormat;
+import com.alibaba.excel.context.AnalysisContext;
+import com.alibaba.excel.event.AnalysisEventListener;
+import com.alibaba.excel.metadata.data.ReadCellData;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * {@code @FlattenList} 流式聚合导入监听器
+ * 按表头（prefix + 子字段表头，与导出一致）读取展开后的行，以第一个父字段为主键把连续的行折叠回父对象：
+ * 主键单元格为空（合并单元格）或与当前主键相同视为同一父对象，主键变化时当前父对象立即交给
+ * {@link ImportBatchSink}，父对象本身只保留正在聚合的一个
+ * <p>
+ * 同一主键不连续出现时按 {@link OutOfOrderPolicy} 处理，各模式的堆占用：
+ * <ul>
+ *     <li>SEPARATE：只有正在聚合的父对象和一批待输出的父对象，与行数、主键数无关</li>
+ *     <li>FAIL（默认）：另外保留所有已输出的主键用于发现不连续的主键，随不同主键数线性增长</li>
+ *     <li>SPILL：所有行按段落盘，读完后按主键首次出现的顺序逐个重建父对象，堆中保留主键到落盘段的索引，同样随不同主键数线性增长</li>
+ * </ul>
+ * <p>
+ * 单线程使用，用完调用 {@link #close()} 删除落盘文件
+ *
+ * @param <T> 父对象类型
+ */
+@Slf4j
+public class FlattenListReadAggregator<T> extends AnalysisEventListener<Map<Integer, String>> implements Closeable {
+
+    /**
+     * 同一主键不连续出现时的处理方式
+     */
+    public enum OutOfOrderPolicy {
+        /**
+         * 报错中止；要记住所有已输出的主键，内存随不同主键数增长
+         */
+        FAIL,
+        /**
+         * 作为新的父对象输出，下游可能收到重复主键；不记录主键，内存有界
+         */
+        SEPARATE,
+        /**
+         * 按段落盘，读完后按主键合并输出；主键到落盘段的索引常驻内存
+         */
+        SPILL
+    }
+
+    private static final DateTimeFormatter DEFAULT_DATE_TIME = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private static final ClassValue<Plan> PLANS = new ClassValue<Plan>() {
+        @Override
+        protected Plan computeValue(Class<?> type) {
+            return Plan.compile(type);
+        }
+    };
+
+    private final Class<T> type;
+    private final Plan plan;
+    private final int batchSize;
+    private final int maxItemsPerParent;
+    private final OutOfOrderPolicy policy;
+    private final Path spillDir;
+    private final ImportBatchSink<T> sink;
+    private final List<T> buffer;
+
+    /**
+     * 按列下标的绑定，表头读取后确定
+     */
+    private Binding[] bindings = new Binding[0];
+    private int keyColumn = -1;
+
+    /**
+     * Excel 行号（表头是第1行）
+     */
+    private int rowIndex = 1;
+    private String currentKey;
+    private T current;
+    private int currentRows;
+
+    /**
+     * 已输出的主键，FAIL 模式用于发现不连续的主键，整个导入期间不释放（O(不同主键数)）
+     */
+    private final Set<String> finishedKeys = new HashSet<>();
+
+    private int parentCount;
+    private long rowCount;
+
+    private Path spillFile;
+    private DataOutputStream spillOut;
+    private long spillWritten;
+    private long segmentStart;
+    private int spilledSegments;
+    private final Map<String, SpillSegments> segments = new LinkedHashMap<>();
+
+    /**
+     * @param batchSize         每批交给 sink 的父对象数
+     * @param maxItemsPerParent 每个父对象最多的展开行数，超过时报错
+     * @param spillDir          SPILL 模式的落盘目录
+     */
+    public FlattenListReadAggregator(Class<T> type, int batchSize, int maxItemsPerParent, OutOfOrderPolicy policy,
+                                     Path spillDir, ImportBatchSink<T> sink) {
+        this.type = type;
+        this.plan = PLANS.get(type);
+        this.batchSize = Math.max(1, batchSize);
+        this.maxItemsPerParent = Math.max(1, maxItemsPerParent);
+        this.policy = policy;
+        this.spillDir = spillDir;
+        this.sink = sink;
+        this.buffer = new ArrayList<>(this.batchSize);
+    }
+
+    @Override
+    public void invokeHead(Map<Integer, ReadCellData<?>> headMap, AnalysisContext context) {
+        int width = headMap.keySet().stream().mapToInt(Integer::intValue).max().orElse(-1) + 1;
+        bindings = new Binding[width];
+        for (Map.Entry<Integer, ReadCellData<?>> entry : headMap.entrySet()) {
+            String name = entry.getValue() != null ? entry.getValue().getStringValue() : null;
+            Binding binding = name != null ? plan.bindings.get(name.trim()) : null;
+            bindings[entry.getKey()] = binding;
+            if (binding != null && binding == plan.key) {
+                keyColumn = entry.getKey();
+            }
+        }
+        if (keyColumn < 0) {
+            throw new IllegalStateException("表头缺少主键列: " + plan.keyHead);
+        }
+    }
+
+    @Override
+    public void invoke(Map<Integer, String> row, AnalysisContext context) {
+        rowIndex++;
+        rowCount++;
+        String key = trimToNull(row.get(keyColumn));
+        if (currentKey == null && key == null) {
+            throw new IllegalStateException("第 " + rowIndex + " 行缺少主键: " + plan.keyHead);
+        }
+        if (key != null && !key.equals(currentKey)) {
+            finishCurrent();
+            startParent(key);
+        }
+        if (++currentRows > maxItemsPerParent) {
+            throw new IllegalStateException(String.format("主键 %s 的展开行数超过上限 %d（第 %d 行）",
+                    currentKey, maxItemsPerParent, rowIndex));
+        }
+        if (policy == OutOfOrderPolicy.SPILL) {
+            spillRow(row);
+        } else {
+            apply(current, row, rowIndex);
+        }
+    }
+
+    @Override
+    public void doAfterAllAnalysed(AnalysisContext context) {
+        finishCurrent();
+        if (policy == OutOfOrderPolicy.SPILL) {
+            emitSpilled();
+        }
+        flush();
+        log.debug("@FlattenList 聚合完成: {} 行 -> {} 个父对象", rowCount, parentCount);
+    }
+
+    @Override
+    public void close() {
+        closeSpillOut();
+        if (spillFile != null) {
+            try {
+                Files.deleteIfExists(spillFile);
+            } catch (IOException e) {
+                log.warn("删除落盘文件失败: {}", spillFile, e);
+            }
+            spillFile = null;
+        }
+    }
+
+    /**
+     * 已输出的父对象数
+     */
+    public int getParentCount() {
+        return parentCount;
+    }
+
+    /**
+     * 已读取的数据行数
+     */
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * SPILL 模式下落盘的段数
+     */
+    public int getSpilledSegments() {
+        return spilledSegments;
+    }
+
+    private void startParent(String key) {
+        currentKey = key;
+        currentRows = 0;
+        if (policy == OutOfOrderPolicy.SPILL) {
+            segmentStart = spillWritten;
+            // 同一主键已落盘的段计入上限
+            SpillSegments existing = segments.get(key);
+            currentRows = existing != null ? existing.totalRows : 0;
+            return;
+        }
+        if (policy == OutOfOrderPolicy.FAIL && finishedKeys.contains(key)) {
+            throw new IllegalStateException(String.format("主键 %s 在第 %d 行再次出现，数据需按主键连续排列", key, rowIndex));
+        }
+        current = plan.newParent(type);
+    }
+
+    private void finishCurrent() {
+        if (currentKey == null) {
+            return;
+        }
+        if (policy == OutOfOrderPolicy.SPILL) {
+            SpillSegments existing = segments.computeIfAbsent(currentKey, k -> new SpillSegments());
+            existing.add(segmentStart, spillWritten - segmentStart, currentRows - existing.totalRows);
+            spilledSegments++;
+        } else {
+            if (policy == OutOfOrderPolicy.FAIL) {
+                finishedKeys.add(currentKey);
+            }
+            emit(current);
+            current = null;
+        }
+        currentKey = null;
+    }
+
+    private void emit(T parent) {
+        parentCount++;
+        buffer.add(parent);
+        if (buffer.size() >= batchSize) {
+            flush();
+        }
+    }
+
+    private void flush() {
+        if (buffer.isEmpty()) {
+            return;
+        }
+        try {
+            sink.write(buffer);
+        } catch (Exception e) {
+            throw new IllegalStateException("批次写入失败: " + e.getMessage(), e);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * 把一行写入父对象：父字段非空时赋值，每个 List 的列有值时追加一个子项
+     */
+    @SuppressWarnings("unchecked")
+    private void apply(T parent, Map<Integer, String> row, int excelRow) {
+        Object[] items = new Object[plan.lists.size()];
+        for (Map.Entry<Integer, String> cell : row.entrySet()) {
+            int column = cell.getKey();
+            Binding binding = column < bindings.length ? bindings[column] : null;
+            String text = trimToNull(cell.getValue());
+            if (binding == null || text == null) {
+                continue;
+            }
+            Object target = parent;
+            if (binding.group >= 0) {
+                if (items[binding.group] == null) {
+                    items[binding.group] = plan.lists.get(binding.group).itemPlan.newInstance();
+                }
+                target = items[binding.group];
+            }
+            try {
+                // @FlattenProperty 的外层对象由路径按需创建
+                binding.path.set(target, binding.converter.apply(text));
+            } catch (RuntimeException e) {
+                throw new IllegalStateException(String.format("第 %d 行 [%s] 无法转换: %s", excelRow, binding.head, text), e);
+            }
+        }
+        for (int g = 0; g < items.length; g++) {
+            if (items[g] != null) {
+                ((List<Object>) plan.lists.get(g).path.get(parent)).add(items[g]);
+            }
+        }
+    }
+
+    private void spillRow(Map<Integer, String> row) {
+        try {
+            if (spillOut == null) {
+                Files.createDirectories(spillDir);
+                spillFile = Files.createTempFile(spillDir, "flatten_list_", ".spill");
+                spillOut = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(spillFile), 64 * 1024));
+            }
+            spillOut.writeInt(rowIndex);
+            spillOut.writeInt(row.size());
+            spillWritten += 8;
+            for (Map.Entry<Integer, String> cell : row.entrySet()) {
+                byte[] bytes = cell.getValue() != null ? cell.getValue().getBytes(StandardCharsets.UTF_8) : new byte[0];
+                spillOut.writeInt(cell.getKey());
+                spillOut.writeInt(cell.getValue() != null ? bytes.length : -1);
+                spillOut.write(bytes);
+                spillWritten += 8 + bytes.length;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("写入落盘文件失败", e);
+        }
+    }
+
+    /**
+     * 读完后按主键首次出现的顺序，逐个从落盘段重建父对象
+     */
+    private void emitSpilled() {
+        if (spillFile == null) {
+            return;
+        }
+        closeSpillOut();
+        try (FileChannel channel = FileChannel.open(spillFile, StandardOpenOption.READ)) {
+            Map<Integer, String> row = new HashMap<>();
+            // 每段按记录的长度整段读入，缓冲区跨段复用，只在遇到更长的段时扩容
+            ByteBuffer buffer = ByteBuffer.allocate(8 * 1024);
+            for (SpillSegments keySegments : segments.values()) {
+                T parent = plan.newParent(type);
+                for (int s = 0; s < keySegments.count; s++) {
+                    int length = keySegments.lengths[s];
+                    if (buffer.capacity() < length) {
+                        buffer = ByteBuffer.allocate(Math.max(length, buffer.capacity() * 2));
+                    }
+                    buffer.clear().limit(length);
+                    readFully(channel, buffer, keySegments.offsets[s]);
+                    buffer.flip();
+                    for (int r = 0; r < keySegments.rows[s]; r++) {
+                        int excelRow = buffer.getInt();
+                        int cells = buffer.getInt();
+                        row.clear();
+                        for (int c = 0; c < cells; c++) {
+                            int column = buffer.getInt();
+                            int valueLength = buffer.getInt();
+                            String value = null;
+                            if (valueLength >= 0) {
+                                value = new String(buffer.array(), buffer.position(), valueLength, StandardCharsets.UTF_8);
+                                buffer.position(buffer.position() + valueLength);
+                            }
+                            row.put(column, value);
+                        }
+                        apply(parent, row, excelRow);
+                    }
+                }
+                emit(parent);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("读取落盘文件失败", e);
+        }
+        segments.clear();
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long offset) throws IOException {
+        long position = offset;
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position);
+            if (read < 0) {
+                throw new EOFException("落盘文件在偏移 " + position + " 处提前结束");
+            }
+            position += read;
+        }
+    }
+
+    private void closeSpillOut() {
+        if (spillOut != null) {
+            try {
+                spillOut.close();
+            } catch (IOException e) {
+                log.warn("关闭落盘文件失败: {}", spillFile, e);
+            }
+            spillOut = null;
+        }
+    }
+
+    private static String trimToNull(String text) {
+        if (text == null) {
+            return null;
+        }
+        String trimmed = text.trim();
+        return trimmed.isEmpty() ? null : trimmed;
+    }
+
+    /**
+     * 同一主键的落盘段：起始偏移、字节数和行数
+     */
+    private static final class SpillSegments {
+        private long[] offsets = new long[1];
+        private int[] lengths = new int[1];
+        private int[] rows = new int[1];
+        private int count;
+        private int totalRows;
+
+        void add(long offset, long length, int rowCount) {
+            if (count == offsets.length) {
+                offsets = Arrays.copyOf(offsets, count * 2);
+                lengths = Arrays.copyOf(lengths, count * 2);
+                rows = Arrays.copyOf(rows, count * 2);
+            }
+            offsets[count] = offset;
+            lengths[count] = Math.toIntExact(length);
+            rows[count] = rowCount;
+            count++;
+            totalRows += rowCount;
+        }
+    }
+
+    /**
+     * 单列绑定：父字段的路径相对父对象，List 子项字段的路径相对子项
+     */
+    private static final class Binding {
+        private final String head;
+        /**
+         * 所属 List 下标，父字段为 -1
+         */
+        private final int group;
+        private final PropertyPath path;
+        private final Function<String, Object> converter;
+
+        Binding(String head, int group, Class<?> root, String path, FieldMetadata field) {
+            this.head = head;
+            this.group = group;
+            this.path = PropertyPath.compile(root, path);
+            this.converter = converter(field);
+        }
+    }
+
+    private static final class ListField {
+        private final PropertyPath path;
+        private final AccessorPlan itemPlan;
+
+        ListField(PropertyPath path, Class<?> itemType) {
+            this.path = path;
+            this.itemPlan = AccessorPlan.of(itemType);
+        }
+    }
+
+    /**
+     * 按类解析的表头绑定，每个类只解析一次
+     */
+    private static final class Plan {
+        private final Map<String, Binding> bindings = new LinkedHashMap<>();
+        private final List<ListField> lists = new ArrayList<>();
+        private Binding key;
+        private String keyHead;
+
+        static Plan compile(Class<?> type) {
+            Plan plan = new Plan();
+            for (FieldMetadata field : ClassMetadata.of(type).getColumns()) {
+                FlattenList flattenList = field.getAnnotation(FlattenList.class);
+                FlattenProperty flattenProperty = field.getAnnotation(FlattenProperty.class);
+                if (flattenList != null) {
+                    Class<?> itemType = field.getElementType();
+                    if (itemType == null) {
+                        throw new IllegalStateException("@FlattenList 字段需要声明元素类型: " + field);
+                    }
+                    for (FieldMetadata itemField : ClassMetadata.of(itemType).getPropertyColumns()) {
+                        String head = flattenList.prefix() + itemField.getHead();
+                        plan.bindings.put(head, new Binding(head, plan.lists.size(), itemType, itemField.getName(), itemField));
+                    }
+                    plan.lists.add(new ListField(PropertyPath.compile(type, field.getName()), itemType));
+                } else if (flattenProperty != null) {
+                    for (FieldMetadata childField : ClassMetadata.of(field.getType()).getPropertyColumns()) {
+                        String head = flattenProperty.prefix() + childField.getHead();
+                        plan.bindings.put(head, new Binding(head, -1, type,
+                                field.getName() + "." + childField.getName(), childField));
+                    }
+                } else {
+                    String head = field.getHead();
+                    Binding binding = new Binding(head, -1, type, field.getName(), field);
+                    plan.bindings.put(head, binding);
+                    if (plan.key == null) {
+                        plan.key = binding;
+                        plan.keyHead = head;
+                    }
+                }
+            }
+            if (plan.key == null) {
+                throw new IllegalStateException("没有可作为主键的父字段: " + type.getName());
+            }
+            return plan;
+        }
+
+        <T> T newParent(Class<T> type) {
+            T parent = type.cast(AccessorPlan.of(type).newInstance());
+            for (ListField list : lists) {
+                list.path.set(parent, new ArrayList<>());
+            }
+            return parent;
+        }
+    }
+
+    /**
+     * 文本到字段类型的转换，按字段解析一次
+     */
+    private static Function<String, Object> converter(FieldMetadata field) {
+        Class<?> fieldType = field.getType();
+        DateTimeFormat format = field.getAnnotation(DateTimeFormat.class);
+        DateTimeFormatter formatter = format != null && !format.value().isEmpty()
+                ? DateTimeFormatter.ofPattern(format.value()) : null;
+        if (fieldType == String.class) {
+            return text -> text;
+        }
+        if (fieldType == Integer.class || fieldType == int.class) {
+            return text -> new BigDecimal(text).intValue();
+        }
+        if (fieldType == Long.class || fieldType == long.class) {
+            return text -> new BigDecimal(text).longValue();
+        }
+        if (fieldType == Double.class || fieldType == double.class) {
+            return Double::valueOf;
+        }
+        if (fieldType == BigDecimal.class) {
+            return BigDecimal::new;
+        }
+        if (fieldType == Boolean.class || fieldType == boolean.class) {
+            return Boolean::valueOf;
+        }
+        if (fieldType == LocalDateTime.class) {
+            DateTimeFormatter f = formatter != null ? formatter : DEFAULT_DATE_TIME;
+            return text -> LocalDateTime.parse(text, f);
+        }
+        if (fieldType == LocalDate.class) {
+            DateTimeFormatter f = formatter != null ? formatter : DateTimeFormatter.ISO_LOCAL_DATE;
+            return text -> LocalDate.parse(text, f);
+        }
+        if (fieldType == Date.class) {
+            DateTimeFormatter f = formatter != null ? formatter : DEFAULT_DATE_TIME;
+            return text -> Date.from(LocalDateTime.parse(text, f).atZone(ZoneId.systemDefault()).toInstant());
+        }
+        throw new IllegalStateException("不支持的字段类型: " + field);
+    }
+}
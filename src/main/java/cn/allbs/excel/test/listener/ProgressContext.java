@@ -0,0 +1,118 @@
+package cn.allbs.excel.test.listener;
+
+import java.util.Objects;
+import java.util.concurrent.Callable;
+
+/**
+ * 进度上下文 - 标识当前导出/导入任务推送进度的会话
+ * <p>
+ * 由 {@link ProgressContextInterceptor} 在进入 {@code @ExportProgress}/{@code @ImportProgress} 方法前绑定，
+ * 监听器每次回调取 {@link #current()}，不依赖监听器何时、在哪个线程创建。
+ * 导出/导入工作提交到其他线程（导入调度器、异步导出线程池、并行 Sheet 取数、预览解析、多 Sheet 导入）时，
+ * 提交处都用 {@link #wrapCurrent(Runnable)} 把上下文带过去，本项目自己回调监听器的地方（流式导出）回调时绑定请求时取到的上下文；Spring 默认任务线程池由 {@link ProgressContextTaskDecorator} 处理
+ */
+public final class ProgressContext {
+
+    private static final ThreadLocal<ProgressContext> CURRENT = new ThreadLocal<>();
+
+    private final String sessionId;
+
+    public ProgressContext(String sessionId) {
+        this.sessionId = Objects.requireNonNull(sessionId, "sessionId");
+    }
+
+    public String getSessionId() {
+        return sessionId;
+    }
+
+    /**
+     * 当前线程绑定的上下文，没有返回 null
+     */
+    public static ProgressContext current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * 当前线程绑定的会话ID，没有返回 null
+     */
+    public static String currentSessionId() {
+        ProgressContext context = CURRENT.get();
+        return context != null ? context.sessionId : null;
+    }
+
+    /**
+     * 绑定到当前线程，关闭返回的 Scope 时恢复之前的上下文
+     */
+    public Scope bind() {
+        ProgressContext previous = CURRENT.get();
+        CURRENT.set(this);
+        return () -> restore(previous);
+    }
+
+    /**
+     * 清除当前线程绑定的上下文
+     */
+    public static void clear() {
+        CURRENT.remove();
+    }
+
+    /**
+     * 包装任务，在执行线程上绑定本上下文
+     */
+    public Runnable wrap(Runnable task) {
+        return () -> {
+            try (Scope ignored = bind()) {
+                task.run();
+            }
+        };
+    }
+
+    /**
+     * 包装任务，在执行线程上绑定本上下文
+     */
+    public <V> Callable<V> wrap(Callable<V> task) {
+        return () -> {
+            try (Scope ignored = bind()) {
+                return task.call();
+            }
+        };
+    }
+
+    /**
+     * 用当前线程的上下文包装任务，当前线程没有上下文时原样返回
+     */
+    public static Runnable wrapCurrent(Runnable task) {
+        ProgressContext context = CURRENT.get();
+        return context != null ? context.wrap(task) : task;
+    }
+
+    /**
+     * 用当前线程的上下文包装任务，当前线程没有上下文时原样返回
+     */
+    public static <V> Callable<V> wrapCurrent(Callable<V> task) {
+        ProgressContext context = CURRENT.get();
+        return context != null ? context.wrap(task) : task;
+    }
+
+    private static void restore(ProgressContext previous) {
+        if (previous != null) {
+            CURRENT.set(previous);
+        } else {
+            CURRENT.remove();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "ProgressContext[" + sessionId + "]";
+    }
+
+    /**
+     * 绑定范围，close 时恢复之前的上下文
+     */
+    @FunctionalInterface
+    public interface Scope extends AutoCloseable {
+        @Override
+        void close();
+    }
+}
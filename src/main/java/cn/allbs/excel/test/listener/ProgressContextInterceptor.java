@@ -0,0 +1,68 @@
+package cn.allbs.excel.test.listener;
+
+import cn.allbs.excel.annotation.ExportProgress;
+import cn.allbs.excel.annotation.ImportProgress;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * 进度上下文拦截器
+ * 进入 {@code @ExportProgress}/{@code @ImportProgress} 方法前按请求参数 sessionId 绑定 {@link ProgressContext}，
+ * 请求结束或转入异步处理时关闭绑定时返回的 {@link ProgressContext.Scope}，恢复线程原来的上下文
+ */
+@Component
+public class ProgressContextInterceptor implements AsyncHandlerInterceptor {
+
+    /**
+     * 请求属性名，绑定的上下文同时放在请求里，方便异步处理时取用
+     */
+    public static final String CONTEXT_ATTRIBUTE = ProgressContext.class.getName();
+
+    private static final String SCOPE_ATTRIBUTE = ProgressContext.Scope.class.getName();
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (!(handler instanceof HandlerMethod)) {
+            return true;
+        }
+        HandlerMethod method = (HandlerMethod) handler;
+        if (!method.hasMethodAnnotation(ExportProgress.class) && !method.hasMethodAnnotation(ImportProgress.class)) {
+            return true;
+        }
+
+        ProgressContext context = (ProgressContext) request.getAttribute(CONTEXT_ATTRIBUTE);
+        if (context == null) {
+            String sessionId = request.getParameter("sessionId");
+            if (!StringUtils.hasText(sessionId)) {
+                return true;
+            }
+            context = new ProgressContext(sessionId);
+            request.setAttribute(CONTEXT_ATTRIBUTE, context);
+        }
+        request.setAttribute(SCOPE_ATTRIBUTE, context.bind());
+        return true;
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        unbind(request);
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        unbind(request);
+    }
+
+    private static void unbind(HttpServletRequest request) {
+        ProgressContext.Scope scope = (ProgressContext.Scope) request.getAttribute(SCOPE_ATTRIBUTE);
+        if (scope != null) {
+            request.removeAttribute(SCOPE_ATTRIBUTE);
+            scope.close();
+        }
+    }
+}
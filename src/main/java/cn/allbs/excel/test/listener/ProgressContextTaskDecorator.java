@@ -0,0 +1,17 @@
+package cn.allbs.excel.test.listener;
+
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.stereotype.Component;
+
+/**
+ * 把提交线程的 {@link ProgressContext} 带到执行线程
+ * Spring Boot 会把该 Bean 应用到默认的任务线程池（{@code @Async}、MVC 异步请求）
+ */
+@Component
+public class ProgressContextTaskDecorator implements TaskDecorator {
+
+    @Override
+    public Runnable decorate(Runnable runnable) {
+        return ProgressContext.wrapCurrent(runnable);
+    }
+}
@@ -1,16 +1,17 @@
 package cn.allbs.excel.test.listener;
 
 import cn.allbs.excel.listener.ImportProgressListener;
+import cn.allbs.excel.test.service.EmitterCloseScheduler;
 import cn.allbs.excel.test.service.ProgressService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
-import org.springframework.web.context.request.RequestContextHolder;
-import org.springframework.web.context.request.ServletRequestAttributes;
 
 /**
  * SSE 导入进度监听器 - 将导入进度实时推送到前端
+ * 每次回调取当前线程的 {@link ProgressContext}，不依赖 allbs-excel 何时、在哪个线程创建或是否复用监听器；
+ * 导入工作转到其他线程时由提交方带上上下文（导入调度器、预览解析、多 Sheet 导入的线程池包装）
  *
  * @author ChenQi
  * @since 2025-11-28
@@ -23,13 +24,16 @@ public class SseImportProgressListener implements ImportProgressListener {
     @Autowired
     private ProgressService progressService;
 
+    @Autowired
+    private EmitterCloseScheduler emitterCloseScheduler;
+
     @Override
     public void onStart(int totalRows, String sheetName) {
         log.info("========== 开始导入 ==========");
         log.info("Sheet名称: {}", sheetName);
         log.info("总行数(预估): {}", totalRows);
 
-        String sessionId = getSessionId();
+        String sessionId = sessionId();
         if (sessionId != null) {
             ProgressService.ProgressMessage message = new ProgressService.ProgressMessage(
                     "start", 0, totalRows, 0.0, sheetName, "开始导入"
@@ -43,7 +47,7 @@ public class SseImportProgressListener implements ImportProgressListener {
         log.info("导入进度: {}/{} ({:.2f}%) - {}",
                 currentRow, totalRows, percentage, sheetName);
 
-        String sessionId = getSessionId();
+        String sessionId = sessionId();
         if (sessionId != null) {
             ProgressService.ProgressMessage message = new ProgressService.ProgressMessage(
                     "progress", currentRow, totalRows, percentage, sheetName,
@@ -59,7 +63,7 @@ public class SseImportProgressListener implements ImportProgressListener {
         log.info("Sheet名称: {}", sheetName);
         log.info("总行数: {}", totalRows);
 
-        String sessionId = getSessionId();
+        String sessionId = sessionId();
         if (sessionId != null) {
             ProgressService.ProgressMessage message = new ProgressService.ProgressMessage(
                     "complete", totalRows, totalRows, 100.0, sheetName, "导入完成"
@@ -67,14 +71,7 @@ public class SseImportProgressListener implements ImportProgressListener {
             progressService.sendProgress(sessionId, message);
 
             // 延迟关闭连接，给前端足够时间主动关闭（避免触发前端 onerror）
-            new Thread(() -> {
-                try {
-                    Thread.sleep(5000);  // 延长到 5 秒，让前端有足够时间主动关闭
-                    progressService.closeEmitter(sessionId);
-                } catch (InterruptedException e) {
-                    Thread.currentThread().interrupt();
-                }
-            }).start();
+            emitterCloseScheduler.scheduleClose(sessionId);
         }
     }
 
@@ -84,7 +81,7 @@ public class SseImportProgressListener implements ImportProgressListener {
         log.error("Sheet名称: {}", sheetName);
         log.error("错误信息: {}", exception.getMessage(), exception);
 
-        String sessionId = getSessionId();
+        String sessionId = sessionId();
         if (sessionId != null) {
             ProgressService.ProgressMessage message = new ProgressService.ProgressMessage(
                     "error", 0, 0, 0.0, sheetName, exception.getMessage()
@@ -95,17 +92,9 @@ public class SseImportProgressListener implements ImportProgressListener {
     }
 
     /**
-     * 从请求参数中获取 sessionId
+     * 当前线程绑定的会话ID，没有时不推送
      */
-    private String getSessionId() {
-        try {
-            ServletRequestAttributes attributes = (ServletRequestAttributes) RequestContextHolder.getRequestAttributes();
-            if (attributes != null) {
-                return attributes.getRequest().getParameter("sessionId");
-            }
-        } catch (Exception e) {
-            log.warn("无法获取 sessionId: {}", e.getMessage());
-        }
-        return null;
+    private String sessionId() {
+        return ProgressContext.currentSessionId();
     }
 }
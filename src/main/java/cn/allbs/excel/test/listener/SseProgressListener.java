@@ -1,16 +1,17 @@
 package cn.allbs.excel.test.listener;
 
 import cn.allbs.excel.listener.ExportProgressListener;
+import cn.allbs.excel.test.service.EmitterCloseScheduler;
 import cn.allbs.excel.test.service.ProgressService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
-import org.springframework.web.context.request.RequestContextHolder;
-import org.springframework.web.context.request.ServletRequestAttributes;
 
 /**
  * SSE 进度监听器 - 将导出进度实时推送到前端
+ * 每次回调取当前线程的 {@link ProgressContext}，不依赖 allbs-excel 何时、在哪个线程创建或是否复用监听器；
+ * 导出工作转到其他线程时由提交方带上上下文（异步导出、并行 Sheet 取数的线程池包装，流式导出回调时显式绑定）
  */
 @Component
 public class SseProgressListener implements ExportProgressListener {
@@ -20,13 +21,16 @@ public class SseProgressListener implements ExportProgressListener {
     @Autowired
     private ProgressService progressService;
 
+    @Autowired
+    private EmitterCloseScheduler emitterCloseScheduler;
+
     @Override
     public void onStart(int totalRows, String sheetName) {
         log.info("========== 开始导出 ==========");
         log.info("Sheet名称: {}", sheetName);
         log.info("总行数: {}", totalRows);
 
-        String sessionId = getSessionId();
+        String sessionId = sessionId();
         if (sessionId != null) {
             progressService.sendProgress(sessionId,
                 ProgressService.ProgressMessage.start(totalRows, sheetName));
@@ -38,7 +42,7 @@ public class SseProgressListener implements ExportProgressListener {
         log.info("导出进度: {}/{} ({:.2f}%) - {}",
             currentRow, totalRows, percentage, sheetName);
 
-        String sessionId = getSessionId();
+        String sessionId = sessionId();
         if (sessionId != null) {
             progressService.sendProgress(sessionId,
                 ProgressService.ProgressMessage.progress(currentRow, totalRows, percentage, sheetName));
@@ -51,19 +55,12 @@ public class SseProgressListener implements ExportProgressListener {
         log.info("Sheet名称: {}", sheetName);
         log.info("总行数: {}", totalRows);
 
-        String sessionId = getSessionId();
+        String sessionId = sessionId();
         if (sessionId != null) {
             progressService.sendProgress(sessionId,
                 ProgressService.ProgressMessage.complete(totalRows, sheetName));
             // 延迟关闭连接，给前端足够时间主动关闭（避免触发前端 onerror）
-            new Thread(() -> {
-                try {
-                    Thread.sleep(5000);  // 延长到 5 秒，让前端有足够时间主动关闭
-                    progressService.closeEmitter(sessionId);
-                } catch (InterruptedException e) {
-                    Thread.currentThread().interrupt();
-                }
-            }).start();
+            emitterCloseScheduler.scheduleClose(sessionId);
         }
     }
 
@@ -73,7 +70,7 @@ public class SseProgressListener implements ExportProgressListener {
         log.error("Sheet名称: {}", sheetName);
         log.error("错误信息: {}", exception.getMessage(), exception);
 
-        String sessionId = getSessionId();
+        String sessionId = sessionId();
         if (sessionId != null) {
             progressService.sendProgress(sessionId,
                 ProgressService.ProgressMessage.error(sheetName, exception.getMessage()));
@@ -82,17 +79,9 @@ public class SseProgressListener implements ExportProgressListener {
     }
 
     /**
-     * 从请求参数中获取 sessionId
+     * 当前线程绑定的会话ID，没有时不推送
      */
-    private String getSessionId() {
-        try {
-            ServletRequestAttributes attributes = (ServletRequestAttributes) RequestContextHolder.getRequestAttributes();
-            if (attributes != null) {
-                return attributes.getRequest().getParameter("sessionId");
-            }
-        } catch (Exception e) {
-            log.warn("无法获取 sessionId: {}", e.getMessage());
-        }
-        return null;
+    private String sessionId() {
+        return ProgressContext.currentSessionId();
     }
 }
@@ -0,0 +1,320 @@
+package cn.allbs.excel.test.meta;
+
+import cn.allbs.excel.annotation.NestedProperty;
+import com.alibaba.excel.annotation.ExcelProperty;
+import org.springframework.beans.BeanUtils;
+
+import java.beans.PropertyDescriptor;
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * 按类预编译的属性访问方式
+ * getter / setter / 无参构造在第一次使用时通过 {@link LambdaMetafactory} 生成为普通接口实现，之后的调用与手写代码相同，
+ * 生成失败（如没有 getter）时退回 MethodHandle；点分路径编译为 {@link PropertyPath} 后缓存
+ * <p>
+ * 按 {@link ClassValue} 缓存，随类卸载一起回收
+ */
+public final class AccessorPlan {
+
+    private static final ClassValue<AccessorPlan> PLANS = new ClassValue<AccessorPlan>() {
+        @Override
+        protected AccessorPlan computeValue(Class<?> type) {
+            return new AccessorPlan(type);
+        }
+    };
+
+    private final Class<?> type;
+
+    private final Map<String, Property> properties = new ConcurrentHashMap<>();
+
+    private final Map<String, PropertyPath> paths = new ConcurrentHashMap<>();
+
+    private volatile Supplier<Object> factory;
+
+    private volatile List<Field> fields;
+
+    private volatile List<NestedColumn> nestedColumns;
+
+    private AccessorPlan(Class<?> type) {
+        this.type = type;
+    }
+
+    public static AccessorPlan of(Class<?> type) {
+        return PLANS.get(type);
+    }
+
+    public Class<?> getType() {
+        return type;
+    }
+
+    /**
+     * 编译（或取缓存的）属性路径
+     */
+    public PropertyPath path(String path) {
+        return paths.computeIfAbsent(path, p -> PropertyPath.parse(type, p));
+    }
+
+    /**
+     * 新建实例，接口类型的 List / Map / Set 使用 ArrayList / LinkedHashMap / LinkedHashSet
+     */
+    public Object newInstance() {
+        Supplier<Object> supplier = factory;
+        if (supplier == null) {
+            supplier = compileFactory(type);
+            factory = supplier;
+        }
+        return supplier.get();
+    }
+
+    /**
+     * 类及父类声明的实例字段，父类在前
+     */
+    public List<Field> getFields() {
+        List<Field> result = fields;
+        if (result == null) {
+            List<Class<?>> hierarchy = new ArrayList<>();
+            for (Class<?> c = type; c != null && c != Object.class; c = c.getSuperclass()) {
+                hierarchy.add(0, c);
+            }
+            result = new ArrayList<>();
+            for (Class<?> c : hierarchy) {
+                for (Field field : c.getDeclaredFields()) {
+                    if (!Modifier.isStatic(field.getModifiers()) && !field.isSynthetic()) {
+                        result.add(field);
+                    }
+                }
+            }
+            result = Collections.unmodifiableList(result);
+            fields = result;
+        }
+        return result;
+    }
+
+    /**
+     * {@code @NestedProperty} 字段编译后的取值列
+     */
+    public List<NestedColumn> getNestedColumns() {
+        List<NestedColumn> result = nestedColumns;
+        if (result == null) {
+            result = new ArrayList<>();
+            for (Field field : getFields()) {
+                NestedProperty nested = field.getAnnotation(NestedProperty.class);
+                if (nested == null) {
+                    continue;
+                }
+                String expression = nested.value().startsWith("[")
+                        ? field.getName() + nested.value()
+                        : field.getName() + "." + nested.value();
+                result.add(new NestedColumn(headName(field), field.getName(), path(expression),
+                        PropertyPath.compile(field.getType(), nested.value()), nested.nullValue(),
+                        nested.separator(), nested.maxJoinSize()));
+            }
+            result = Collections.unmodifiableList(result);
+            nestedColumns = result;
+        }
+        return result;
+    }
+
+    /**
+     * 字段对应的 {@code @NestedProperty} 取值列，字段没有该注解时返回 null
+     */
+    public NestedColumn getNestedColumn(String fieldName) {
+        for (NestedColumn column : getNestedColumns()) {
+            if (column.getFieldName().equals(fieldName)) {
+                return column;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 单个属性，不存在时返回 null
+     */
+    Property property(String name) {
+        Property property = properties.get(name);
+        if (property == null) {
+            property = Property.compile(type, name);
+            if (property == null) {
+                return null;
+            }
+            properties.putIfAbsent(name, property);
+        }
+        return property;
+    }
+
+    private static String headName(Field field) {
+        ExcelProperty property = field.getAnnotation(ExcelProperty.class);
+        if (property != null && property.value().length > 0) {
+            return property.value()[property.value().length - 1];
+        }
+        return field.getName();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Supplier<Object> compileFactory(Class<?> type) {
+        if (type == List.class || type == Collection.class) {
+            return ArrayList::new;
+        }
+        if (type == Map.class) {
+            return LinkedHashMap::new;
+        }
+        if (type == Set.class) {
+            return LinkedHashSet::new;
+        }
+        if (type.isInterface() || Modifier.isAbstract(type.getModifiers()) || type.isPrimitive() || type.isArray()) {
+            return () -> {
+                throw new IllegalStateException("无法创建实例: " + type.getName());
+            };
+        }
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.privateLookupIn(type, MethodHandles.lookup());
+            MethodHandle constructor = lookup.findConstructor(type, MethodType.methodType(void.class));
+            CallSite site = LambdaMetafactory.metafactory(lookup, "get", MethodType.methodType(Supplier.class),
+                    MethodType.methodType(Object.class), constructor, MethodType.methodType(type));
+            return (Supplier<Object>) site.getTarget().invokeExact();
+        } catch (Throwable e) {
+            return () -> BeanUtils.instantiateClass(type);
+        }
+    }
+
+    /**
+     * 编译后的属性：取值、赋值和声明类型
+     */
+    static final class Property {
+        final String name;
+        final Class<?> rawType;
+        final Type genericType;
+        final Function<Object, Object> getter;
+        final BiConsumer<Object, Object> setter;
+
+        private Property(String name, Class<?> rawType, Type genericType, Function<Object, Object> getter,
+                         BiConsumer<Object, Object> setter) {
+            this.name = name;
+            this.rawType = rawType;
+            this.genericType = genericType;
+            this.getter = getter;
+            this.setter = setter;
+        }
+
+        static Property compile(Class<?> owner, String name) {
+            PropertyDescriptor descriptor = BeanUtils.getPropertyDescriptor(owner, name);
+            Field field = findField(owner, name);
+            Method read = descriptor != null ? descriptor.getReadMethod() : null;
+            Method write = descriptor != null ? descriptor.getWriteMethod() : null;
+            if (read == null && field == null) {
+                return null;
+            }
+            Class<?> rawType = read != null ? read.getReturnType() : field.getType();
+            Type genericType = read != null ? read.getGenericReturnType() : field.getGenericType();
+            return new Property(name, rawType, genericType, getter(read, field), setter(write, field));
+        }
+
+        private static Field findField(Class<?> owner, String name) {
+            for (Class<?> c = owner; c != null && c != Object.class; c = c.getSuperclass()) {
+                try {
+                    return c.getDeclaredField(name);
+                } catch (NoSuchFieldException ignored) {
+                    // 继续查父类
+                }
+            }
+            return null;
+        }
+
+        @SuppressWarnings("unchecked")
+        private static Function<Object, Object> getter(Method read, Field field) {
+            try {
+                if (read != null) {
+                    Class<?> declaring = read.getDeclaringClass();
+                    MethodHandles.Lookup lookup = MethodHandles.privateLookupIn(declaring, MethodHandles.lookup());
+                    CallSite site = LambdaMetafactory.metafactory(lookup, "apply", MethodType.methodType(Function.class),
+                            MethodType.methodType(Object.class, Object.class), lookup.unreflect(read),
+                            MethodType.methodType(MethodType.methodType(read.getReturnType()).wrap().returnType(), declaring));
+                    return (Function<Object, Object>) site.getTarget().invokeExact();
+                }
+            } catch (Throwable ignored) {
+                // 退回 MethodHandle
+            }
+            MethodHandle handle = unreflect(read, field, true);
+            return target -> {
+                try {
+                    return handle.invokeExact(target);
+                } catch (RuntimeException | Error e) {
+                    throw e;
+                } catch (Throwable e) {
+                    throw new IllegalStateException(e);
+                }
+            };
+        }
+
+        @SuppressWarnings("unchecked")
+        private static BiConsumer<Object, Object> setter(Method write, Field field) {
+            if (write == null && (field == null || Modifier.isFinal(field.getModifiers()))) {
+                return null;
+            }
+            try {
+                if (write != null) {
+                    Class<?> declaring = write.getDeclaringClass();
+                    Class<?> parameter = MethodType.methodType(write.getParameterTypes()[0]).wrap().returnType();
+                    MethodHandles.Lookup lookup = MethodHandles.privateLookupIn(declaring, MethodHandles.lookup());
+                    CallSite site = LambdaMetafactory.metafactory(lookup, "accept", MethodType.methodType(BiConsumer.class),
+                            MethodType.methodType(void.class, Object.class, Object.class), lookup.unreflect(write),
+                            MethodType.methodType(void.class, declaring, parameter));
+                    return (BiConsumer<Object, Object>) site.getTarget().invokeExact();
+                }
+            } catch (Throwable ignored) {
+                // 退回 MethodHandle
+            }
+            MethodHandle handle = unreflect(write, field, false);
+            return (target, value) -> {
+                try {
+                    handle.invokeExact(target, value);
+                } catch (RuntimeException | Error e) {
+                    throw e;
+                } catch (Throwable e) {
+                    throw new IllegalStateException(e);
+                }
+            };
+        }
+
+        /**
+         * 取 getter/setter 的 MethodHandle，没有方法时直接访问字段，统一成 Object 签名
+         */
+        private static MethodHandle unreflect(Method method, Field field, boolean read) {
+            try {
+                MethodHandle handle;
+                if (method != null) {
+                    MethodHandles.Lookup lookup = MethodHandles.privateLookupIn(method.getDeclaringClass(), MethodHandles.lookup());
+                    handle = lookup.unreflect(method);
+                } else {
+                    MethodHandles.Lookup lookup = MethodHandles.privateLookupIn(field.getDeclaringClass(), MethodHandles.lookup());
+                    handle = read ? lookup.unreflectGetter(field) : lookup.unreflectSetter(field);
+                }
+                return read
+                        ? handle.asType(MethodType.methodType(Object.class, Object.class))
+                        : handle.asType(MethodType.methodType(void.class, Object.class, Object.class));
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException("无法访问属性: " + (method != null ? method : field), e);
+            }
+        }
+    }
+}
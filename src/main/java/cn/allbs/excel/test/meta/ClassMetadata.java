@@ -0,0 +1,149 @@
+package cn.allbs.excel.test.meta;
+
+import cn.allbs.excel.annotation.FlattenList;
+import cn.allbs.excel.annotation.FlattenProperty;
+import com.alibaba.excel.annotation.ExcelProperty;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 类元数据（不可变）
+ * 每个类只扫描一次：实例字段（父类在前）及其注解、类上的注解，并按注解类型建好索引，
+ * 本项目自己的导出/导入代码（{@code @FlattenList} 读写、游程合并、条件样式、字典预取、列式预览存储、流式导出的注解检查等）
+ * 判断字段注解或取表头名时直接查表，不再反射。allbs-excel 内部对 {@code @Desensitize}、{@code @ExcelDict}、
+ * {@code @ConditionalStyle} 等注解的扫描不经过这里，仍按它自己的方式进行
+ * <p>
+ * 按 {@link ClassValue} 缓存，不持有类的强引用，随类卸载一起回收；基于它编译的展开方式、条件样式规则等也都用 {@link ClassValue} 缓存
+ */
+public final class ClassMetadata {
+
+    private static final ClassValue<ClassMetadata> METADATA = new ClassValue<ClassMetadata>() {
+        @Override
+        protected ClassMetadata computeValue(Class<?> type) {
+            return new ClassMetadata(type);
+        }
+    };
+
+    private final Class<?> type;
+
+    private final List<FieldMetadata> fields;
+
+    private final Map<String, FieldMetadata> fieldsByName;
+
+    private final Map<Class<? extends Annotation>, List<FieldMetadata>> fieldsByAnnotation;
+
+    private final Map<Class<? extends Annotation>, Annotation> annotations;
+
+    private final List<FieldMetadata> columns;
+
+    private final List<FieldMetadata> propertyColumns;
+
+    private ClassMetadata(Class<?> type) {
+        this.type = type;
+        List<FieldMetadata> all = new ArrayList<>();
+        Map<String, FieldMetadata> byName = new HashMap<>();
+        Map<Class<? extends Annotation>, List<FieldMetadata>> byAnnotation = new HashMap<>();
+        List<FieldMetadata> columnList = new ArrayList<>();
+        List<FieldMetadata> propertyList = new ArrayList<>();
+        for (Field field : AccessorPlan.of(type).getFields()) {
+            FieldMetadata metadata = new FieldMetadata(field);
+            all.add(metadata);
+            // 父类在前，同名字段以子类为准
+            byName.put(metadata.getName(), metadata);
+            for (Class<? extends Annotation> annotationType : metadata.getAnnotationTypes()) {
+                byAnnotation.computeIfAbsent(annotationType, k -> new ArrayList<>()).add(metadata);
+            }
+            if (metadata.isTransient()) {
+                continue;
+            }
+            if (!metadata.isIgnored() || metadata.isAnnotationPresent(FlattenProperty.class)
+                    || metadata.isAnnotationPresent(FlattenList.class)) {
+                columnList.add(metadata);
+            }
+            if (!metadata.isIgnored() && metadata.isAnnotationPresent(ExcelProperty.class)) {
+                propertyList.add(metadata);
+            }
+        }
+        byAnnotation.replaceAll((k, v) -> Collections.unmodifiableList(v));
+        Map<Class<? extends Annotation>, Annotation> classAnnotations = new LinkedHashMap<>();
+        for (Annotation annotation : type.getAnnotations()) {
+            classAnnotations.put(annotation.annotationType(), annotation);
+        }
+        this.fields = Collections.unmodifiableList(all);
+        this.fieldsByName = Collections.unmodifiableMap(byName);
+        this.fieldsByAnnotation = Collections.unmodifiableMap(byAnnotation);
+        this.annotations = Collections.unmodifiableMap(classAnnotations);
+        this.columns = Collections.unmodifiableList(columnList);
+        this.propertyColumns = Collections.unmodifiableList(propertyList);
+    }
+
+    public static ClassMetadata of(Class<?> type) {
+        return METADATA.get(type);
+    }
+
+    public Class<?> getType() {
+        return type;
+    }
+
+    /**
+     * 全部实例字段，父类在前
+     */
+    public List<FieldMetadata> getFields() {
+        return fields;
+    }
+
+    /**
+     * 按字段名取，不存在时返回 null
+     */
+    public FieldMetadata getField(String name) {
+        return fieldsByName.get(name);
+    }
+
+    /**
+     * 带有指定注解的字段，没有时返回空列表
+     */
+    public List<FieldMetadata> getFields(Class<? extends Annotation> annotationType) {
+        return fieldsByAnnotation.getOrDefault(annotationType, Collections.emptyList());
+    }
+
+    /**
+     * 是否有字段带指定注解
+     */
+    public boolean hasFieldAnnotation(Class<? extends Annotation> annotationType) {
+        return fieldsByAnnotation.containsKey(annotationType);
+    }
+
+    /**
+     * 类上的注解（含继承的）
+     */
+    @SuppressWarnings("unchecked")
+    public <A extends Annotation> A getAnnotation(Class<A> annotationType) {
+        return (A) annotations.get(annotationType);
+    }
+
+    public boolean isAnnotationPresent(Class<? extends Annotation> annotationType) {
+        return annotations.containsKey(annotationType);
+    }
+
+    /**
+     * 作为顶层类型时参与导出/导入的字段：排除 transient 和 {@code @ExcelIgnore}，
+     * 但保留需要展开的 {@code @FlattenProperty} / {@code @FlattenList} 字段
+     */
+    public List<FieldMetadata> getColumns() {
+        return columns;
+    }
+
+    /**
+     * 作为被展开的子对象时参与导出/导入的字段：只取 {@code @ExcelProperty} 字段
+     */
+    public List<FieldMetadata> getPropertyColumns() {
+        return propertyColumns;
+    }
+}
@@ -0,0 +1,114 @@
+package cn.allbs.excel.test.meta;
+
+import com.alibaba.excel.annotation.ExcelIgnore;
+import com.alibaba.excel.annotation.ExcelProperty;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 字段元数据（不可变）
+ * 字段上的注解在构建时一次取出，表头名、集合元素类型等常用结果一并算好
+ */
+public final class FieldMetadata {
+
+    private final Field field;
+    private final String head;
+    private final Class<?> elementType;
+    private final Map<Class<? extends Annotation>, Annotation> annotations;
+
+    FieldMetadata(Field field) {
+        this.field = field;
+        Map<Class<? extends Annotation>, Annotation> map = new HashMap<>();
+        for (Annotation annotation : field.getDeclaredAnnotations()) {
+            map.put(annotation.annotationType(), annotation);
+        }
+        this.annotations = Collections.unmodifiableMap(map);
+        this.head = headOf(field, (ExcelProperty) map.get(ExcelProperty.class));
+        this.elementType = elementTypeOf(field);
+    }
+
+    public Field getField() {
+        return field;
+    }
+
+    public String getName() {
+        return field.getName();
+    }
+
+    public Class<?> getType() {
+        return field.getType();
+    }
+
+    /**
+     * 表头名：{@code @ExcelProperty} 的最后一级，没有时为字段名
+     */
+    public String getHead() {
+        return head;
+    }
+
+    /**
+     * 集合字段声明的元素类型，非集合或未声明泛型时为 null
+     */
+    public Class<?> getElementType() {
+        return elementType;
+    }
+
+    @SuppressWarnings("unchecked")
+    public <A extends Annotation> A getAnnotation(Class<A> annotationType) {
+        return (A) annotations.get(annotationType);
+    }
+
+    public boolean isAnnotationPresent(Class<? extends Annotation> annotationType) {
+        return annotations.containsKey(annotationType);
+    }
+
+    Set<Class<? extends Annotation>> getAnnotationTypes() {
+        return annotations.keySet();
+    }
+
+    public boolean isTransient() {
+        return Modifier.isTransient(field.getModifiers());
+    }
+
+    public boolean isIgnored() {
+        return annotations.containsKey(ExcelIgnore.class);
+    }
+
+    @Override
+    public String toString() {
+        return field.toString();
+    }
+
+    private static String headOf(Field field, ExcelProperty property) {
+        if (property != null && property.value().length > 0) {
+            return property.value()[property.value().length - 1];
+        }
+        return field.getName();
+    }
+
+    private static Class<?> elementTypeOf(Field field) {
+        if (!Collection.class.isAssignableFrom(field.getType())) {
+            return null;
+        }
+        Type generic = field.getGenericType();
+        if (generic instanceof ParameterizedType) {
+            Type item = ((ParameterizedType) generic).getActualTypeArguments()[0];
+            if (item instanceof Class) {
+                return (Class<?>) item;
+            }
+            if (item instanceof ParameterizedType) {
+                return (Class<?>) ((ParameterizedType) item).getRawType();
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,86 @@
+package cn.allbs.excel.test.meta;
+
+import java.util.Collection;
+import java.util.StringJoiner;
+
+/**
+ * {@code @NestedProperty} 字段编译后的取值列
+ * 按预编译的路径取值，{@code [*]} 取到的集合按分隔符拼接（最多 maxJoinSize 个），取不到值时用 nullValue；
+ * 导出时由 {@code CompiledNestedObjectConverter} 按字段值取用
+ */
+public final class NestedColumn {
+
+    private final String head;
+    private final String fieldName;
+    /**
+     * 从行对象开始的完整路径
+     */
+    private final PropertyPath path;
+    /**
+     * 从字段值开始的路径
+     */
+    private final PropertyPath fieldPath;
+    private final String nullValue;
+    private final String separator;
+    private final int maxJoinSize;
+
+    NestedColumn(String head, String fieldName, PropertyPath path, PropertyPath fieldPath, String nullValue,
+                 String separator, int maxJoinSize) {
+        this.head = head;
+        this.fieldName = fieldName;
+        this.path = path;
+        this.fieldPath = fieldPath;
+        this.nullValue = nullValue;
+        this.separator = separator;
+        this.maxJoinSize = maxJoinSize;
+    }
+
+    public String getHead() {
+        return head;
+    }
+
+    public String getFieldName() {
+        return fieldName;
+    }
+
+    public PropertyPath getPath() {
+        return path;
+    }
+
+    /**
+     * 按行对象取单元格值
+     */
+    public Object value(Object root) {
+        return format(path.get(root));
+    }
+
+    /**
+     * 按字段值取单元格值
+     */
+    public Object valueOf(Object fieldValue) {
+        return format(fieldValue != null ? fieldPath.get(fieldValue) : null);
+    }
+
+    private Object format(Object value) {
+        if (value instanceof Collection) {
+            Collection<?> values = (Collection<?>) value;
+            if (values.isEmpty()) {
+                return emptyToNull(nullValue);
+            }
+            StringJoiner joiner = new StringJoiner(separator);
+            int joined = 0;
+            for (Object element : values) {
+                if (maxJoinSize > 0 && joined++ >= maxJoinSize) {
+                    break;
+                }
+                joiner.add(String.valueOf(element));
+            }
+            return joiner.toString();
+        }
+        return value != null ? value : emptyToNull(nullValue);
+    }
+
+    private static String emptyToNull(String text) {
+        return text == null || text.isEmpty() ? null : text;
+    }
+}
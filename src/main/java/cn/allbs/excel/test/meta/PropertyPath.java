@@ -0,0 +1,424 @@
+package cn.allbs.excel.test.meta;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.GenericArrayType;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 预编译的属性路径
+ * 支持 {@code a.b.c}、{@code list[0]}、{@code list[*]}、{@code map[key]} 及其组合，如 {@code department.leader.name}、
+ * {@code items[*].sku}。编译时按声明类型逐段解析出 getter / setter，取值时只是依次调用，不再解析字符串、不再反射；
+ * 声明类型为 Object 的段（如 {@code Map<String, Object>} 的值）在运行时按实际类型取对应的 {@link AccessorPlan}
+ * <p>
+ * 取值时中间为 null 返回 null，{@code [*]} 返回 List；赋值时中间为 null 自动创建（List / Map 用默认实现），
+ * 不支持对 {@code [*]} 赋值
+ */
+public final class PropertyPath {
+
+    private final String expression;
+    private final Segment[] segments;
+    private final Class<?> valueType;
+
+    private PropertyPath(String expression, Segment[] segments, Class<?> valueType) {
+        this.expression = expression;
+        this.segments = segments;
+        this.valueType = valueType;
+    }
+
+    /**
+     * 编译（或取缓存的）路径
+     */
+    public static PropertyPath compile(Class<?> root, String expression) {
+        return AccessorPlan.of(root).path(expression);
+    }
+
+    public String getExpression() {
+        return expression;
+    }
+
+    /**
+     * 路径末端的声明类型，经过 {@code [*]} 时为元素类型
+     */
+    public Class<?> getValueType() {
+        return valueType;
+    }
+
+    public Object get(Object root) {
+        return get(root, 0);
+    }
+
+    public void set(Object root, Object value) {
+        Object current = root;
+        int last = segments.length - 1;
+        for (int i = 0; i < last; i++) {
+            current = segments[i].getOrCreate(current);
+        }
+        segments[last].set(current, value);
+    }
+
+    @Override
+    public String toString() {
+        return expression;
+    }
+
+    private Object get(Object current, int from) {
+        for (int i = from; i < segments.length; i++) {
+            if (current == null) {
+                return null;
+            }
+            if (segments[i] instanceof WildcardSegment) {
+                List<Object> values = new ArrayList<>();
+                for (Object element : elements(current)) {
+                    Object value = get(element, i + 1);
+                    if (value != null) {
+                        values.add(value);
+                    }
+                }
+                return values;
+            }
+            current = segments[i].get(current);
+        }
+        return current;
+    }
+
+    static PropertyPath parse(Class<?> root, String expression) {
+        List<Segment> segments = new ArrayList<>();
+        Class<?> rawType = root;
+        Type genericType = root;
+        int i = 0;
+        int length = expression.length();
+        while (i < length) {
+            char c = expression.charAt(i);
+            if (c == '.') {
+                i++;
+                continue;
+            }
+            if (c == '[') {
+                int end = expression.indexOf(']', i);
+                if (end < 0) {
+                    throw new IllegalArgumentException("路径缺少 ]: " + expression);
+                }
+                String token = expression.substring(i + 1, end).trim();
+                Type elementType = elementType(rawType, genericType);
+                if ("*".equals(token)) {
+                    segments.add(new WildcardSegment());
+                } else if (isIndex(token) && !Map.class.isAssignableFrom(rawType)) {
+                    segments.add(new IndexSegment(Integer.parseInt(token), raw(elementType)));
+                } else {
+                    segments.add(new KeySegment(unquote(token), raw(elementType)));
+                }
+                genericType = elementType;
+                rawType = raw(elementType);
+                i = end + 1;
+                continue;
+            }
+            int end = i;
+            while (end < length && expression.charAt(end) != '.' && expression.charAt(end) != '[') {
+                end++;
+            }
+            String name = expression.substring(i, end).trim();
+            AccessorPlan.Property property = rawType == Object.class ? null : AccessorPlan.of(rawType).property(name);
+            if (property != null) {
+                segments.add(new PropertySegment(property));
+                rawType = property.rawType;
+                genericType = property.genericType;
+            } else if (rawType == Object.class || Map.class.isAssignableFrom(rawType)) {
+                segments.add(new DynamicSegment(name));
+                rawType = Object.class;
+                genericType = Object.class;
+            } else {
+                throw new IllegalArgumentException(String.format("%s 没有属性 %s: %s", rawType.getName(), name, expression));
+            }
+            i = end;
+        }
+        if (segments.isEmpty()) {
+            throw new IllegalArgumentException("空路径");
+        }
+        return new PropertyPath(expression, segments.toArray(new Segment[0]), rawType);
+    }
+
+    private static boolean isIndex(String token) {
+        if (token.isEmpty()) {
+            return false;
+        }
+        for (int i = 0; i < token.length(); i++) {
+            if (!Character.isDigit(token.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String unquote(String token) {
+        if (token.length() >= 2 && (token.charAt(0) == '\'' || token.charAt(0) == '"')
+                && token.charAt(token.length() - 1) == token.charAt(0)) {
+            return token.substring(1, token.length() - 1);
+        }
+        return token;
+    }
+
+    /**
+     * 集合 / 数组的元素类型，Map 的值类型，取不到时为 Object
+     */
+    private static Type elementType(Class<?> rawType, Type genericType) {
+        if (rawType.isArray()) {
+            return genericType instanceof GenericArrayType
+                    ? ((GenericArrayType) genericType).getGenericComponentType()
+                    : rawType.getComponentType();
+        }
+        if (genericType instanceof ParameterizedType) {
+            Type[] arguments = ((ParameterizedType) genericType).getActualTypeArguments();
+            if (Map.class.isAssignableFrom(rawType) && arguments.length == 2) {
+                return arguments[1];
+            }
+            if (Collection.class.isAssignableFrom(rawType) && arguments.length == 1) {
+                return arguments[0];
+            }
+        }
+        return Object.class;
+    }
+
+    private static Class<?> raw(Type type) {
+        if (type instanceof Class) {
+            return (Class<?>) type;
+        }
+        if (type instanceof ParameterizedType) {
+            return (Class<?>) ((ParameterizedType) type).getRawType();
+        }
+        return Object.class;
+    }
+
+    private static Iterable<?> elements(Object value) {
+        if (value instanceof Iterable) {
+            return (Iterable<?>) value;
+        }
+        if (value.getClass().isArray()) {
+            int size = Array.getLength(value);
+            List<Object> list = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                list.add(Array.get(value, i));
+            }
+            return list;
+        }
+        return Arrays.asList(value);
+    }
+
+    private static Object create(Class<?> type) {
+        if (type == Object.class) {
+            throw new IllegalStateException("无法确定中间对象类型，请声明泛型");
+        }
+        return AccessorPlan.of(type).newInstance();
+    }
+
+    private interface Segment {
+
+        Object get(Object target);
+
+        default Object getOrCreate(Object target) {
+            throw new UnsupportedOperationException("不支持赋值的路径段: " + this);
+        }
+
+        default void set(Object target, Object value) {
+            throw new UnsupportedOperationException("不支持赋值的路径段: " + this);
+        }
+    }
+
+    /**
+     * 编译期已知类型的属性
+     */
+    private static final class PropertySegment implements Segment {
+        private final AccessorPlan.Property property;
+
+        PropertySegment(AccessorPlan.Property property) {
+            this.property = property;
+        }
+
+        @Override
+        public Object get(Object target) {
+            return property.getter.apply(target);
+        }
+
+        @Override
+        public Object getOrCreate(Object target) {
+            Object value = property.getter.apply(target);
+            if (value == null) {
+                value = create(property.rawType);
+                set(target, value);
+            }
+            return value;
+        }
+
+        @Override
+        public void set(Object target, Object value) {
+            if (property.setter == null) {
+                throw new UnsupportedOperationException("属性只读: " + property.name);
+            }
+            property.setter.accept(target, value);
+        }
+
+        @Override
+        public String toString() {
+            return property.name;
+        }
+    }
+
+    /**
+     * 运行时才知道类型的属性，Map 按键取值，其他按实际类型取 {@link AccessorPlan}
+     */
+    private static final class DynamicSegment implements Segment {
+        private final String name;
+
+        DynamicSegment(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public Object get(Object target) {
+            if (target instanceof Map) {
+                return ((Map<?, ?>) target).get(name);
+            }
+            AccessorPlan.Property property = AccessorPlan.of(target.getClass()).property(name);
+            return property != null ? property.getter.apply(target) : null;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public void set(Object target, Object value) {
+            if (target instanceof Map) {
+                ((Map<Object, Object>) target).put(name, value);
+                return;
+            }
+            AccessorPlan.Property property = AccessorPlan.of(target.getClass()).property(name);
+            if (property == null || property.setter == null) {
+                throw new UnsupportedOperationException(target.getClass().getName() + " 没有可写属性 " + name);
+            }
+            property.setter.accept(target, value);
+        }
+
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
+
+    private static final class IndexSegment implements Segment {
+        private final int index;
+        private final Class<?> elementType;
+
+        IndexSegment(int index, Class<?> elementType) {
+            this.index = index;
+            this.elementType = elementType;
+        }
+
+        @Override
+        public Object get(Object target) {
+            if (target instanceof List) {
+                List<?> list = (List<?>) target;
+                return index < list.size() ? list.get(index) : null;
+            }
+            if (target.getClass().isArray()) {
+                return index < Array.getLength(target) ? Array.get(target, index) : null;
+            }
+            if (target instanceof Iterable) {
+                int i = 0;
+                for (Object element : (Iterable<?>) target) {
+                    if (i++ == index) {
+                        return element;
+                    }
+                }
+            }
+            return null;
+        }
+
+        @Override
+        public Object getOrCreate(Object target) {
+            Object value = get(target);
+            if (value == null) {
+                value = create(elementType);
+                set(target, value);
+            }
+            return value;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public void set(Object target, Object value) {
+            if (target instanceof List) {
+                List<Object> list = (List<Object>) target;
+                while (list.size() <= index) {
+                    list.add(null);
+                }
+                list.set(index, value);
+                return;
+            }
+            if (target.getClass().isArray() && index < Array.getLength(target)) {
+                Array.set(target, index, value);
+                return;
+            }
+            throw new UnsupportedOperationException("无法按下标赋值: " + target.getClass().getName());
+        }
+
+        @Override
+        public String toString() {
+            return "[" + index + "]";
+        }
+    }
+
+    private static final class KeySegment implements Segment {
+        private final String key;
+        private final Class<?> valueType;
+
+        KeySegment(String key, Class<?> valueType) {
+            this.key = key;
+            this.valueType = valueType;
+        }
+
+        @Override
+        public Object get(Object target) {
+            return target instanceof Map ? ((Map<?, ?>) target).get(key) : null;
+        }
+
+        @Override
+        public Object getOrCreate(Object target) {
+            Object value = get(target);
+            if (value == null) {
+                value = create(valueType);
+                set(target, value);
+            }
+            return value;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public void set(Object target, Object value) {
+            if (!(target instanceof Map)) {
+                throw new UnsupportedOperationException("无法按键赋值: " + target.getClass().getName());
+            }
+            ((Map<Object, Object>) target).put(key, value);
+        }
+
+        @Override
+        public String toString() {
+            return "[" + key + "]";
+        }
+    }
+
+    private static final class WildcardSegment implements Segment {
+
+        @Override
+        public Object get(Object target) {
+            throw new IllegalStateException("[*] 由 PropertyPath#get 展开");
+        }
+
+        @Override
+        public String toString() {
+            return "[*]";
+        }
+    }
+}
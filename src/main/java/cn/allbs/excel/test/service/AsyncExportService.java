@@ -0,0 +1,373 @@
+package cn.allbs.excel.test.service;
+
+import cn.allbs.excel.service.DictService;
+import cn.allbs.excel.test.export.ChunkedExcelWriter;
+import cn.allbs.excel.test.export.DictChunkPrefetcher;
+import cn.allbs.excel.test.listener.ProgressContext;
+import cn.allbs.excel.test.service.AsyncImportService.TaskStatus;
+import com.alibaba.excel.EasyExcel;
+import com.alibaba.excel.ExcelWriter;
+import com.alibaba.excel.write.metadata.WriteSheet;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * 异步导出服务
+ * 导出在后台线程写入落盘文件，请求线程立即返回 taskId；进度通过 {@link ProgressService} 推送，
+ * 完成后通过下载接口获取（支持断点续传），文件到期自动删除
+ */
+@Slf4j
+@Service
+public class AsyncExportService {
+
+    /**
+     * 落盘文件名前缀
+     */
+    private static final String SPOOL_PREFIX = "export_";
+
+    @Autowired
+    private ProgressService progressService;
+
+    @Autowired
+    private EmitterCloseScheduler emitterCloseScheduler;
+
+    @Autowired
+    private DictService dictService;
+
+    /**
+     * 导出工作线程数
+     */
+    @Value("${app.export.workers:2}")
+    private int workers;
+
+    /**
+     * 等待队列容量，满了之后提交返回 429
+     */
+    @Value("${app.export.queue-capacity:20}")
+    private int queueCapacity;
+
+    /**
+     * 每块写入行数
+     */
+    @Value("${app.export.chunk-size:1000}")
+    private int chunkSize;
+
+    /**
+     * 落盘目录
+     */
+    @Value("${app.export.spool-dir:${java.io.tmpdir}/allbs-excel-export}")
+    private String spoolDir;
+
+    /**
+     * 导出文件保留时间（毫秒），到期后删除
+     */
+    @Value("${app.export.file-expire-ms:3600000}")
+    private long fileExpireMs;
+
+    /**
+     * 任务缓存
+     */
+    private final Map<String, ExportTask> tasks = new ConcurrentHashMap<>();
+
+    private Path spoolPath;
+
+    private ThreadPoolExecutor executor;
+
+    @PostConstruct
+    public void init() throws IOException {
+        spoolPath = Files.createDirectories(Paths.get(spoolDir));
+        // 重启前留下的落盘文件没有任务对应，直接删除
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(spoolPath, SPOOL_PREFIX + "*")) {
+            for (Path file : files) {
+                Files.deleteIfExists(file);
+            }
+        }
+
+        AtomicInteger threadNo = new AtomicInteger();
+        executor = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+            Thread thread = new Thread(runnable, "export-worker-" + threadNo.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+        log.info("异步导出启动: workers={}, queueCapacity={}, spoolDir={}", workers, queueCapacity, spoolPath);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * 提交异步导出任务
+     *
+     * @param name      导出文件名（不含扩展名）
+     * @param sheetName Sheet 名称
+     * @param head      行类型，用于生成表头
+     * @param totalRows 预估总行数，未知传 0
+     * @param data      数据来源，在工作线程上调用，返回的 Stream 写完后关闭
+     * @throws RejectedExecutionException 导出队列已满
+     */
+    public String submitTask(String name, String sheetName, Class<?> head, int totalRows,
+                             Supplier<? extends Stream<?>> data) {
+        ExportTask task = new ExportTask();
+        task.setTaskId(UUID.randomUUID().toString());
+        task.setName(name);
+        task.setSheetName(sheetName);
+        task.setTotalRows(totalRows);
+        task.setCreatedAt(LocalDateTime.now());
+        task.setStatus(TaskStatus.PENDING);
+
+        tasks.put(task.getTaskId(), task);
+        try {
+            executor.execute(ProgressContext.wrapCurrent(() -> processTask(task, head, data)));
+        } catch (RejectedExecutionException e) {
+            tasks.remove(task.getTaskId());
+            throw new RejectedExecutionException(String.format("导出队列已满（%d），请稍后重试", queueCapacity), e);
+        }
+        log.info("提交异步导出任务: {} ({})", task.getTaskId(), name);
+        return task.getTaskId();
+    }
+
+    private void processTask(ExportTask task, Class<?> head, Supplier<? extends Stream<?>> data) {
+        String taskId = task.getTaskId();
+        if (task.isCancelRequested()) {
+            finishCancelled(task);
+            return;
+        }
+        task.setStartedAt(LocalDateTime.now());
+        task.setStatus(TaskStatus.PROCESSING);
+        progressService.sendProgress(taskId, ProgressService.ProgressMessage.start(task.getTotalRows(), task.getSheetName()));
+
+        // 先写 .part，完成后再改名，下载接口不会读到写了一半的文件
+        Path partFile = spoolPath.resolve(SPOOL_PREFIX + taskId + ".xlsx.part");
+        Path spoolFile = spoolPath.resolve(SPOOL_PREFIX + taskId + ".xlsx");
+        try {
+            try (OutputStream out = Files.newOutputStream(partFile); Stream<?> rows = data.get()) {
+                ExcelWriter writer = EasyExcel.write(out, head).autoCloseStream(false).build();
+                try {
+                    WriteSheet sheet = EasyExcel.writerSheet(task.getSheetName()).build();
+                    Iterator<?> iterator = rows.iterator();
+                    ChunkedExcelWriter.write(writer, sheet, iterator, chunkSize, written -> chunkWritten(task, written),
+                            DictChunkPrefetcher.of(head, dictService));
+                } finally {
+                    writer.finish();
+                }
+            }
+            Files.move(partFile, spoolFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+            task.setSpoolFile(spoolFile);
+            task.setFileSize(Files.size(spoolFile));
+            task.setCompletedAt(LocalDateTime.now());
+            task.setExpiresAt(task.getCompletedAt().plusNanos(TimeUnit.MILLISECONDS.toNanos(fileExpireMs)));
+            task.setStatus(TaskStatus.COMPLETED);
+            log.info("异步导出完成: {}，{} 行，{} 字节", taskId, task.getWrittenRows(), task.getFileSize());
+
+            progressService.sendProgress(taskId,
+                    ProgressService.ProgressMessage.complete((int) task.getWrittenRows(), task.getSheetName()));
+            emitterCloseScheduler.scheduleClose(taskId);
+        } catch (CancellationException e) {
+            deleteQuietly(partFile);
+            finishCancelled(task);
+        } catch (Exception e) {
+            log.error("异步导出任务失败: {}", taskId, e);
+            deleteQuietly(partFile);
+            task.setErrorMessage("导出失败: " + e.getMessage());
+            task.setCompletedAt(LocalDateTime.now());
+            task.setExpiresAt(task.getCompletedAt().plusNanos(TimeUnit.MILLISECONDS.toNanos(fileExpireMs)));
+            task.setStatus(TaskStatus.FAILED);
+
+            progressService.sendProgress(taskId,
+                    ProgressService.ProgressMessage.error(task.getSheetName(), e.getMessage()));
+            emitterCloseScheduler.scheduleClose(taskId);
+        }
+    }
+
+    /**
+     * 每写完一块更新进度，检查取消标记
+     */
+    private void chunkWritten(ExportTask task, long written) {
+        task.setWrittenRows(written);
+        if (task.isCancelRequested()) {
+            throw new CancellationException("任务已取消");
+        }
+        int totalRows = (int) Math.max(task.getTotalRows(), written);
+        progressService.sendProgress(task.getTaskId(), ProgressService.ProgressMessage.progress(
+                (int) written, totalRows, written * 100.0 / totalRows, task.getSheetName()));
+    }
+
+    private void finishCancelled(ExportTask task) {
+        task.setCompletedAt(LocalDateTime.now());
+        task.setExpiresAt(task.getCompletedAt().plusNanos(TimeUnit.MILLISECONDS.toNanos(fileExpireMs)));
+        task.setStatus(TaskStatus.CANCELLED);
+        log.info("异步导出已取消: taskId={}, 已写出 {} 行", task.getTaskId(), task.getWrittenRows());
+        progressService.sendProgress(task.getTaskId(), ProgressService.ProgressMessage.cancelled(
+                (int) task.getWrittenRows(), task.getTotalRows(), task.getSheetName()));
+        emitterCloseScheduler.scheduleClose(task.getTaskId());
+    }
+
+    /**
+     * 获取任务状态
+     */
+    public ExportTask getTask(String taskId) {
+        return tasks.get(taskId);
+    }
+
+    /**
+     * 获取任务列表
+     */
+    public List<ExportTask> getTaskList() {
+        return new ArrayList<>(tasks.values());
+    }
+
+    /**
+     * 等待中的任务数
+     */
+    public int getQueuedCount() {
+        return executor.getQueue().size();
+    }
+
+    /**
+     * 执行中的任务数
+     */
+    public int getActiveCount() {
+        return executor.getActiveCount();
+    }
+
+    /**
+     * 取消任务，由工作线程在下一块写完时停止
+     */
+    public boolean cancelTask(String taskId) {
+        ExportTask task = tasks.get(taskId);
+        if (task == null) {
+            return false;
+        }
+        if (task.getStatus() == TaskStatus.PENDING || task.getStatus() == TaskStatus.PROCESSING) {
+            task.setCancelRequested(true);
+            log.info("请求取消导出任务: {}", taskId);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * 删除任务及其导出文件，处理中的任务先取消
+     */
+    public boolean deleteTask(String taskId) {
+        ExportTask task = tasks.remove(taskId);
+        if (task == null) {
+            return false;
+        }
+        task.setCancelRequested(true);
+        task.releaseSpoolFile();
+        return true;
+    }
+
+    /**
+     * 定时清理过期任务和导出文件
+     */
+    @Scheduled(fixedRate = 60000)
+    public void cleanExpiredTasks() {
+        LocalDateTime now = LocalDateTime.now();
+        tasks.entrySet().removeIf(entry -> {
+            ExportTask task = entry.getValue();
+            if (task.getExpiresAt() != null && task.getExpiresAt().isBefore(now)) {
+                log.info("清理过期导出任务: {}", entry.getKey());
+                task.releaseSpoolFile();
+                return true;
+            }
+            return false;
+        });
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("删除导出文件失败: {}", file, e);
+        }
+    }
+
+    /**
+     * 导出任务
+     * 由工作线程写入，查询线程不加锁读取
+     */
+    @Data
+    public static class ExportTask {
+        private String taskId;
+        private String name;
+        private String sheetName;
+        private int totalRows;
+        private volatile long writtenRows;
+        private volatile long fileSize;
+        private volatile Path spoolFile;
+        private volatile boolean cancelRequested;
+        private volatile TaskStatus status;
+        private volatile String errorMessage;
+        private LocalDateTime createdAt;
+        private volatile LocalDateTime startedAt;
+        private volatile LocalDateTime completedAt;
+        private volatile LocalDateTime expiresAt;
+
+        /**
+         * 内部方法获取导出文件（用于下载）
+         */
+        public Path getSpoolFileInternal() {
+            return spoolFile;
+        }
+
+        /**
+         * 防止序列化文件路径（JSON返回时不包含）
+         */
+        public Path getSpoolFile() {
+            return null;
+        }
+
+        public double getProgress() {
+            if (status == TaskStatus.COMPLETED) {
+                return 100.0;
+            }
+            return totalRows > 0 ? Math.min(100.0, writtenRows * 100.0 / totalRows) : 0.0;
+        }
+
+        /**
+         * 删除导出文件
+         */
+        void releaseSpoolFile() {
+            Path file = spoolFile;
+            spoolFile = null;
+            if (file != null) {
+                deleteQuietly(file);
+            }
+        }
+    }
+}
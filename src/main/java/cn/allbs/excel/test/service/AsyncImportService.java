@@ -1,24 +1,35 @@
 package cn.allbs.excel.test.service;
 
+import cn.allbs.excel.test.listener.BatchImportListener;
+import cn.allbs.excel.test.listener.ProgressContext;
 import cn.allbs.excel.vo.FieldError;
 import com.alibaba.excel.EasyExcel;
-import com.alibaba.excel.context.AnalysisContext;
-import com.alibaba.excel.event.AnalysisEventListener;
+import com.alibaba.excel.ExcelReader;
+import com.alibaba.excel.read.metadata.ReadSheet;
+import lombok.AccessLevel;
 import lombok.Data;
+import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.scheduling.annotation.Async;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
-import javax.validation.ConstraintViolation;
-import javax.validation.Validation;
-import javax.validation.Validator;
-import java.io.ByteArrayInputStream;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Function;
 
 /**
  * 异步导入服务
@@ -31,6 +42,15 @@ public class AsyncImportService {
     @Autowired
     private ProgressService progressService;
 
+    @Autowired
+    private ImportTaskScheduler importTaskScheduler;
+
+    @Autowired
+    private EmitterCloseScheduler emitterCloseScheduler;
+
+    @Autowired
+    private RowValidationEngine rowValidationEngine;
+
     /**
      * 任务缓存
      */
@@ -41,54 +61,152 @@ public class AsyncImportService {
      */
     private static final long TASK_EXPIRE_MS = 60 * 60 * 1000;
 
-    private final Validator validator = Validation.buildDefaultValidatorFactory().getValidator();
+    /**
+     * 预览保留的成功数据条数
+     */
+    private static final int PREVIEW_ROWS = 20;
 
     /**
-     * 提交异步导入任务
+     * 保留的错误明细条数
      */
-    public String submitTask(MultipartFile file, Class<?> clazz, boolean skipErrors) throws Exception {
-        String taskId = UUID.randomUUID().toString();
+    private static final int MAX_RETAINED_ERRORS = 50;
+
+    /**
+     * 单 Sheet 导入时进度消息使用的名称
+     */
+    private static final String DEFAULT_SHEET_NAME = "异步导入";
+
+    /**
+     * 每批写入条数
+     */
+    @Value("${app.import.batch-size:1000}")
+    private int batchSize;
+
+    /**
+     * 多 Sheet 并行解析的并行度，0 表示 CPU 核数
+     */
+    @Value("${app.import.sheet-parallelism:0}")
+    private int sheetParallelism;
+
+    private ForkJoinPool sheetPool;
+
+    /**
+     * 提交异步导入任务（默认模拟入库）
+     */
+    public String submitTask(String tenantId, MultipartFile file, Class<?> clazz, boolean skipErrors) throws Exception {
+        return submitTask(tenantId, file, clazz, skipErrors, loggingSink(DEFAULT_SHEET_NAME));
+    }
+
+    /**
+     * 提交异步导入任务，有效数据按批次交给 sink
+     *
+     * @throws RejectedExecutionException 导入队列已满
+     */
+    public String submitTask(String tenantId, MultipartFile file, Class<?> clazz, boolean skipErrors,
+                             ImportBatchSink<Object> sink) throws Exception {
+        SheetProgress sheet = new SheetProgress();
+        sheet.setSheetNo(0);
+        sheet.setSheetName(DEFAULT_SHEET_NAME);
+        sheet.setClazz(clazz);
+        return createTask(tenantId, file, clazz, skipErrors, Collections.singletonList(sheet), sheetName -> sink);
+    }
 
-        // 读取文件到内存（避免异步时文件被清理）
-        byte[] fileBytes = file.getBytes();
+    /**
+     * 提交多 Sheet 异步导入任务（默认模拟入库），各 Sheet 并行解析
+     *
+     * @param sheetClasses Sheet 名称到 DTO 类型的映射，未映射的 Sheet 不读取
+     */
+    public String submitMultiSheetTask(String tenantId, MultipartFile file, Map<String, Class<?>> sheetClasses,
+                                       boolean skipErrors) throws Exception {
+        return submitMultiSheetTask(tenantId, file, sheetClasses, skipErrors, this::loggingSink);
+    }
+
+    /**
+     * 提交多 Sheet 异步导入任务，每个 Sheet 的有效数据交给各自的 sink
+     *
+     * @param sheetClasses Sheet 名称到 DTO 类型的映射，未映射的 Sheet 不读取
+     * @param sinkFactory  按 Sheet 名称创建 sink
+     * @throws RejectedExecutionException 导入队列已满
+     */
+    public String submitMultiSheetTask(String tenantId, MultipartFile file, Map<String, Class<?>> sheetClasses,
+                                       boolean skipErrors,
+                                       Function<String, ImportBatchSink<Object>> sinkFactory) throws Exception {
+        List<SheetProgress> sheets = new ArrayList<>();
+        for (Map.Entry<String, Class<?>> entry : sheetClasses.entrySet()) {
+            SheetProgress sheet = new SheetProgress();
+            // Sheet 序号在落盘后按名称解析
+            sheet.setSheetNo(-1);
+            sheet.setSheetName(entry.getKey());
+            sheet.setClazz(entry.getValue());
+            sheets.add(sheet);
+        }
+        return createTask(tenantId, file, null, skipErrors, sheets, sinkFactory);
+    }
+
+    private String createTask(String tenantId, MultipartFile file, Class<?> clazz, boolean skipErrors,
+                              List<SheetProgress> sheets,
+                              Function<String, ImportBatchSink<Object>> sinkFactory) throws Exception {
+        String taskId = UUID.randomUUID().toString();
         String fileName = file.getOriginalFilename();
 
+        // 上传文件落盘（避免异步时文件被清理，也不把整个文件读进堆内存）
+        Path spoolFile = spool(file);
+        try {
+            resolveSheetNos(spoolFile, sheets);
+        } catch (RuntimeException e) {
+            Files.deleteIfExists(spoolFile);
+            throw e;
+        }
+
         // 创建任务
         ImportTask task = new ImportTask();
         task.setTaskId(taskId);
+        task.setTenantId(tenantId);
         task.setFileName(fileName);
-        task.setFileBytes(fileBytes);
+        task.setSpoolFile(spoolFile);
         task.setClazz(clazz);
+        task.setSheets(sheets);
         task.setSkipErrors(skipErrors);
+        task.setSinkFactory(sinkFactory);
         task.setStatus(TaskStatus.PENDING);
-        task.setProgress(0);
-        task.setTotalRows(0);
-        task.setProcessedRows(0);
-        task.setSuccessCount(0);
-        task.setErrorCount(0);
         task.setCreatedAt(LocalDateTime.now());
 
         tasks.put(taskId, task);
 
-        // 启动异步处理
-        processTaskAsync(taskId);
-
-        log.info("提交异步导入任务: taskId={}, fileName={}", taskId, fileName);
+        // 交给导入调度器排队处理
+        try {
+            int position = importTaskScheduler.submit(tenantId, taskId, () -> processTask(taskId));
+            log.info("提交异步导入任务: taskId={}, tenantId={}, fileName={}, sheets={}, 排队位置={}",
+                    taskId, tenantId, fileName, sheets.size(), position);
+        } catch (RejectedExecutionException e) {
+            tasks.remove(taskId);
+            task.releaseSpoolFile();
+            throw e;
+        }
 
         return taskId;
     }
 
     /**
-     * 异步处理任务
+     * 处理任务（在导入调度器的工作线程上执行）
      */
-    @Async
-    public void processTaskAsync(String taskId) {
+    private void processTask(String taskId) {
         ImportTask task = tasks.get(taskId);
         if (task == null) {
             log.warn("任务不存在: {}", taskId);
             return;
         }
+        if (task.getStatus() != TaskStatus.PENDING) {
+            log.info("任务已不在等待状态，跳过: taskId={}, status={}", taskId, task.getStatus());
+            return;
+        }
+        if (task.isCancelRequested()) {
+            finishCancelled(task, Collections.emptyMap());
+            return;
+        }
 
+        List<SheetProgress> sheets = task.getSheets();
+        Map<String, ImportBatchSink<Object>> sinks = new LinkedHashMap<>();
         try {
             task.setStatus(TaskStatus.PROCESSING);
             task.setStartedAt(LocalDateTime.now());
@@ -96,115 +214,266 @@ public class AsyncImportService {
             // 发送开始消息
             progressService.sendProgress(taskId, ProgressService.ProgressMessage.start(0, "异步导入"));
 
-            // 解析Excel
-            List<Object> successData = new ArrayList<>();
+            for (SheetProgress sheet : sheets) {
+                sinks.put(sheet.getSheetName(), task.getSinkFactoryInternal().apply(sheet.getSheetName()));
+            }
+
+            // 只保留预览数据和前若干条错误，其余数据按批次流向 sink
+            List<Object> previewData = new ArrayList<>(PREVIEW_ROWS);
             List<TaskError> errorList = new ArrayList<>();
 
-            EasyExcel.read(new ByteArrayInputStream(task.getFileBytesInternal()), task.getClazz(),
-                    new AnalysisEventListener<Object>() {
-                        private int rowIndex = 1;
-                        private int totalRows = 0;
-
-                        @Override
-                        public void invokeHead(Map<Integer, com.alibaba.excel.metadata.data.ReadCellData<?>> headMap,
-                                               AnalysisContext context) {
-                            // 尝试获取总行数
-                            try {
-                                if (context.readSheetHolder() != null &&
-                                        context.readSheetHolder().getApproximateTotalRowNumber() != null) {
-                                    totalRows = context.readSheetHolder().getApproximateTotalRowNumber() - 1;
-                                    task.setTotalRows(totalRows);
-                                }
-                            } catch (Exception e) {
-                                log.debug("无法获取总行数", e);
-                            }
-                        }
+            boolean rejected = false;
+            if (sheets.size() == 1) {
+                SheetProgress sheet = sheets.get(0);
+                rejected = importSheet(task, sheet, sinks.get(sheet.getSheetName()), previewData, errorList);
+            } else {
+                // 每个 Sheet 一个子任务，在 ForkJoin 池上并行解析
+                List<ForkJoinTask<Boolean>> futures = new ArrayList<>();
+                for (SheetProgress sheet : sheets) {
+                    ImportBatchSink<Object> sink = sinks.get(sheet.getSheetName());
+                    futures.add(sheetPool.submit(ProgressContext.wrapCurrent(() -> importSheet(task, sheet, sink, previewData, errorList))));
+                }
 
-                        @Override
-                        public void invoke(Object data, AnalysisContext context) {
-                            rowIndex++;
-                            task.setProcessedRows(rowIndex - 1);
-
-                            // 校验数据
-                            List<FieldError> fieldErrors = validateData(data, rowIndex);
-
-                            if (!fieldErrors.isEmpty()) {
-                                TaskError error = new TaskError();
-                                error.setRowIndex(rowIndex);
-                                error.setData(data);
-                                error.setFieldErrors(fieldErrors);
-                                errorList.add(error);
-                                task.setErrorCount(errorList.size());
-
-                                if (!task.isSkipErrors()) {
-                                    // 严格模式，记录但不添加到成功列表
-                                }
-                            } else {
-                                successData.add(data);
-                                task.setSuccessCount(successData.size());
-                            }
-
-                            // 更新进度
-                            if (totalRows > 0) {
-                                double progress = (rowIndex - 1) * 100.0 / totalRows;
-                                task.setProgress(progress);
-
-                                // 每1%更新一次
-                                if ((rowIndex - 1) % Math.max(1, totalRows / 100) == 0) {
-                                    progressService.sendProgress(taskId,
-                                            ProgressService.ProgressMessage.progress(rowIndex - 1, totalRows, progress, "异步导入"));
-                                }
-                            }
-
-                            // 模拟处理延迟（可删除）
-                            // try { Thread.sleep(1); } catch (InterruptedException ignored) {}
+                // 等待所有 Sheet 结束后再处理结果，避免 sink 在解析中途被中止
+                Exception failure = null;
+                for (ForkJoinTask<Boolean> future : futures) {
+                    try {
+                        rejected |= future.get();
+                    } catch (ExecutionException e) {
+                        if (failure == null) {
+                            failure = e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
                         }
+                    }
+                }
+                if (failure != null) {
+                    throw failure;
+                }
+            }
 
-                        @Override
-                        public void doAfterAllAnalysed(AnalysisContext context) {
-                            task.setTotalRows(rowIndex - 1);
-                            task.setProcessedRows(rowIndex - 1);
-                            task.setProgress(100);
-                        }
-                    }).sheet().doRead();
+            if (task.isCancelRequested()) {
+                // 解析已在监听器中停止，丢弃部分结果
+                previewData.clear();
+                errorList.clear();
+                finishCancelled(task, sinks);
+                return;
+            }
 
-            // 处理结果
-            if (!task.isSkipErrors() && !errorList.isEmpty()) {
+            // 处理结果，结果字段先于状态写入，查询线程看到终态时结果已可见
+            ImportProgressCounters.Snapshot progress = task.snapshot();
+            task.setErrorList(errorList);
+            task.setSuccessData(previewData);
+            if (rejected) {
                 // 严格模式下有错误
+                sinks.values().forEach(sink -> sink.onAbort(null));
+                task.setErrorMessage(String.format("发现 %d 行数据有错误", progress.getErrorCount()));
+                task.setCompletedAt(LocalDateTime.now());
                 task.setStatus(TaskStatus.FAILED);
-                task.setErrorMessage(String.format("发现 %d 行数据有错误", errorList.size()));
             } else {
-                // 模拟入库
-                log.info("异步导入完成：成功 {} 条，跳过 {} 条错误", successData.size(), errorList.size());
+                for (ImportBatchSink<Object> sink : sinks.values()) {
+                    sink.onComplete();
+                }
+                log.info("异步导入完成：成功 {} 条，跳过 {} 条错误", progress.getSuccessCount(), progress.getErrorCount());
+                task.setCompletedAt(LocalDateTime.now());
                 task.setStatus(TaskStatus.COMPLETED);
-                task.setSuccessCount(successData.size());
             }
 
-            task.setErrorList(errorList);
-            task.setSuccessData(successData);
-            task.setCompletedAt(LocalDateTime.now());
-
-            // 清理文件字节释放内存
-            task.clearFileBytes();
+            // 删除落盘文件
+            task.releaseSpoolFile();
 
             // 发送完成消息
             progressService.sendProgress(taskId,
-                    ProgressService.ProgressMessage.complete(task.getTotalRows(), "异步导入"));
+                    ProgressService.ProgressMessage.complete(progress.getTotalRows(), "异步导入"));
+            emitterCloseScheduler.scheduleClose(taskId);
 
         } catch (Exception e) {
             log.error("异步导入任务失败: {}", taskId, e);
-            task.setStatus(TaskStatus.FAILED);
+            sinks.values().forEach(sink -> sink.onAbort(e));
             task.setErrorMessage("导入失败: " + e.getMessage());
             task.setCompletedAt(LocalDateTime.now());
+            task.setStatus(TaskStatus.FAILED);
 
-            // 清理文件字节释放内存
-            task.clearFileBytes();
+            // 删除落盘文件
+            task.releaseSpoolFile();
 
             progressService.sendProgress(taskId,
                     ProgressService.ProgressMessage.error("异步导入", e.getMessage()));
+            emitterCloseScheduler.scheduleClose(taskId);
+        }
+    }
+
+    /**
+     * 解析单个 Sheet
+     *
+     * @return 严格模式下该 Sheet 是否存在错误数据
+     */
+    private boolean importSheet(ImportTask task, SheetProgress sheet, ImportBatchSink<Object> sink,
+                                List<Object> previewData, List<TaskError> errorList) {
+        String taskId = task.getTaskId();
+        String sheetName = sheet.getSheetName();
+        ImportProgressCounters counters = task.getCountersInternal();
+
+        BatchImportListener<Object> listener = new BatchImportListener<Object>(batchSize, task.isSkipErrors(), sink,
+                rowValidationEngine::validate) {
+
+            private int progressStep = 1;
+
+            @Override
+            protected boolean isCancelled() {
+                return task.isCancelRequested();
+            }
+
+            @Override
+            protected void onTotalRows(int totalRows) {
+                sheet.setTotalRows(totalRows);
+                counters.addTotalRows(totalRows);
+                progressStep = Math.max(1, totalRows / 100);
+            }
+
+            @Override
+            protected void onRowAccepted(int rowIndex, Object data) {
+                counters.rowSucceeded();
+                synchronized (previewData) {
+                    if (previewData.size() < PREVIEW_ROWS) {
+                        previewData.add(data);
+                    }
+                }
+            }
+
+            @Override
+            protected void onRowError(int rowIndex, Object data, List<FieldError> fieldErrors) {
+                counters.rowFailed();
+                synchronized (errorList) {
+                    if (errorList.size() < MAX_RETAINED_ERRORS) {
+                        TaskError error = new TaskError();
+                        error.setSheetName(sheetName);
+                        error.setRowIndex(rowIndex);
+                        error.setData(data);
+                        error.setFieldErrors(fieldErrors);
+                        errorList.add(error);
+                    }
+                }
+            }
+
+            @Override
+            protected void onRowProcessed(int processedRows, int totalRows) {
+                sheet.setProcessedRows(processedRows);
+                sheet.setSuccessCount(getSuccessCount());
+                sheet.setErrorCount(getErrorCount());
+
+                // 每1%推送一次进度，推送由 ProgressService 异步合并发送，不阻塞解析
+                if (totalRows > 0 && processedRows % progressStep == 0) {
+                    progressService.sendProgress(taskId, ProgressService.ProgressMessage.progress(processedRows,
+                            totalRows, processedRows * 100.0 / totalRows, sheetName));
+                }
+            }
+        };
+
+        sheet.setStatus(TaskStatus.PROCESSING);
+        try {
+            EasyExcel.read(task.getSpoolFileInternal().toFile(), sheet.getClazz(), listener)
+                    .sheet(sheet.getSheetNo())
+                    .doRead();
+        } catch (RuntimeException e) {
+            sheet.setStatus(TaskStatus.FAILED);
+            throw e;
+        }
+
+        // 预估总行数修正为实际行数
+        counters.addTotalRows(listener.getProcessedRows() - sheet.getTotalRows());
+        sheet.setTotalRows(listener.getProcessedRows());
+        sheet.setProcessedRows(listener.getProcessedRows());
+        sheet.setSuccessCount(listener.getSuccessCount());
+        sheet.setErrorCount(listener.getErrorCount());
+        if (task.isCancelRequested()) {
+            sheet.setStatus(TaskStatus.CANCELLED);
+        } else {
+            sheet.setStatus(listener.isRejected() ? TaskStatus.FAILED : TaskStatus.COMPLETED);
+        }
+
+        return listener.isRejected();
+    }
+
+    /**
+     * 结束已取消的任务：中止 sink、删除落盘文件、推送取消消息
+     */
+    private void finishCancelled(ImportTask task, Map<String, ImportBatchSink<Object>> sinks) {
+        CancellationException cause = new CancellationException("任务已取消");
+        sinks.values().forEach(sink -> sink.onAbort(cause));
+        for (SheetProgress sheet : task.getSheets()) {
+            if (sheet.getStatus() == TaskStatus.PENDING || sheet.getStatus() == TaskStatus.PROCESSING) {
+                sheet.setStatus(TaskStatus.CANCELLED);
+            }
+        }
+        task.setCompletedAt(LocalDateTime.now());
+        task.setStatus(TaskStatus.CANCELLED);
+        task.releaseSpoolFile();
+
+        ImportProgressCounters.Snapshot progress = task.snapshot();
+        log.info("异步导入已取消: taskId={}, 已处理 {} 行", task.getTaskId(), progress.getProcessedRows());
+        progressService.sendProgress(task.getTaskId(),
+                ProgressService.ProgressMessage.cancelled(progress.getProcessedRows(), progress.getTotalRows(), "异步导入"));
+        emitterCloseScheduler.scheduleClose(task.getTaskId());
+    }
+
+    /**
+     * 按名称解析 Sheet 序号
+     */
+    private void resolveSheetNos(Path spoolFile, List<SheetProgress> sheets) {
+        if (sheets.stream().allMatch(sheet -> sheet.getSheetNo() >= 0)) {
+            return;
+        }
+        ExcelReader excelReader = EasyExcel.read(spoolFile.toFile()).build();
+        try {
+            Map<String, Integer> sheetNos = new HashMap<>();
+            for (ReadSheet readSheet : excelReader.excelExecutor().sheetList()) {
+                sheetNos.put(readSheet.getSheetName(), readSheet.getSheetNo());
+            }
+            for (SheetProgress sheet : sheets) {
+                if (sheet.getSheetNo() >= 0) {
+                    continue;
+                }
+                Integer sheetNo = sheetNos.get(sheet.getSheetName());
+                if (sheetNo == null) {
+                    throw new IllegalArgumentException("Sheet 不存在: " + sheet.getSheetName());
+                }
+                sheet.setSheetNo(sheetNo);
+            }
+        } finally {
+            excelReader.finish();
         }
     }
 
+    /**
+     * 模拟入库
+     */
+    private ImportBatchSink<Object> loggingSink(String sheetName) {
+        return batch -> log.debug("模拟入库 [{}]: {} 条", sheetName, batch.size());
+    }
+
+    /**
+     * 上传文件写入临时文件，保留原扩展名以便识别 xls/xlsx/csv
+     */
+    private Path spool(MultipartFile file) throws IOException {
+        String fileName = file.getOriginalFilename();
+        String suffix = fileName != null && fileName.lastIndexOf('.') >= 0
+                ? fileName.substring(fileName.lastIndexOf('.'))
+                : ".xlsx";
+        Path spoolFile = Files.createTempFile("import_", suffix);
+        file.transferTo(spoolFile);
+        return spoolFile;
+    }
+
+    @PostConstruct
+    public void init() {
+        int parallelism = sheetParallelism > 0 ? sheetParallelism : Runtime.getRuntime().availableProcessors();
+        sheetPool = new ForkJoinPool(parallelism);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        sheetPool.shutdownNow();
+    }
+
     /**
      * 获取任务状态
      */
@@ -219,14 +488,29 @@ public class AsyncImportService {
         return new ArrayList<>(tasks.values());
     }
 
+    /**
+     * 获取排队位置，不在等待队列中返回 -1
+     */
+    public int getQueuePosition(String taskId) {
+        return importTaskScheduler.positionOf(taskId);
+    }
+
     /**
      * 取消任务
+     * 等待中的任务直接移出队列；处理中的任务打上取消标记，由监听器在下一行停止解析
      */
     public boolean cancelTask(String taskId) {
         ImportTask task = tasks.get(taskId);
-        if (task != null && task.getStatus() == TaskStatus.PENDING) {
-            task.setStatus(TaskStatus.CANCELLED);
-            task.setCompletedAt(LocalDateTime.now());
+        if (task == null) {
+            return false;
+        }
+        if (task.getStatus() == TaskStatus.PENDING && importTaskScheduler.remove(taskId)) {
+            finishCancelled(task, Collections.emptyMap());
+            return true;
+        }
+        if (task.getStatus() == TaskStatus.PENDING || task.getStatus() == TaskStatus.PROCESSING) {
+            task.setCancelRequested(true);
+            log.info("请求取消处理中的任务: {}", taskId);
             return true;
         }
         return false;
@@ -236,41 +520,11 @@ public class AsyncImportService {
      * 删除任务
      */
     public boolean deleteTask(String taskId) {
-        return tasks.remove(taskId) != null;
-    }
-
-    /**
-     * 校验数据
-     */
-    private List<FieldError> validateData(Object data, int rowIndex) {
-        List<FieldError> errors = new ArrayList<>();
-
-        @SuppressWarnings("unchecked")
-        Set<ConstraintViolation<Object>> violations = validator.validate(data);
-
-        for (ConstraintViolation<Object> violation : violations) {
-            FieldError fieldError = new FieldError();
-            fieldError.setFieldName(violation.getPropertyPath().toString());
-            fieldError.setPropertyName(violation.getPropertyPath().toString());
-            fieldError.setMessage(violation.getMessage());
-            fieldError.setFieldValue(violation.getInvalidValue() != null ? violation.getInvalidValue().toString() : null);
-
-            String annotationType = violation.getConstraintDescriptor().getAnnotation().annotationType().getSimpleName();
-            if ("NotNull".equals(annotationType) || "NotBlank".equals(annotationType) || "NotEmpty".equals(annotationType)) {
-                fieldError.setErrorType("REQUIRED");
-            } else if ("Email".equals(annotationType) || "Pattern".equals(annotationType)) {
-                fieldError.setErrorType("FORMAT");
-            } else if ("Min".equals(annotationType) || "Max".equals(annotationType) ||
-                    "Size".equals(annotationType) || "Range".equals(annotationType)) {
-                fieldError.setErrorType("RANGE");
-            } else {
-                fieldError.setErrorType("VALIDATION");
-            }
-
-            errors.add(fieldError);
+        ImportTask task = tasks.remove(taskId);
+        if (task != null) {
+            task.releaseSpoolFile();
         }
-
-        return errors;
+        return task != null;
     }
 
     /**
@@ -306,41 +560,82 @@ public class AsyncImportService {
 
     /**
      * 导入任务
+     * 进度计数由解析线程累加，状态和结果字段为 volatile，查询线程不加锁读取
      */
     @Data
     public static class ImportTask {
         private String taskId;
+        private String tenantId;
         private String fileName;
-        private byte[] fileBytes;
+        private Path spoolFile;
         private Class<?> clazz;
+        private List<SheetProgress> sheets;
+        private Function<String, ImportBatchSink<Object>> sinkFactory;
         private boolean skipErrors;
-        private TaskStatus status;
-        private double progress;
-        private int totalRows;
-        private int processedRows;
-        private int successCount;
-        private int errorCount;
-        private String errorMessage;
-        private List<TaskError> errorList;
-        private List<Object> successData;
+        private volatile boolean cancelRequested;
+        private volatile TaskStatus status;
+        @Getter(AccessLevel.NONE)
+        private final ImportProgressCounters counters = new ImportProgressCounters();
+        private volatile String errorMessage;
+        private volatile List<TaskError> errorList;
+        private volatile List<Object> successData;
         private LocalDateTime createdAt;
-        private LocalDateTime startedAt;
-        private LocalDateTime completedAt;
+        private volatile LocalDateTime startedAt;
+        private volatile LocalDateTime completedAt;
+
+        /**
+         * 进度快照，需要多个计数保持一致时使用
+         */
+        public ImportProgressCounters.Snapshot snapshot() {
+            return counters.snapshot();
+        }
+
+        ImportProgressCounters getCountersInternal() {
+            return counters;
+        }
+
+        public double getProgress() {
+            return status == TaskStatus.COMPLETED ? 100.0 : snapshot().getPercentage();
+        }
+
+        public int getTotalRows() {
+            return snapshot().getTotalRows();
+        }
+
+        public int getProcessedRows() {
+            return snapshot().getProcessedRows();
+        }
+
+        public int getSuccessCount() {
+            return snapshot().getSuccessCount();
+        }
+
+        public int getErrorCount() {
+            return snapshot().getErrorCount();
+        }
 
         /**
-         * 内部方法获取文件字节（用于处理）
+         * 内部方法获取落盘文件（用于处理）
          */
-        public byte[] getFileBytesInternal() {
-            return fileBytes;
+        public Path getSpoolFileInternal() {
+            return spoolFile;
         }
 
         /**
-         * 防止序列化文件内容（JSON返回时不包含文件）
+         * 防止序列化文件路径和 sink（JSON返回时不包含）
          */
-        public byte[] getFileBytes() {
+        public Path getSpoolFile() {
+            return null;
+        }
+
+        public Function<String, ImportBatchSink<Object>> getSinkFactory() {
             return null;
         }
 
+        Function<String, ImportBatchSink<Object>> getSinkFactoryInternal() {
+            return sinkFactory;
+        }
+
         public List<Object> getSuccessData() {
             return successData != null && successData.size() > 20
                     ? successData.subList(0, 20)
@@ -354,18 +649,42 @@ public class AsyncImportService {
         }
 
         /**
-         * 清理文件字节释放内存
+         * 删除落盘文件
          */
-        public void clearFileBytes() {
-            this.fileBytes = null;
+        public void releaseSpoolFile() {
+            Path file = this.spoolFile;
+            this.spoolFile = null;
+            if (file != null) {
+                try {
+                    Files.deleteIfExists(file);
+                } catch (IOException e) {
+                    log.warn("删除临时文件失败: {}", file, e);
+                }
+            }
         }
     }
 
+    /**
+     * Sheet 进度（多 Sheet 并行解析时各自更新，再汇总到任务）
+     */
+    @Data
+    public static class SheetProgress {
+        private int sheetNo;
+        private String sheetName;
+        private Class<?> clazz;
+        private volatile TaskStatus status = TaskStatus.PENDING;
+        private volatile int totalRows;
+        private volatile int processedRows;
+        private volatile int successCount;
+        private volatile int errorCount;
+    }
+
     /**
      * 任务错误
      */
     @Data
     public static class TaskError {
+        private String sheetName;
         private int rowIndex;
         private Object data;
         private List<FieldError> fieldErrors;
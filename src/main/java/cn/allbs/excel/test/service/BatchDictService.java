@@ -0,0 +1,57 @@
+package cn.allbs.excel.test.service;
+
+import cn.allbs.excel.service.DictService;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 批量字典查询
+ * 远程或数据库实现可以一次查询一批值，导出时每块数据每个字典类型只查一次；
+ * 只有单值查询的 {@link DictService} 通过 {@link #of(DictService)} 适配，逐个调用
+ */
+public interface BatchDictService {
+
+    /**
+     * 批量取标签
+     *
+     * @return 值 -> 标签，每个传入的值都有一项，查不到时为被适配服务的单值查询结果（可能为 null）
+     */
+    Map<String, String> getLabels(String dictType, Collection<String> dictValues);
+
+    /**
+     * 批量取值
+     *
+     * @return 标签 -> 值，每个传入的标签都有一项
+     */
+    Map<String, String> getValues(String dictType, Collection<String> dictLabels);
+
+    /**
+     * 取服务的批量查询方式，未实现本接口时逐个调用单值查询
+     */
+    static BatchDictService of(DictService dictService) {
+        if (dictService instanceof BatchDictService) {
+            return (BatchDictService) dictService;
+        }
+        return new BatchDictService() {
+            @Override
+            public Map<String, String> getLabels(String dictType, Collection<String> dictValues) {
+                Map<String, String> labels = new HashMap<>(Math.max(16, dictValues.size() * 2));
+                for (String dictValue : dictValues) {
+                    labels.put(dictValue, dictService.getLabel(dictType, dictValue));
+                }
+                return labels;
+            }
+
+            @Override
+            public Map<String, String> getValues(String dictType, Collection<String> dictLabels) {
+                Map<String, String> values = new HashMap<>(Math.max(16, dictLabels.size() * 2));
+                for (String dictLabel : dictLabels) {
+                    values.put(dictLabel, dictService.getValue(dictType, dictLabel));
+                }
+                return values;
+            }
+        };
+    }
+}
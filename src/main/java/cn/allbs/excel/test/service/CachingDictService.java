@@ -0,0 +1,314 @@
+package cn.allbs.excel.test.service;
+
+import cn.allbs.excel.annotation.ExcelDict;
+import cn.allbs.excel.service.DictService;
+import cn.allbs.excel.test.meta.ClassMetadata;
+import cn.allbs.excel.test.meta.FieldMetadata;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiFunction;
+
+/**
+ * 字典缓存
+ * 放在任意 {@link DictService} 前面，每个字典类型一份正向索引（值 -> 标签）和反向索引（标签 -> 值），
+ * 导入导出时每个单元格只是一次哈希查找
+ * <p>
+ * 被缓存的服务实现了 {@link DictDataProvider} 时，首次访问某个字典类型一次加载全部条目；否则逐条查询并缓存结果。
+ * 查不到的结果（包括 null）同样缓存，语义与被缓存的服务一致。
+ * 批量查询（{@link BatchDictService}）只把缓存里没有的键交给被缓存的服务，一次查完后写回缓存，
+ * 导出时按块预取，之后 DictConverter 逐个单元格查询都会命中。
+ * 字典类型按加载时间过期，超过类型数上限时淘汰最久未访问的类型，单个类型的查询结果超过上限后不再缓存
+ */
+@Slf4j
+public class CachingDictService implements DictService, BatchDictService {
+
+    /**
+     * 缓存中代表 null 的占位
+     */
+    private static final Object NULL = new Object();
+
+    private final DictService delegate;
+    private final BatchDictService batchDelegate;
+    private final long ttlMillis;
+    private final int maxTypes;
+    private final int maxEntriesPerType;
+
+    private final ConcurrentHashMap<String, DictCache> caches = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder loads = new LongAdder();
+    private final LongAdder batchLoads = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+
+    /**
+     * @param ttlMillis         字典类型过期时间（毫秒），不大于 0 表示不过期
+     * @param maxTypes          最多缓存的字典类型数
+     * @param maxEntriesPerType 每个字典类型在整类型加载的条目之外最多缓存的查询结果数
+     */
+    public CachingDictService(DictService delegate, long ttlMillis, int maxTypes, int maxEntriesPerType) {
+        this.delegate = delegate;
+        this.batchDelegate = BatchDictService.of(delegate);
+        this.ttlMillis = ttlMillis;
+        this.maxTypes = maxTypes;
+        this.maxEntriesPerType = maxEntriesPerType;
+    }
+
+    @Override
+    public String getLabel(String dictType, String dictValue) {
+        if (dictType == null || dictValue == null) {
+            return delegate.getLabel(dictType, dictValue);
+        }
+        DictCache cache = cache(dictType);
+        Object label = cache.labels.get(dictValue);
+        if (label != null) {
+            hits.increment();
+            return unwrap(label);
+        }
+        misses.increment();
+        String loaded = delegate.getLabel(dictType, dictValue);
+        cache.put(cache.labels, dictValue, loaded);
+        return loaded;
+    }
+
+    @Override
+    public String getValue(String dictType, String dictLabel) {
+        if (dictType == null || dictLabel == null) {
+            return delegate.getValue(dictType, dictLabel);
+        }
+        DictCache cache = cache(dictType);
+        Object value = cache.values.get(dictLabel);
+        if (value != null) {
+            hits.increment();
+            return unwrap(value);
+        }
+        misses.increment();
+        String loaded = delegate.getValue(dictType, dictLabel);
+        cache.put(cache.values, dictLabel, loaded);
+        return loaded;
+    }
+
+    @Override
+    public Map<String, String> getLabels(String dictType, Collection<String> dictValues) {
+        DictCache cache = cache(dictType);
+        return resolve(dictType, cache, cache.labels, dictValues, batchDelegate::getLabels);
+    }
+
+    @Override
+    public Map<String, String> getValues(String dictType, Collection<String> dictLabels) {
+        DictCache cache = cache(dictType);
+        return resolve(dictType, cache, cache.values, dictLabels, batchDelegate::getValues);
+    }
+
+    /**
+     * 预加载类中 {@code @ExcelDict} 字段用到的字典类型
+     */
+    public void preload(Class<?> type) {
+        for (FieldMetadata field : ClassMetadata.of(type).getFields(ExcelDict.class)) {
+            cache(field.getAnnotation(ExcelDict.class).dictType());
+        }
+    }
+
+    /**
+     * 预加载指定字典类型
+     */
+    public void preload(Collection<String> dictTypes) {
+        dictTypes.forEach(this::cache);
+    }
+
+    /**
+     * 字典类型的正向索引是否已到条目上限：之后查到的标签不再缓存，按块预取的结果留不下来
+     */
+    public boolean isLabelCacheFull(String dictType) {
+        DictCache cache = cache(dictType);
+        return cache.labels.size() >= cache.limit;
+    }
+
+    /**
+     * 丢弃某个字典类型的缓存，下次访问重新加载
+     */
+    public void invalidate(String dictType) {
+        caches.remove(dictType);
+    }
+
+    public void invalidateAll() {
+        caches.clear();
+    }
+
+    /**
+     * 命中统计
+     */
+    public Map<String, Object> getStats() {
+        long hitCount = hits.sum();
+        long missCount = misses.sum();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("hits", hitCount);
+        stats.put("misses", missCount);
+        stats.put("hitRate", hitCount + missCount == 0 ? 0D : (double) hitCount / (hitCount + missCount));
+        stats.put("loads", loads.sum());
+        stats.put("batchLoads", batchLoads.sum());
+        stats.put("evictions", evictions.sum());
+        stats.put("expirations", expirations.sum());
+        Map<String, Object> types = new LinkedHashMap<>();
+        caches.forEach((dictType, cache) -> {
+            Map<String, Object> type = new LinkedHashMap<>();
+            type.put("complete", cache.complete);
+            type.put("labels", cache.labels.size());
+            type.put("values", cache.values.size());
+            types.put(dictType, type);
+        });
+        stats.put("types", types);
+        return stats;
+    }
+
+    /**
+     * 批量查询：缓存命中的直接返回，其余去重后一次交给被缓存的服务
+     */
+    private Map<String, String> resolve(String dictType, DictCache cache, ConcurrentHashMap<String, Object> index,
+                                        Collection<String> keys,
+                                        BiFunction<String, Collection<String>, Map<String, String>> loader) {
+        Map<String, String> result = new HashMap<>(Math.max(16, keys.size() * 2));
+        Set<String> missing = new LinkedHashSet<>();
+        for (String key : keys) {
+            if (key == null || result.containsKey(key)) {
+                continue;
+            }
+            Object cached = index.get(key);
+            if (cached != null) {
+                hits.increment();
+                result.put(key, unwrap(cached));
+            } else {
+                missing.add(key);
+            }
+        }
+        if (!missing.isEmpty()) {
+            misses.add(missing.size());
+            batchLoads.increment();
+            Map<String, String> loaded = loader.apply(dictType, missing);
+            for (String key : missing) {
+                String value = loaded.get(key);
+                cache.put(index, key, value);
+                result.put(key, value);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 取字典类型的缓存，不存在或已过期时加载
+     */
+    private DictCache cache(String dictType) {
+        long now = System.currentTimeMillis();
+        DictCache cache = caches.get(dictType);
+        if (cache != null && !cache.isExpired(now)) {
+            cache.lastAccess = now;
+            return cache;
+        }
+        if (cache != null) {
+            expirations.increment();
+        }
+        cache = caches.compute(dictType, (key, old) -> old != null && !old.isExpired(now) ? old : load(key, now));
+        cache.lastAccess = now;
+        if (caches.size() > maxTypes) {
+            evict(dictType);
+        }
+        return cache;
+    }
+
+    private DictCache load(String dictType, long now) {
+        long expireAt = ttlMillis > 0 ? now + ttlMillis : Long.MAX_VALUE;
+        if (delegate instanceof DictDataProvider) {
+            Map<String, String> dict = ((DictDataProvider) delegate).getDict(dictType);
+            if (dict != null) {
+                loads.increment();
+                DictCache cache = new DictCache(expireAt, true, dict.size());
+                for (Map.Entry<String, String> entry : dict.entrySet()) {
+                    cache.labels.put(entry.getKey(), wrap(entry.getValue()));
+                    // 同一标签对应多个值时取第一个，与逐条扫描一致
+                    if (entry.getValue() != null) {
+                        cache.values.putIfAbsent(entry.getValue(), entry.getKey());
+                    }
+                }
+                log.debug("加载字典 {}: {} 条", dictType, dict.size());
+                return cache;
+            }
+        }
+        return new DictCache(expireAt, false, 0);
+    }
+
+    /**
+     * 淘汰最久未访问的字典类型，刚访问的类型不淘汰
+     */
+    private void evict(String keep) {
+        while (caches.size() > maxTypes) {
+            String eldest = null;
+            long eldestAccess = Long.MAX_VALUE;
+            for (Map.Entry<String, DictCache> entry : caches.entrySet()) {
+                if (!entry.getKey().equals(keep) && entry.getValue().lastAccess < eldestAccess) {
+                    eldest = entry.getKey();
+                    eldestAccess = entry.getValue().lastAccess;
+                }
+            }
+            if (eldest == null || caches.remove(eldest) == null) {
+                return;
+            }
+            evictions.increment();
+        }
+    }
+
+    private static Object wrap(String value) {
+        return value != null ? value : NULL;
+    }
+
+    private static String unwrap(Object value) {
+        return value == NULL ? null : (String) value;
+    }
+
+    /**
+     * 单个字典类型的正向、反向索引
+     */
+    private final class DictCache {
+        private final long expireAt;
+        /**
+         * 是否已整类型加载
+         */
+        private final boolean complete;
+        private final ConcurrentHashMap<String, Object> labels;
+        private final ConcurrentHashMap<String, Object> values;
+        /**
+         * 单个索引的条目上限：已加载条目 + 额外缓存的查询结果
+         */
+        private final int limit;
+        private volatile long lastAccess;
+
+        DictCache(long expireAt, boolean complete, int size) {
+            this.expireAt = expireAt;
+            this.complete = complete;
+            this.labels = new ConcurrentHashMap<>(Math.max(16, size * 2));
+            this.values = new ConcurrentHashMap<>(Math.max(16, size * 2));
+            this.limit = size + maxEntriesPerType;
+        }
+
+        boolean isExpired(long now) {
+            return now >= expireAt;
+        }
+
+        /**
+         * 缓存单次查询结果（整类型加载时即查不到的键），超过上限后不再缓存
+         */
+        void put(ConcurrentHashMap<String, Object> index, String key, String value) {
+            if (index.size() < limit) {
+                index.put(key, wrap(value));
+            }
+        }
+    }
+}
@@ -0,0 +1,272 @@
+package cn.allbs.excel.test.service;
+
+import cn.allbs.excel.test.meta.ClassMetadata;
+import cn.allbs.excel.test.meta.FieldMetadata;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.lang.reflect.Field;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * 列式行存储
+ * DTO 的每个字段一列，每列一个 {@link SpillFile}（数据文件 + 行偏移索引），
+ * 分页时只映射请求范围内各列的数据再组装成对象，堆内存与页大小相关、与文件行数无关
+ *
+ * @param <T> 数据类型
+ */
+public class ColumnarRowStore<T> implements Closeable {
+
+    private final Class<T> clazz;
+    private final List<Column> columns = new ArrayList<>();
+    private final ByteArrayOutputStream cell = new ByteArrayOutputStream(64);
+    private final DataOutputStream cellOut = new DataOutputStream(cell);
+
+    public ColumnarRowStore(Path dir, Class<T> clazz) throws IOException {
+        this.clazz = clazz;
+        for (FieldMetadata metadata : ClassMetadata.of(clazz).getFields()) {
+            if (metadata.isTransient()) {
+                continue;
+            }
+            Field field = metadata.getField();
+            field.setAccessible(true);
+            columns.add(new Column(field, codecOf(field), new SpillFile(dir, "col_" + columns.size())));
+        }
+    }
+
+    /**
+     * 追加一行（单线程调用）
+     */
+    public void append(T row) throws IOException {
+        for (Column column : columns) {
+            Object value;
+            try {
+                value = column.field.get(row);
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException(e);
+            }
+            cell.reset();
+            if (value == null) {
+                cellOut.writeByte(0);
+            } else {
+                cellOut.writeByte(1);
+                column.codec.write(cellOut, value);
+            }
+            column.file.append(cell);
+        }
+    }
+
+    /**
+     * 刷盘，使已追加的行可读
+     */
+    public void publish() throws IOException {
+        for (Column column : columns) {
+            column.file.publish();
+        }
+    }
+
+    /**
+     * 已可读的行数
+     */
+    public int size() {
+        return columns.isEmpty() ? 0 : columns.get(columns.size() - 1).file.getPublished();
+    }
+
+    /**
+     * 读取 [from, to) 范围的行（从0开始）
+     */
+    public List<T> read(int from, int to) throws IOException {
+        int end = Math.min(to, size());
+        if (from >= end) {
+            return new ArrayList<>(0);
+        }
+
+        List<T> rows = new ArrayList<>(end - from);
+        for (int i = from; i < end; i++) {
+            try {
+                rows.add(clazz.getDeclaredConstructor().newInstance());
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalStateException("无法实例化 " + clazz.getName(), e);
+            }
+        }
+
+        for (Column column : columns) {
+            List<ByteBuffer> cells = column.file.read(from, end);
+            for (int i = 0; i < cells.size(); i++) {
+                ByteBuffer buffer = cells.get(i);
+                if (buffer.get() == 0) {
+                    continue;
+                }
+                try {
+                    column.field.set(rows.get(i), column.codec.read(buffer));
+                } catch (IllegalAccessException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * 读取单行
+     */
+    public T get(int index) throws IOException {
+        List<T> rows = read(index, index + 1);
+        return rows.isEmpty() ? null : rows.get(0);
+    }
+
+    @Override
+    public void close() throws IOException {
+        IOException failure = null;
+        for (Column column : columns) {
+            try {
+                column.file.close();
+            } catch (IOException e) {
+                failure = e;
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    static String readString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Codec codecOf(Field field) {
+        Class<?> type = field.getType();
+        if (type == String.class) {
+            return Codec.of((out, v) -> writeString(out, (String) v), ColumnarRowStore::readString);
+        } else if (type == Long.class || type == long.class) {
+            return Codec.of((out, v) -> out.writeLong((Long) v), ByteBuffer::getLong);
+        } else if (type == Integer.class || type == int.class) {
+            return Codec.of((out, v) -> out.writeInt((Integer) v), ByteBuffer::getInt);
+        } else if (type == Short.class || type == short.class) {
+            return Codec.of((out, v) -> out.writeShort((Short) v), ByteBuffer::getShort);
+        } else if (type == Byte.class || type == byte.class) {
+            return Codec.of((out, v) -> out.writeByte((Byte) v), b -> b.get());
+        } else if (type == Double.class || type == double.class) {
+            return Codec.of((out, v) -> out.writeDouble((Double) v), ByteBuffer::getDouble);
+        } else if (type == Float.class || type == float.class) {
+            return Codec.of((out, v) -> out.writeFloat((Float) v), ByteBuffer::getFloat);
+        } else if (type == Boolean.class || type == boolean.class) {
+            return Codec.of((out, v) -> out.writeBoolean((Boolean) v), b -> b.get() != 0);
+        } else if (type == BigDecimal.class) {
+            return Codec.of((out, v) -> writeString(out, v.toString()), b -> new BigDecimal(readString(b)));
+        } else if (type == BigInteger.class) {
+            return Codec.of((out, v) -> writeString(out, v.toString()), b -> new BigInteger(readString(b)));
+        } else if (type == LocalDateTime.class) {
+            return Codec.of((out, v) -> writeString(out, v.toString()), b -> LocalDateTime.parse(readString(b)));
+        } else if (type == LocalDate.class) {
+            return Codec.of((out, v) -> writeString(out, v.toString()), b -> LocalDate.parse(readString(b)));
+        } else if (type == LocalTime.class) {
+            return Codec.of((out, v) -> writeString(out, v.toString()), b -> LocalTime.parse(readString(b)));
+        } else if (type == Date.class) {
+            return Codec.of((out, v) -> out.writeLong(((Date) v).getTime()), b -> new Date(b.getLong()));
+        } else if (type.isEnum()) {
+            Class<? extends Enum> enumType = (Class<? extends Enum>) type;
+            return Codec.of((out, v) -> writeString(out, ((Enum<?>) v).name()),
+                    b -> Enum.valueOf(enumType, readString(b)));
+        } else if (Serializable.class.isAssignableFrom(type) || type.isInterface()) {
+            // 集合等其他类型按 Java 序列化兜底
+            return Codec.of(ColumnarRowStore::writeSerialized, ColumnarRowStore::readSerialized);
+        }
+        throw new IllegalArgumentException("字段类型不支持列式存储: " + field.getDeclaringClass().getSimpleName()
+                + "." + field.getName() + " (" + type.getName() + ")");
+    }
+
+    private static void writeSerialized(DataOutputStream out, Object value) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream objectOut = new ObjectOutputStream(bytes)) {
+            objectOut.writeObject(value);
+        }
+        out.writeInt(bytes.size());
+        bytes.writeTo(out);
+    }
+
+    private static Object readSerialized(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+            return in.readObject();
+        } catch (IOException | ClassNotFoundException e) {
+            throw new IllegalStateException("列数据反序列化失败", e);
+        }
+    }
+
+    private static class Column {
+        private final Field field;
+        private final Codec codec;
+        private final SpillFile file;
+
+        Column(Field field, Codec codec, SpillFile file) {
+            this.field = field;
+            this.codec = codec;
+            this.file = file;
+        }
+    }
+
+    /**
+     * 单列值的编解码
+     */
+    private interface Codec {
+
+        void write(DataOutputStream out, Object value) throws IOException;
+
+        Object read(ByteBuffer buffer);
+
+        static Codec of(Writer writer, Function<ByteBuffer, Object> reader) {
+            return new Codec() {
+                @Override
+                public void write(DataOutputStream out, Object value) throws IOException {
+                    writer.write(out, value);
+                }
+
+                @Override
+                public Object read(ByteBuffer buffer) {
+                    return reader.apply(buffer);
+                }
+            };
+        }
+    }
+
+    @FunctionalInterface
+    private interface Writer {
+        void write(DataOutputStream out, Object value) throws IOException;
+    }
+}
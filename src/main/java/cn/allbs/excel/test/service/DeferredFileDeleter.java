@@ -0,0 +1,61 @@
+package cn.allbs.excel.test.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 临时下载文件延迟删除
+ * 交给容器 sendfile 发送的文件在请求方法返回后才被读取，不能在 finally 里删除，延迟一段时间再删；
+ * 所有延迟删除共用一个调度线程
+ */
+@Slf4j
+@Service
+public class DeferredFileDeleter {
+
+    /**
+     * 交给 sendfile 的临时文件延迟删除时间
+     */
+    @Value("${app.export.sendfile-delete-delay-ms:60000}")
+    private long deleteDelayMs;
+
+    private ScheduledExecutorService scheduler;
+
+    @PostConstruct
+    public void init() {
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "deferred-file-deleter");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void destroy() {
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * 按默认延迟删除文件
+     */
+    public void deleteLater(Path file) {
+        scheduler.schedule(() -> delete(file), deleteDelayMs, TimeUnit.MILLISECONDS);
+    }
+
+    private static void delete(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("删除临时下载文件失败: {}", file, e);
+        }
+    }
+}
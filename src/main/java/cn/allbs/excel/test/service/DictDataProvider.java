@@ -0,0 +1,19 @@
+package cn.allbs.excel.test.service;
+
+import java.util.Map;
+
+/**
+ * 整类型字典加载
+ * {@code DictService} 实现可以同时实现本接口，缓存层按字典类型一次取回全部条目，建立正向和反向索引；
+ * 未实现时缓存层逐条查询并缓存结果
+ */
+@FunctionalInterface
+public interface DictDataProvider {
+
+    /**
+     * 取字典类型的全部条目
+     *
+     * @return 值 -> 标签，字典类型不存在时返回 null
+     */
+    Map<String, String> getDict(String dictType);
+}
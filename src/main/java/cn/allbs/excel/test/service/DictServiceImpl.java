@@ -3,14 +3,16 @@ package cn.allbs.excel.test.service;
 import cn.allbs.excel.service.DictService;
 import org.springframework.stereotype.Service;
 
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 
 /**
  * 字典服务实现 - 模拟字典查询
+ * 导入导出时由 {@link CachingDictService} 缓存，这里只负责查询
  */
 @Service
-public class DictServiceImpl implements DictService {
+public class DictServiceImpl implements DictService, DictDataProvider {
 
     // 模拟字典数据
     private static final Map<String, Map<String, String>> DICT_DATA = new HashMap<>();
@@ -52,4 +54,10 @@ public class DictServiceImpl implements DictService {
         }
         return dictLabel;
     }
+
+    @Override
+    public Map<String, String> getDict(String dictType) {
+        Map<String, String> dict = DICT_DATA.get(dictType);
+        return dict != null ? Collections.unmodifiableMap(dict) : null;
+    }
 }
@@ -0,0 +1,110 @@
+package cn.allbs.excel.test.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * SSE 延迟关闭调度
+ * 导出/导入完成后延迟一段时间再关闭连接，给前端主动关闭的机会（避免触发前端 onerror）。
+ * 所有延迟关闭共用一个调度线程，同一会话重复调度只保留最后一次，突发大量导出时线程数不变
+ */
+@Slf4j
+@Service
+public class EmitterCloseScheduler {
+
+    /**
+     * 默认延迟关闭时间
+     */
+    @Value("${app.progress.close-delay-ms:5000}")
+    private long closeDelayMs;
+
+    @Autowired
+    private ProgressService progressService;
+
+    private final Map<String, ScheduledFuture<?>> pendingCloses = new ConcurrentHashMap<>();
+
+    private final AtomicLong closedCount = new AtomicLong();
+
+    private ScheduledExecutorService scheduler;
+
+    @PostConstruct
+    public void init() {
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "sse-close-scheduler");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void destroy() {
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * 按默认延迟关闭会话的 SSE 连接
+     */
+    public void scheduleClose(String sessionId) {
+        scheduleClose(sessionId, closeDelayMs);
+    }
+
+    /**
+     * 延迟关闭会话的 SSE 连接
+     */
+    public void scheduleClose(String sessionId, long delayMs) {
+        pendingCloses.compute(sessionId, (key, previous) -> {
+            if (previous != null) {
+                previous.cancel(false);
+            }
+            return scheduler.schedule(() -> close(key), delayMs, TimeUnit.MILLISECONDS);
+        });
+    }
+
+    /**
+     * 取消尚未执行的延迟关闭
+     */
+    public void cancel(String sessionId) {
+        ScheduledFuture<?> future = pendingCloses.remove(sessionId);
+        if (future != null) {
+            future.cancel(false);
+        }
+    }
+
+    /**
+     * 等待关闭的会话数
+     */
+    public int getPendingCloses() {
+        return pendingCloses.size();
+    }
+
+    /**
+     * 累计关闭的会话数
+     */
+    public long getClosedCount() {
+        return closedCount.get();
+    }
+
+    private void close(String sessionId) {
+        // 只移除已到期的这一次调度，期间重新调度的保留
+        pendingCloses.computeIfPresent(sessionId,
+                (key, future) -> future.getDelay(TimeUnit.MILLISECONDS) <= 0 ? null : future);
+        try {
+            progressService.closeEmitter(sessionId);
+            closedCount.incrementAndGet();
+        } catch (RuntimeException e) {
+            log.warn("延迟关闭 SSE 连接失败: {}", sessionId, e);
+        }
+    }
+}
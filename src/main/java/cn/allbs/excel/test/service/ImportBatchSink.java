@@ -0,0 +1,32 @@
+package cn.allbs.excel.test.service;
+
+import java.util.List;
+
+/**
+ * 导入批次写入目标
+ * 解析出的有效数据按批次交给 sink 处理（如 JDBC 批量写入、回调处理），批次列表在回调后会被复用，不要持有引用
+ *
+ * @param <T> 数据类型
+ */
+@FunctionalInterface
+public interface ImportBatchSink<T> {
+
+    /**
+     * 写入一个批次
+     */
+    void write(List<T> batch) throws Exception;
+
+    /**
+     * 全部批次写入完成
+     */
+    default void onComplete() throws Exception {
+    }
+
+    /**
+     * 导入中止（严格模式发现错误、解析异常、任务取消）
+     *
+     * @param cause 中止原因，严格模式下为 null
+     */
+    default void onAbort(Throwable cause) {
+    }
+}
@@ -0,0 +1,80 @@
+package cn.allbs.excel.test.service;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 导入进度计数
+ * 解析线程（多 Sheet 时为多个线程）只做累加，查询线程通过 {@link #snapshot()} 读取，不加锁
+ */
+public class ImportProgressCounters {
+
+    /**
+     * 预估总行数，Sheet 解析结束后按实际行数修正
+     */
+    private final LongAdder totalRows = new LongAdder();
+    private final LongAdder processedRows = new LongAdder();
+    private final LongAdder successCount = new LongAdder();
+    private final LongAdder errorCount = new LongAdder();
+
+    public void addTotalRows(long delta) {
+        totalRows.add(delta);
+    }
+
+    public void rowSucceeded() {
+        processedRows.increment();
+        successCount.increment();
+    }
+
+    public void rowFailed() {
+        processedRows.increment();
+        errorCount.increment();
+    }
+
+    /**
+     * 当前进度快照
+     */
+    public Snapshot snapshot() {
+        long success = successCount.sum();
+        long error = errorCount.sum();
+        long processed = Math.max(processedRows.sum(), success + error);
+        long total = Math.max(totalRows.sum(), processed);
+        return new Snapshot((int) total, (int) processed, (int) success, (int) error);
+    }
+
+    /**
+     * 进度快照（不可变）
+     */
+    public static final class Snapshot {
+        private final int totalRows;
+        private final int processedRows;
+        private final int successCount;
+        private final int errorCount;
+
+        Snapshot(int totalRows, int processedRows, int successCount, int errorCount) {
+            this.totalRows = totalRows;
+            this.processedRows = processedRows;
+            this.successCount = successCount;
+            this.errorCount = errorCount;
+        }
+
+        public int getTotalRows() {
+            return totalRows;
+        }
+
+        public int getProcessedRows() {
+            return processedRows;
+        }
+
+        public int getSuccessCount() {
+            return successCount;
+        }
+
+        public int getErrorCount() {
+            return errorCount;
+        }
+
+        public double getPercentage() {
+            return totalRows > 0 ? processedRows * 100.0 / totalRows : 0.0;
+        }
+    }
+}
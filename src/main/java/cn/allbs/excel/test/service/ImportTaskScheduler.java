@@ -0,0 +1,244 @@
+package cn.allbs.excel.test.service;
+
+import cn.allbs.excel.test.listener.ProgressContext;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 导入任务调度器
+ * 固定数量的工作线程 + 有界等待队列，按租户轮询出队，单个租户批量提交不会饿死其他租户
+ */
+@Slf4j
+@Service
+public class ImportTaskScheduler {
+
+    /**
+     * 工作线程数
+     */
+    @Value("${app.import.workers:4}")
+    private int workers;
+
+    /**
+     * 等待队列容量（所有租户合计）
+     */
+    @Value("${app.import.queue-capacity:100}")
+    private int queueCapacity;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+
+    /**
+     * 每个租户一个 FIFO 队列
+     */
+    private final Map<String, Deque<QueuedTask>> tenantQueues = new HashMap<>();
+
+    /**
+     * 有待处理任务的租户，按轮询顺序排列
+     */
+    private final Deque<String> tenantRing = new ArrayDeque<>();
+
+    private int queuedCount;
+
+    private final AtomicInteger activeCount = new AtomicInteger();
+
+    private final List<Thread> workerThreads = new ArrayList<>();
+
+    private volatile boolean running;
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        for (int i = 0; i < workers; i++) {
+            Thread thread = new Thread(this::workLoop, "import-worker-" + i);
+            thread.setDaemon(true);
+            thread.start();
+            workerThreads.add(thread);
+        }
+        log.info("导入调度器启动: workers={}, queueCapacity={}", workers, queueCapacity);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        workerThreads.forEach(Thread::interrupt);
+    }
+
+    /**
+     * 提交任务，提交线程绑定的 {@link ProgressContext} 随任务带到工作线程
+     *
+     * @return 排队位置（从1开始）
+     * @throws RejectedExecutionException 队列已满
+     */
+    public int submit(String tenantId, String taskId, Runnable job) {
+        lock.lock();
+        try {
+            if (queuedCount >= queueCapacity) {
+                throw new RejectedExecutionException(String.format("导入队列已满（%d），请稍后重试", queueCapacity));
+            }
+            Deque<QueuedTask> queue = tenantQueues.computeIfAbsent(tenantId, k -> new ArrayDeque<>());
+            if (queue.isEmpty()) {
+                tenantRing.addLast(tenantId);
+            }
+            queue.addLast(new QueuedTask(taskId, ProgressContext.wrapCurrent(job)));
+            queuedCount++;
+            notEmpty.signal();
+            return positionOfLocked(taskId);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 从等待队列移除任务（已开始执行的任务无法移除）
+     */
+    public boolean remove(String taskId) {
+        lock.lock();
+        try {
+            Iterator<String> tenants = tenantRing.iterator();
+            while (tenants.hasNext()) {
+                String tenantId = tenants.next();
+                Deque<QueuedTask> queue = tenantQueues.get(tenantId);
+                if (queue.removeIf(task -> task.taskId.equals(taskId))) {
+                    queuedCount--;
+                    if (queue.isEmpty()) {
+                        tenants.remove();
+                        tenantQueues.remove(tenantId);
+                    }
+                    return true;
+                }
+            }
+            return false;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 当前排队位置（从1开始），不在队列中返回 -1
+     */
+    public int positionOf(String taskId) {
+        lock.lock();
+        try {
+            return positionOfLocked(taskId);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getQueuedCount() {
+        lock.lock();
+        try {
+            return queuedCount;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getActiveCount() {
+        return activeCount.get();
+    }
+
+    public int getWorkers() {
+        return workers;
+    }
+
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    /**
+     * 按轮询顺序模拟出队，计算排队位置
+     */
+    private int positionOfLocked(String taskId) {
+        int position = 0;
+        for (int round = 0; position < queuedCount; round++) {
+            for (String tenantId : tenantRing) {
+                Deque<QueuedTask> queue = tenantQueues.get(tenantId);
+                if (queue.size() > round) {
+                    position++;
+                    if (get(queue, round).taskId.equals(taskId)) {
+                        return position;
+                    }
+                }
+            }
+        }
+        return -1;
+    }
+
+    private static QueuedTask get(Deque<QueuedTask> queue, int index) {
+        Iterator<QueuedTask> iterator = queue.iterator();
+        QueuedTask task = iterator.next();
+        for (int i = 0; i < index; i++) {
+            task = iterator.next();
+        }
+        return task;
+    }
+
+    private void workLoop() {
+        while (running) {
+            QueuedTask task;
+            try {
+                task = take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+
+            activeCount.incrementAndGet();
+            try {
+                task.job.run();
+            } catch (Throwable e) {
+                log.error("导入任务执行异常: {}", task.taskId, e);
+            } finally {
+                activeCount.decrementAndGet();
+            }
+        }
+    }
+
+    private QueuedTask take() throws InterruptedException {
+        lock.lock();
+        try {
+            while (queuedCount == 0) {
+                notEmpty.await();
+            }
+            String tenantId = tenantRing.pollFirst();
+            Deque<QueuedTask> queue = tenantQueues.get(tenantId);
+            QueuedTask task = queue.pollFirst();
+            queuedCount--;
+            if (queue.isEmpty()) {
+                tenantQueues.remove(tenantId);
+            } else {
+                // 该租户还有任务，排到轮询末尾
+                tenantRing.addLast(tenantId);
+            }
+            return task;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static class QueuedTask {
+        private final String taskId;
+        private final Runnable job;
+
+        QueuedTask(String taskId, Runnable job) {
+            this.taskId = taskId;
+            this.job = job;
+        }
+    }
+}
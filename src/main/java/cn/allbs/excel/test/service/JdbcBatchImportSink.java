@@ -0,0 +1,99 @@
+package cn.allbs.excel.test.service;
+
+import lombok.extern.slf4j.Slf4j;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * JDBC 批量写入 sink
+ * 整个导入在一个事务内完成：每个批次执行一次 executeBatch，完成时提交，中止时回滚
+ *
+ * @param <T> 数据类型
+ */
+@Slf4j
+public class JdbcBatchImportSink<T> implements ImportBatchSink<T> {
+
+    private final DataSource dataSource;
+    private final String sql;
+    private final StatementBinder<T> binder;
+
+    private Connection connection;
+    private PreparedStatement statement;
+    private long writtenRows;
+
+    public JdbcBatchImportSink(DataSource dataSource, String sql, StatementBinder<T> binder) {
+        this.dataSource = dataSource;
+        this.sql = sql;
+        this.binder = binder;
+    }
+
+    @Override
+    public void write(List<T> batch) throws SQLException {
+        if (statement == null) {
+            connection = dataSource.getConnection();
+            connection.setAutoCommit(false);
+            statement = connection.prepareStatement(sql);
+        }
+        for (T row : batch) {
+            binder.bind(statement, row);
+            statement.addBatch();
+        }
+        statement.executeBatch();
+        statement.clearBatch();
+        writtenRows += batch.size();
+    }
+
+    @Override
+    public void onComplete() throws SQLException {
+        try {
+            if (connection != null) {
+                connection.commit();
+            }
+            log.info("JDBC 批量写入完成，共 {} 条", writtenRows);
+        } finally {
+            close();
+        }
+    }
+
+    @Override
+    public void onAbort(Throwable cause) {
+        try {
+            if (connection != null) {
+                connection.rollback();
+            }
+            log.warn("JDBC 批量写入已回滚，已写入 {} 条", writtenRows);
+        } catch (SQLException e) {
+            log.error("JDBC 回滚失败", e);
+        } finally {
+            close();
+        }
+    }
+
+    private void close() {
+        try {
+            if (statement != null) {
+                statement.close();
+            }
+            if (connection != null) {
+                connection.close();
+            }
+        } catch (SQLException e) {
+            log.warn("关闭 JDBC 连接失败: {}", e.getMessage());
+        } finally {
+            statement = null;
+            connection = null;
+        }
+    }
+
+    /**
+     * 参数绑定
+     */
+    @FunctionalInterface
+    public interface StatementBinder<T> {
+        void bind(PreparedStatement statement, T row) throws SQLException;
+    }
+}
@@ -1,29 +1,40 @@
 package cn.allbs.excel.test.service;
 
+import cn.allbs.excel.test.listener.ProgressContext;
 import cn.allbs.excel.vo.ErrorMessage;
 import cn.allbs.excel.vo.FieldError;
 import com.alibaba.excel.EasyExcel;
 import com.alibaba.excel.context.AnalysisContext;
 import com.alibaba.excel.event.AnalysisEventListener;
+import com.alibaba.excel.metadata.data.ReadCellData;
 import lombok.Data;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
-import javax.validation.ConstraintViolation;
-import javax.validation.Validation;
-import javax.validation.Validator;
-import java.io.ByteArrayInputStream;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.LocalDateTime;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * 数据预览服务
  * 支持上传预览、分页查看、校验错误展示、确认导入
+ * <p>
+ * 文件在后台解析，第一页解析出来即返回，解析进度通过 {@link ProgressService} 按 sessionId 推送
  */
 @Slf4j
 @Service
@@ -39,109 +50,219 @@ public class PreviewService {
      */
     private static final long SESSION_EXPIRE_MS = 30 * 60 * 1000;
 
-    private final Validator validator = Validation.buildDefaultValidatorFactory().getValidator();
+    private static final String PROGRESS_SHEET_NAME = "数据预览";
 
     /**
-     * 上传文件并预览
+     * 后台解析线程数
      */
-    public <T> PreviewResult<T> uploadAndPreview(MultipartFile file, Class<T> clazz, int pageSize) throws IOException {
-        String sessionId = UUID.randomUUID().toString();
+    @Value("${app.preview.parsers:2}")
+    private int parsers;
 
-        // 读取文件到内存
-        byte[] fileBytes = file.getBytes();
+    /**
+     * 解析过程中每多少行刷盘一次，刷盘后的行才能分页查看
+     */
+    @Value("${app.preview.publish-rows:1000}")
+    private int publishRows;
 
-        // 解析Excel并进行校验
-        List<T> allData = new ArrayList<>();
-        List<RowError> allErrors = new ArrayList<>();
+    /**
+     * 分页请求等待对应页解析出来的最长时间
+     */
+    @Value("${app.preview.page-wait-ms:30000}")
+    private long pageWaitMs;
 
-        EasyExcel.read(new ByteArrayInputStream(fileBytes), clazz, new AnalysisEventListener<T>() {
-            private int rowIndex = 1; // 从1开始（表头是0）
+    /**
+     * 确认导入时每批写入条数
+     */
+    @Value("${app.preview.confirm-batch-size:1000}")
+    private int confirmBatchSize;
 
-            @Override
-            public void invoke(T data, AnalysisContext context) {
-                rowIndex++;
-                // 校验数据
-                List<FieldError> fieldErrors = validateData(data, rowIndex);
+    @Autowired
+    private RowValidationEngine rowValidationEngine;
 
-                if (!fieldErrors.isEmpty()) {
-                    RowError rowError = new RowError();
-                    rowError.setRowIndex(rowIndex);
-                    rowError.setData(data);
-                    rowError.setFieldErrors(fieldErrors);
-                    allErrors.add(rowError);
-                }
+    @Autowired
+    private ProgressService progressService;
 
-                allData.add(data);
-            }
+    @Autowired
+    private EmitterCloseScheduler emitterCloseScheduler;
 
-            @Override
-            public void doAfterAllAnalysed(AnalysisContext context) {
-                log.info("Excel解析完成，共 {} 行数据，{} 行有错误", allData.size(), allErrors.size());
-            }
-        }).sheet().doRead();
+    private ExecutorService parserPool;
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger threadNo = new AtomicInteger();
+        parserPool = Executors.newFixedThreadPool(parsers, runnable -> {
+            Thread thread = new Thread(runnable, "preview-parser-" + threadNo.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void destroy() {
+        parserPool.shutdownNow();
+    }
+
+    /**
+     * 上传文件并预览
+     * 上传文件先落到会话目录，后台线程解析并逐批写入列式存储；第一页数据解析出来即返回，不等整个文件解析完成
+     */
+    public <T> PreviewResult<T> uploadAndPreview(MultipartFile file, Class<T> clazz, int pageSize) throws IOException {
+        String sessionId = UUID.randomUUID().toString();
 
-        // 创建会话
         PreviewSession session = new PreviewSession();
         session.setSessionId(sessionId);
-        session.setFileBytes(fileBytes);
-        session.setAllData(allData);
-        session.setAllErrors(allErrors);
-        session.setTotalRows(allData.size());
-        session.setErrorCount(allErrors.size());
-        session.setValidCount(allData.size() - allErrors.size());
         session.setCreatedAt(LocalDateTime.now());
-
-        // 构建错误行索引（快速查找）
-        Set<Integer> errorRowIndexes = allErrors.stream()
-                .map(RowError::getRowIndex)
-                .collect(Collectors.toSet());
-        session.setErrorRowIndexes(errorRowIndexes);
+        session.setSessionDir(Files.createTempDirectory("preview_"));
+        Path uploadFile;
+        try {
+            session.setRowStore(new ColumnarRowStore<>(session.getSessionDir(), clazz));
+            session.setErrorStore(new RowErrorStore(session.getSessionDir()));
+            uploadFile = spool(file, session.getSessionDir());
+        } catch (IOException | RuntimeException e) {
+            session.release();
+            throw e;
+        }
 
         sessions.put(sessionId, session);
+        parserPool.execute(ProgressContext.wrapCurrent(() -> parse(session, uploadFile, clazz, pageSize)));
 
-        // 返回第一页数据
+        // 等待第一页
+        session.awaitRows(pageSize, pageWaitMs);
+        if (session.getStatus() == PreviewStatus.FAILED) {
+            removeSession(sessionId);
+            throw new IOException("Excel解析失败: " + session.getFailure());
+        }
         return buildPreviewResult(session, 1, pageSize, clazz);
     }
 
+    /**
+     * 后台解析，每 publishRows 行刷盘一次，唤醒等待分页的请求并推送进度
+     */
+    @SuppressWarnings("unchecked")
+    private <T> void parse(PreviewSession session, Path uploadFile, Class<T> clazz, int firstPageRows) {
+        String sessionId = session.getSessionId();
+        ColumnarRowStore<T> rowStore = (ColumnarRowStore<T>) session.getRowStore();
+        RowErrorStore errorStore = session.getErrorStore();
+        progressService.sendProgress(sessionId, ProgressService.ProgressMessage.start(0, PROGRESS_SHEET_NAME));
+
+        PreviewStatus status = PreviewStatus.READY;
+        String failure = null;
+        try {
+            EasyExcel.read(uploadFile.toFile(), clazz, new AnalysisEventListener<T>() {
+                private int rowIndex = 1; // 从1开始（表头是0）
+                private int estimatedRows;
+                // 第一页攒够就刷盘，之后按批次刷盘
+                private int nextPublish = Math.max(1, firstPageRows);
+
+                @Override
+                public void invokeHead(Map<Integer, ReadCellData<?>> headMap, AnalysisContext context) {
+                    try {
+                        if (context.readSheetHolder() != null &&
+                                context.readSheetHolder().getApproximateTotalRowNumber() != null) {
+                            estimatedRows = context.readSheetHolder().getApproximateTotalRowNumber() - 1;
+                        }
+                    } catch (Exception e) {
+                        log.debug("无法获取总行数", e);
+                    }
+                }
+
+                @Override
+                public void invoke(T data, AnalysisContext context) {
+                    if (session.isCancelled()) {
+                        return;
+                    }
+                    rowIndex++;
+                    // 校验数据
+                    List<FieldError> fieldErrors = rowValidationEngine.validate(data);
+                    try {
+                        if (!fieldErrors.isEmpty()) {
+                            errorStore.append(rowIndex, fieldErrors);
+                        }
+                        rowStore.append(data);
+                        if (rowIndex - 1 >= nextPublish) {
+                            session.publish();
+                            nextPublish = rowIndex - 1 + publishRows;
+                            int parsedRows = rowIndex - 1;
+                            int totalRows = Math.max(estimatedRows, parsedRows);
+                            progressService.sendProgress(sessionId, ProgressService.ProgressMessage.progress(
+                                    parsedRows, totalRows, parsedRows * 100.0 / totalRows, PROGRESS_SHEET_NAME));
+                        }
+                    } catch (IOException e) {
+                        throw new UncheckedIOException("预览数据写入失败", e);
+                    }
+                }
+
+                @Override
+                public boolean hasNext(AnalysisContext context) {
+                    return !session.isCancelled();
+                }
+
+                @Override
+                public void doAfterAllAnalysed(AnalysisContext context) {
+                    log.info("Excel解析完成，共 {} 行数据，{} 行有错误", rowIndex - 1, errorStore.getIndex().size());
+                }
+            }).sheet().doRead();
+            session.publish();
+            progressService.sendProgress(sessionId,
+                    ProgressService.ProgressMessage.complete(session.getTotalRows(), PROGRESS_SHEET_NAME));
+        } catch (Exception e) {
+            log.error("预览解析失败: {}", sessionId, e);
+            status = PreviewStatus.FAILED;
+            failure = e.getMessage();
+            progressService.sendProgress(sessionId,
+                    ProgressService.ProgressMessage.error(PROGRESS_SHEET_NAME, e.getMessage()));
+        } finally {
+            try {
+                Files.deleteIfExists(uploadFile);
+            } catch (IOException e) {
+                log.warn("删除上传文件失败: {}", uploadFile, e);
+            }
+            if (session.finish(status, failure)) {
+                // 解析期间会话已被移除，由解析线程负责释放
+                session.release();
+            }
+            emitterCloseScheduler.scheduleClose(sessionId);
+        }
+    }
+
     /**
      * 获取指定页数据
      */
-    public <T> PreviewResult<T> getPage(String sessionId, int page, int pageSize, Class<T> clazz) {
+    public <T> PreviewResult<T> getPage(String sessionId, int page, int pageSize, Class<T> clazz) throws IOException {
         PreviewSession session = sessions.get(sessionId);
         if (session == null) {
             return null;
         }
 
+        // 解析中只等到请求的页解析出来
+        session.awaitRows(page * pageSize, pageWaitMs);
+
         return buildPreviewResult(session, page, pageSize, clazz);
     }
 
     /**
      * 获取错误数据（分页）
      */
-    public Map<String, Object> getErrors(String sessionId, int page, int pageSize) {
+    public Map<String, Object> getErrors(String sessionId, int page, int pageSize) throws IOException {
         PreviewSession session = sessions.get(sessionId);
         if (session == null) {
             return null;
         }
 
-        List<RowError> allErrors = session.getAllErrors();
-        int totalErrors = allErrors.size();
+        RowErrorStore errorStore = session.getErrorStore();
+        int totalErrors = errorStore.size();
         int totalPages = (int) Math.ceil((double) totalErrors / pageSize);
 
-        // 分页
+        // 分页，只读取本页的错误记录，错误行数据按行号从行存储读取
         int fromIndex = (page - 1) * pageSize;
-        int toIndex = Math.min(fromIndex + pageSize, totalErrors);
-
-        List<RowError> pageErrors = fromIndex < totalErrors
-                ? allErrors.subList(fromIndex, toIndex)
-                : Collections.emptyList();
+        List<RowError> pageErrors = errorStore.read(fromIndex, fromIndex + pageSize);
 
         // 构建返回结果
         List<Map<String, Object>> errorList = new ArrayList<>();
         for (RowError error : pageErrors) {
             Map<String, Object> errorMap = new HashMap<>();
             errorMap.put("rowIndex", error.getRowIndex());
-            errorMap.put("data", error.getData());
+            errorMap.put("data", session.getRowStore().get(error.getRowIndex() - 2));
             errorMap.put("fieldErrors", error.getFieldErrors().stream()
                     .map(fe -> {
                         Map<String, Object> feMap = new HashMap<>();
@@ -161,62 +282,118 @@ public class PreviewService {
         result.put("pageSize", pageSize);
         result.put("totalPages", totalPages);
         result.put("totalErrors", totalErrors);
+        result.put("parsing", session.getStatus() == PreviewStatus.PARSING);
         result.put("errors", errorList);
 
         return result;
     }
 
+    /**
+     * 确认导入（默认模拟入库）
+     */
+    public <T> Map<String, Object> confirmImport(String sessionId, boolean skipErrors, Class<T> clazz) throws IOException {
+        return confirmImport(sessionId, skipErrors, clazz,
+                batch -> log.debug("模拟入库 [{}]: {} 条", PROGRESS_SHEET_NAME, batch.size()));
+    }
+
     /**
      * 确认导入
+     * 按批次从行存储流式读取，通过错误位图跳过错误行后直接交给 sink，不复制整份数据
      */
-    public <T> Map<String, Object> confirmImport(String sessionId, boolean skipErrors, Class<T> clazz) {
+    @SuppressWarnings("unchecked")
+    public <T> Map<String, Object> confirmImport(String sessionId, boolean skipErrors, Class<T> clazz,
+                                                 ImportBatchSink<T> sink) throws IOException {
         PreviewSession session = sessions.get(sessionId);
         if (session == null) {
             return null;
         }
 
-        List<?> allData = session.getAllData();
-        Set<Integer> errorRowIndexes = session.getErrorRowIndexes();
-
-        List<Object> importedData = new ArrayList<>();
-        List<Object> skippedData = new ArrayList<>();
-
-        // 处理数据
-        for (int i = 0; i < allData.size(); i++) {
-            int rowIndex = i + 2; // Excel行号（从2开始，1是表头）
-            Object data = allData.get(i);
-
-            if (errorRowIndexes.contains(rowIndex)) {
-                if (skipErrors) {
-                    skippedData.add(data);
-                } else {
-                    // 严格模式，有错误则拒绝导入
-                    Map<String, Object> result = new HashMap<>();
-                    result.put("success", false);
-                    result.put("message", String.format("发现 %d 行数据有错误，请修正后重新导入或选择跳过错误", errorRowIndexes.size()));
-                    result.put("errorCount", errorRowIndexes.size());
-                    return result;
+        if (session.getStatus() != PreviewStatus.READY) {
+            Map<String, Object> result = new HashMap<>();
+            result.put("success", false);
+            result.put("message", session.getStatus() == PreviewStatus.PARSING
+                    ? "文件仍在解析中，请解析完成后再确认导入"
+                    : "文件解析失败: " + session.getFailure());
+            return result;
+        }
+
+        RowErrorIndex errorIndex = session.getErrorStore().getIndex();
+        if (!skipErrors && errorIndex.size() > 0) {
+            // 严格模式，有错误则拒绝导入
+            Map<String, Object> result = new HashMap<>();
+            result.put("success", false);
+            result.put("message", String.format("发现 %d 行数据有错误，请修正后重新导入或选择跳过错误", errorIndex.size()));
+            result.put("errorCount", errorIndex.size());
+            return result;
+        }
+
+        // 先从缓存摘掉会话，避免重复确认导致重复入库
+        if (!sessions.remove(sessionId, session)) {
+            return null;
+        }
+
+        ColumnarRowStore<T> rowStore = (ColumnarRowStore<T>) session.getRowStore();
+        int totalRows = rowStore.size();
+        int batchSize = Math.max(1, confirmBatchSize);
+        int importedCount = 0;
+        List<T> importedData = new ArrayList<>();
+        List<T> batch = new ArrayList<>(batchSize);
+        long start = System.nanoTime();
+        try {
+            for (int from = 0; from < totalRows; from += batchSize) {
+                List<T> chunk = rowStore.read(from, from + batchSize);
+                int firstRow = from + 2; // Excel行号（从2开始，1是表头）
+                List<T> valid = chunk;
+                if (errorIndex.nextErrorRow(firstRow, firstRow + chunk.size()) >= 0) {
+                    // 本批有错误行，过滤到复用的缓冲区
+                    batch.clear();
+                    for (int i = 0; i < chunk.size(); i++) {
+                        if (!errorIndex.contains(firstRow + i)) {
+                            batch.add(chunk.get(i));
+                        }
+                    }
+                    valid = batch;
+                }
+                if (valid.isEmpty()) {
+                    continue;
+                }
+
+                for (int i = 0; i < valid.size() && importedData.size() < 20; i++) {
+                    importedData.add(valid.get(i));
                 }
-            } else {
-                importedData.add(data);
+                sink.write(valid);
+                importedCount += valid.size();
             }
+            sink.onComplete();
+        } catch (Exception e) {
+            sink.onAbort(e);
+            // 入库失败保留会话，允许重试
+            sessions.put(sessionId, session);
+            throw new IllegalStateException("确认导入失败: " + e.getMessage(), e);
         }
+        long elapsedMs = Math.max(1, (System.nanoTime() - start) / 1_000_000);
+        int skippedCount = totalRows - importedCount;
+        long rowsPerSecond = importedCount * 1000L / elapsedMs;
 
-        // 模拟入库操作
-        log.info("确认导入：成功导入 {} 条数据，跳过 {} 条错误数据", importedData.size(), skippedData.size());
+        log.info("确认导入：成功导入 {} 条数据，跳过 {} 条错误数据，耗时 {} ms（{} 行/秒）",
+                importedCount, skippedCount, elapsedMs, rowsPerSecond);
 
         // 清除会话
-        sessions.remove(sessionId);
+        if (session.cancel()) {
+            session.release();
+        }
 
         Map<String, Object> result = new HashMap<>();
         result.put("success", true);
-        result.put("message", skipErrors && !skippedData.isEmpty()
-                ? String.format("导入完成，成功 %d 条，跳过 %d 条错误数据", importedData.size(), skippedData.size())
-                : String.format("导入成功，共 %d 条数据", importedData.size()));
-        result.put("importedCount", importedData.size());
-        result.put("skippedCount", skippedData.size());
-        result.put("importedData", importedData.size() > 20 ? importedData.subList(0, 20) : importedData);
-        result.put("hasMoreData", importedData.size() > 20);
+        result.put("message", skipErrors && skippedCount > 0
+                ? String.format("导入完成，成功 %d 条，跳过 %d 条错误数据", importedCount, skippedCount)
+                : String.format("导入成功，共 %d 条数据", importedCount));
+        result.put("importedCount", importedCount);
+        result.put("skippedCount", skippedCount);
+        result.put("elapsedMs", elapsedMs);
+        result.put("rowsPerSecond", rowsPerSecond);
+        result.put("importedData", importedData);
+        result.put("hasMoreData", importedCount > 20);
 
         return result;
     }
@@ -225,10 +402,33 @@ public class PreviewService {
      * 取消预览
      */
     public void cancelPreview(String sessionId) {
-        sessions.remove(sessionId);
+        removeSession(sessionId);
         log.info("取消预览会话: {}", sessionId);
     }
 
+    /**
+     * 移除会话并释放磁盘文件
+     */
+    private void removeSession(String sessionId) {
+        PreviewSession session = sessions.remove(sessionId);
+        if (session != null && session.cancel()) {
+            session.release();
+        }
+    }
+
+    /**
+     * 上传文件写入会话目录，保留原扩展名以便识别 xls/xlsx/csv
+     */
+    private Path spool(MultipartFile file, Path dir) throws IOException {
+        String fileName = file.getOriginalFilename();
+        String suffix = fileName != null && fileName.lastIndexOf('.') >= 0
+                ? fileName.substring(fileName.lastIndexOf('.'))
+                : ".xlsx";
+        Path uploadFile = Files.createTempFile(dir, "upload_", suffix);
+        file.transferTo(uploadFile);
+        return uploadFile;
+    }
+
     /**
      * 获取会话信息
      */
@@ -240,50 +440,47 @@ public class PreviewService {
      * 构建预览结果
      */
     @SuppressWarnings("unchecked")
-    private <T> PreviewResult<T> buildPreviewResult(PreviewSession session, int page, int pageSize, Class<T> clazz) {
-        List<?> allData = session.getAllData();
-        int totalRows = allData.size();
+    private <T> PreviewResult<T> buildPreviewResult(PreviewSession session, int page, int pageSize, Class<T> clazz) throws IOException {
+        ColumnarRowStore<T> rowStore = (ColumnarRowStore<T>) session.getRowStore();
+        // 解析中为已解析的行数
+        int totalRows = rowStore.size();
         int totalPages = (int) Math.ceil((double) totalRows / pageSize);
 
-        // 分页
+        // 分页，只映射本页范围的列数据
         int fromIndex = (page - 1) * pageSize;
-        int toIndex = Math.min(fromIndex + pageSize, totalRows);
+        int toIndex = Math.max(fromIndex, Math.min(fromIndex + pageSize, totalRows));
 
-        List<T> pageData = fromIndex < totalRows
-                ? (List<T>) allData.subList(fromIndex, toIndex)
-                : Collections.emptyList();
+        List<T> pageData = rowStore.read(fromIndex, toIndex);
 
-        // 获取当前页的错误信息
-        Set<Integer> errorRowIndexes = session.getErrorRowIndexes();
+        // 获取当前页的错误信息：位图跳到本页的错误行，二分查找定位错误，与错误总数无关
+        RowErrorStore errorStore = session.getErrorStore();
+        RowErrorIndex errorIndex = errorStore.getIndex();
         List<Map<String, Object>> pageErrors = new ArrayList<>();
 
-        for (int i = fromIndex; i < toIndex && i < totalRows; i++) {
-            int rowIndex = i + 2; // Excel行号
-            if (errorRowIndexes.contains(rowIndex)) {
-                // 找到对应的错误
-                RowError rowError = session.getAllErrors().stream()
-                        .filter(e -> e.getRowIndex() == rowIndex)
-                        .findFirst()
-                        .orElse(null);
-
-                if (rowError != null) {
-                    Map<String, Object> errorMap = new HashMap<>();
-                    errorMap.put("rowIndex", rowIndex);
-                    errorMap.put("dataIndex", i - fromIndex); // 在当前页的索引
-                    errorMap.put("fieldErrors", rowError.getFieldErrors().stream()
-                            .map(fe -> {
-                                Map<String, Object> feMap = new HashMap<>();
-                                feMap.put("fieldName", fe.getFieldName());
-                                feMap.put("propertyName", fe.getPropertyName());
-                                feMap.put("message", fe.getMessage());
-                                feMap.put("errorType", fe.getErrorType());
-                                feMap.put("fieldValue", fe.getFieldValue());
-                                return feMap;
-                            })
-                            .collect(Collectors.toList()));
-                    pageErrors.add(errorMap);
-                }
+        int toRow = toIndex + 2; // Excel行号（不含）
+        for (int rowIndex = errorIndex.nextErrorRow(fromIndex + 2, toRow); rowIndex >= 0;
+             rowIndex = errorIndex.nextErrorRow(rowIndex + 1, toRow)) {
+            RowError rowError = errorStore.findByRow(rowIndex);
+            if (rowError == null) {
+                // 错误已记录但还没刷盘
+                continue;
             }
+
+            Map<String, Object> errorMap = new HashMap<>();
+            errorMap.put("rowIndex", rowIndex);
+            errorMap.put("dataIndex", rowIndex - 2 - fromIndex); // 在当前页的索引
+            errorMap.put("fieldErrors", rowError.getFieldErrors().stream()
+                    .map(fe -> {
+                        Map<String, Object> feMap = new HashMap<>();
+                        feMap.put("fieldName", fe.getFieldName());
+                        feMap.put("propertyName", fe.getPropertyName());
+                        feMap.put("message", fe.getMessage());
+                        feMap.put("errorType", fe.getErrorType());
+                        feMap.put("fieldValue", fe.getFieldValue());
+                        return feMap;
+                    })
+                    .collect(Collectors.toList()));
+            pageErrors.add(errorMap);
         }
 
         PreviewResult<T> result = new PreviewResult<>();
@@ -293,47 +490,15 @@ public class PreviewService {
         result.setCurrentPage(page);
         result.setPageSize(pageSize);
         result.setData(pageData);
-        result.setHasErrors(!session.getAllErrors().isEmpty());
+        result.setHasErrors(session.getErrorCount() > 0);
         result.setErrorCount(session.getErrorCount());
         result.setValidCount(session.getValidCount());
         result.setErrors(pageErrors);
+        result.setParsing(session.getStatus() == PreviewStatus.PARSING);
 
         return result;
     }
 
-    /**
-     * 校验数据
-     */
-    private <T> List<FieldError> validateData(T data, int rowIndex) {
-        List<FieldError> errors = new ArrayList<>();
-
-        Set<ConstraintViolation<T>> violations = validator.validate(data);
-        for (ConstraintViolation<T> violation : violations) {
-            FieldError fieldError = new FieldError();
-            fieldError.setFieldName(violation.getPropertyPath().toString());
-            fieldError.setPropertyName(violation.getPropertyPath().toString());
-            fieldError.setMessage(violation.getMessage());
-            fieldError.setFieldValue(violation.getInvalidValue() != null ? violation.getInvalidValue().toString() : null);
-
-            // 根据注解类型判断错误类型
-            String annotationType = violation.getConstraintDescriptor().getAnnotation().annotationType().getSimpleName();
-            if ("NotNull".equals(annotationType) || "NotBlank".equals(annotationType) || "NotEmpty".equals(annotationType)) {
-                fieldError.setErrorType("REQUIRED");
-            } else if ("Email".equals(annotationType) || "Pattern".equals(annotationType)) {
-                fieldError.setErrorType("FORMAT");
-            } else if ("Min".equals(annotationType) || "Max".equals(annotationType) ||
-                    "Size".equals(annotationType) || "Range".equals(annotationType)) {
-                fieldError.setErrorType("RANGE");
-            } else {
-                fieldError.setErrorType("VALIDATION");
-            }
-
-            errors.add(fieldError);
-        }
-
-        return errors;
-    }
-
     /**
      * 定时清理过期会话
      */
@@ -346,6 +511,9 @@ public class PreviewService {
             boolean expired = (now - createdTime) > SESSION_EXPIRE_MS;
             if (expired) {
                 log.info("清理过期会话: {}", entry.getKey());
+                if (session.cancel()) {
+                    session.release();
+                }
             }
             return expired;
         });
@@ -357,14 +525,118 @@ public class PreviewService {
     @Data
     public static class PreviewSession {
         private String sessionId;
-        private byte[] fileBytes;
-        private List<?> allData;
-        private List<RowError> allErrors;
-        private Set<Integer> errorRowIndexes;
-        private int totalRows;
-        private int errorCount;
-        private int validCount;
+        /**
+         * 会话目录，存放列式行数据和错误数据
+         */
+        private Path sessionDir;
+        private ColumnarRowStore<?> rowStore;
+        private RowErrorStore errorStore;
+        /**
+         * 以下计数在解析过程中随刷盘更新
+         */
+        private volatile int totalRows;
+        private volatile int errorCount;
+        private volatile int validCount;
+        private volatile PreviewStatus status = PreviewStatus.PARSING;
+        private volatile String failure;
+        private volatile boolean cancelled;
         private LocalDateTime createdAt;
+
+        /**
+         * 刷盘并更新计数，唤醒等待分页的请求（解析线程调用）
+         * 行数据先于错误刷盘，保证可读的错误一定能查到它所在的行；
+         * 两次刷盘之间可读的行可能暂时查不到自己的错误，下一次刷盘后补上
+         */
+        public void publish() throws IOException {
+            rowStore.publish();
+            errorStore.publish();
+            synchronized (this) {
+                totalRows = rowStore.size();
+                errorCount = errorStore.size();
+                validCount = totalRows - errorCount;
+                notifyAll();
+            }
+        }
+
+        /**
+         * 等待已解析行数达到 rows，解析结束或超时返回
+         */
+        public synchronized void awaitRows(int rows, long timeoutMs) {
+            long deadline = System.currentTimeMillis() + timeoutMs;
+            while (status == PreviewStatus.PARSING && totalRows < rows) {
+                long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0) {
+                    return;
+                }
+                try {
+                    wait(remaining);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+
+        /**
+         * 解析结束
+         *
+         * @return 解析期间会话是否已被取消
+         */
+        synchronized boolean finish(PreviewStatus status, String failure) {
+            this.failure = failure;
+            this.status = status;
+            notifyAll();
+            return cancelled;
+        }
+
+        /**
+         * 取消会话
+         *
+         * @return 是否可以立即释放；解析中返回 false，由解析线程结束时释放
+         */
+        synchronized boolean cancel() {
+            cancelled = true;
+            return status != PreviewStatus.PARSING;
+        }
+
+        /**
+         * 关闭存储并删除会话目录
+         */
+        public void release() {
+            try {
+                if (rowStore != null) {
+                    rowStore.close();
+                }
+                if (errorStore != null) {
+                    errorStore.close();
+                }
+            } catch (IOException e) {
+                log.warn("关闭预览存储失败: {}", sessionId, e);
+            }
+            if (sessionDir == null) {
+                return;
+            }
+            try (Stream<Path> files = Files.walk(sessionDir)) {
+                files.sorted(Comparator.reverseOrder()).forEach(path -> {
+                    try {
+                        Files.deleteIfExists(path);
+                    } catch (IOException e) {
+                        log.warn("删除预览文件失败: {}", path, e);
+                    }
+                });
+            } catch (IOException e) {
+                log.warn("清理预览会话目录失败: {}", sessionDir, e);
+            }
+        }
+    }
+
+    /**
+     * 预览会话状态
+     */
+    public enum PreviewStatus {
+        PARSING,    // 解析中
+        READY,      // 解析完成
+        FAILED      // 解析失败
     }
 
     /**
@@ -392,5 +664,9 @@ public class PreviewService {
         private int errorCount;
         private int validCount;
         private List<Map<String, Object>> errors;
+        /**
+         * 是否仍在解析，为 true 时 totalRows 等计数会继续增长
+         */
+        private boolean parsing;
     }
 }
@@ -1,78 +1,505 @@
 package cn.allbs.excel.test.service;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
 import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
 
 /**
  * 进度推送服务 - 管理 SSE 连接
+ * <p>
+ * 每个 sessionId（导出会话、导入任务、预览会话）是一个主题，可以有多个订阅者（多个标签页、运维看板），
+ * 主题保留最近若干条事件，后订阅或断线重连（Last-Event-ID）的订阅者先补发错过的事件
+ * <p>
+ * sendProgress 只把消息放进主题的待发送队列就返回：未发送的进度消息只保留最新一条，
+ * 由定时合并线程按每主题每秒最多 N 条发布；start/complete/error/cancelled 等控制消息不丢弃、不限流。
+ * 每条事件只序列化一次，再分发到各订阅者自己的发送队列，慢订阅者只占住一个发送线程，不影响解析/导出和其他订阅者
  */
 @Service
 public class ProgressService {
 
     private static final Logger log = LoggerFactory.getLogger(ProgressService.class);
 
-    // 存储所有活跃的 SSE 连接，key 为 sessionId
-    private final Map<String, SseEmitter> emitters = new ConcurrentHashMap<>();
+    private static final String TYPE_PROGRESS = "progress";
+
+    private static final String EVENT_NAME = "progress";
+
+    /**
+     * 每个主题每秒最多发布的进度消息数
+     */
+    @Value("${app.progress.max-events-per-second:10}")
+    private int maxEventsPerSecond;
+
+    /**
+     * SSE 发送线程数
+     */
+    @Value("${app.progress.sender-threads:4}")
+    private int senderThreads;
+
+    /**
+     * 每个主题保留用于补发的事件数
+     */
+    @Value("${app.progress.replay-size:64}")
+    private int replaySize;
+
+    /**
+     * 单个订阅者积压的事件上限，超过后断开，由客户端带 Last-Event-ID 重连补发
+     */
+    @Value("${app.progress.subscriber-buffer:256}")
+    private int subscriberBuffer;
+
+    /**
+     * 没有订阅者的主题保留时间
+     */
+    @Value("${app.progress.topic-retention-ms:600000}")
+    private long topicRetentionMs;
+
+    /**
+     * 同时打开的 SSE 连接上限（所有主题合计）
+     */
+    @Value("${app.progress.max-emitters:1000}")
+    private int maxEmitters;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private final AtomicInteger openEmitters = new AtomicInteger();
+
+    // 所有主题，key 为 sessionId
+    private final Map<String, Topic> topics = new ConcurrentHashMap<>();
+
+    private long minIntervalNanos;
+
+    private ScheduledExecutorService coalescer;
+
+    private ExecutorService senders;
+
+    @PostConstruct
+    public void init() {
+        int eventsPerSecond = Math.max(1, maxEventsPerSecond);
+        minIntervalNanos = TimeUnit.SECONDS.toNanos(1) / eventsPerSecond;
+
+        coalescer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "progress-coalescer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        AtomicInteger threadNo = new AtomicInteger();
+        senders = Executors.newFixedThreadPool(Math.max(1, senderThreads), runnable -> {
+            Thread thread = new Thread(runnable, "progress-sender-" + threadNo.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        // 合并周期取发送间隔的一半，保证限流精度
+        long tickMs = Math.max(10, 500 / eventsPerSecond);
+        coalescer.scheduleWithFixedDelay(this::tick, tickMs, tickMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        coalescer.shutdownNow();
+        senders.shutdownNow();
+    }
 
     /**
      * 创建新的 SSE 连接
      */
     public SseEmitter createEmitter(String sessionId) {
+        return createEmitter(sessionId, null);
+    }
+
+    /**
+     * 创建新的 SSE 连接，先补发 lastEventId 之后的事件
+     *
+     * @param lastEventId 浏览器重连时带的 Last-Event-ID，为空时补发主题保留的全部事件
+     * @throws RejectedExecutionException 打开的连接数已达上限
+     */
+    public SseEmitter createEmitter(String sessionId, String lastEventId) {
+        if (openEmitters.incrementAndGet() > maxEmitters) {
+            openEmitters.decrementAndGet();
+            throw new RejectedExecutionException(String.format("SSE 连接数已达上限（%d），请稍后重试", maxEmitters));
+        }
+
         // 设置超时时间为 10 分钟
         SseEmitter emitter = new SseEmitter(600000L);
+        Topic topic = topics.computeIfAbsent(sessionId, Topic::new);
+        Subscriber subscriber = new Subscriber(topic, emitter);
 
         emitter.onCompletion(() -> {
             log.info("SSE 连接完成: {}", sessionId);
-            emitters.remove(sessionId);
+            topic.unsubscribe(subscriber);
         });
 
         emitter.onTimeout(() -> {
             log.warn("SSE 连接超时: {}", sessionId);
-            emitters.remove(sessionId);
+            topic.unsubscribe(subscriber);
         });
 
         emitter.onError((ex) -> {
             log.error("SSE 连接错误: {}", sessionId, ex);
-            emitters.remove(sessionId);
+            topic.unsubscribe(subscriber);
         });
 
-        emitters.put(sessionId, emitter);
-        log.info("创建新的 SSE 连接: {}", sessionId);
+        topic.subscribe(subscriber, parseEventId(lastEventId));
+        log.info("创建新的 SSE 连接: {}，当前订阅数 {}", sessionId, topic.subscribers.size());
 
+        dispatch(subscriber);
         return emitter;
     }
 
     /**
-     * 发送进度消息
+     * 发送进度消息（不阻塞调用线程）
      */
     public void sendProgress(String sessionId, ProgressMessage message) {
-        SseEmitter emitter = emitters.get(sessionId);
-        if (emitter != null) {
+        Topic topic = topics.computeIfAbsent(sessionId, Topic::new);
+        topic.offer(message);
+        if (!TYPE_PROGRESS.equals(message.getType())) {
+            // 控制消息立即发布
+            dispatch(topic);
+        }
+    }
+
+    /**
+     * 关闭主题的所有 SSE 连接，待发送的消息发完后再关闭；主题仍保留一段时间供后来者补发
+     */
+    public void closeEmitter(String sessionId) {
+        Topic topic = topics.get(sessionId);
+        if (topic != null) {
+            topic.closed = true;
+            dispatch(topic);
+        }
+    }
+
+    /**
+     * 当前打开的 SSE 连接数
+     */
+    public int getOpenEmitters() {
+        return openEmitters.get();
+    }
+
+    public int getMaxEmitters() {
+        return maxEmitters;
+    }
+
+    /**
+     * 当前保留的进度主题数
+     */
+    public int getTopicCount() {
+        return topics.size();
+    }
+
+    /**
+     * 定时检查各主题：到了发送间隔或有控制消息的交给发送线程，清理过期主题
+     */
+    private void tick() {
+        try {
+            long now = System.nanoTime();
+            long retentionNanos = TimeUnit.MILLISECONDS.toNanos(topicRetentionMs);
+            for (Topic topic : topics.values()) {
+                if (topic.isReady(now)) {
+                    dispatch(topic);
+                } else if (topic.isIdle(now, retentionNanos)) {
+                    topics.remove(topic.sessionId, topic);
+                }
+            }
+        } catch (RuntimeException e) {
+            log.error("进度合并推送异常", e);
+        }
+    }
+
+    private void dispatch(Topic topic) {
+        dispatch(topic.publishing, topic::publish, () -> topic.isReady(System.nanoTime()), topic.sessionId);
+    }
+
+    private void dispatch(Subscriber subscriber) {
+        dispatch(subscriber.sending, subscriber::flush, subscriber::hasPending, subscriber.topic.sessionId);
+    }
+
+    /**
+     * 同一主题/订阅者同一时刻只有一个发送任务；任务结束时若期间又有新事件则再次提交
+     */
+    private void dispatch(AtomicBoolean running, Runnable work, BooleanSupplier hasMore, String sessionId) {
+        if (running.compareAndSet(false, true)) {
             try {
-                emitter.send(SseEmitter.event()
-                    .name("progress")
-                    .data(message));
-            } catch (IOException e) {
-                log.error("发送进度消息失败: {}", sessionId, e);
-                emitters.remove(sessionId);
+                senders.execute(() -> {
+                    try {
+                        work.run();
+                    } finally {
+                        running.set(false);
+                    }
+                    if (hasMore.getAsBoolean()) {
+                        dispatch(running, work, hasMore, sessionId);
+                    }
+                });
+            } catch (RuntimeException e) {
+                running.set(false);
+                log.warn("进度发送任务提交失败: {}", sessionId, e);
             }
         }
     }
 
+    private static long parseEventId(String lastEventId) {
+        if (lastEventId == null || lastEventId.isEmpty()) {
+            return 0;
+        }
+        try {
+            return Long.parseLong(lastEventId.trim());
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
     /**
-     * 关闭 SSE 连接
+     * 已序列化的事件
      */
-    public void closeEmitter(String sessionId) {
-        SseEmitter emitter = emitters.remove(sessionId);
-        if (emitter != null) {
-            emitter.complete();
-            log.info("关闭 SSE 连接: {}", sessionId);
+    private static final class Event {
+        private final long id;
+        private final String json;
+
+        Event(long id, String json) {
+            this.id = id;
+            this.json = json;
+        }
+    }
+
+    /**
+     * 进度主题：待发布消息、补发缓冲和订阅者
+     */
+    private class Topic {
+        private final String sessionId;
+        private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+        private final AtomicBoolean publishing = new AtomicBoolean();
+
+        /**
+         * 待发布消息，连续的进度消息只保留最新一条（guarded by this）
+         */
+        private final Deque<ProgressMessage> pending = new ArrayDeque<>();
+
+        /**
+         * 最近事件环形缓冲，下标为 (id - 1) % 长度（guarded by this）
+         */
+        private final Event[] replay = new Event[Math.max(1, replaySize)];
+        private long nextEventId = 1;
+        private long lastProgressSentNanos;
+        private volatile long lastActiveNanos = System.nanoTime();
+        private volatile boolean closed;
+
+        Topic(String sessionId) {
+            this.sessionId = sessionId;
+        }
+
+        synchronized void offer(ProgressMessage message) {
+            if (TYPE_PROGRESS.equals(message.getType()) && !pending.isEmpty()
+                    && TYPE_PROGRESS.equals(pending.peekLast().getType())) {
+                pending.pollLast();
+            }
+            pending.addLast(message);
+            lastActiveNanos = System.nanoTime();
+        }
+
+        synchronized boolean isReady(long now) {
+            if (pending.isEmpty()) {
+                return false;
+            }
+            return closed || hasControlMessage() || now - lastProgressSentNanos >= minIntervalNanos;
+        }
+
+        synchronized boolean isIdle(long now, long retentionNanos) {
+            return subscribers.isEmpty() && pending.isEmpty() && now - lastActiveNanos > retentionNanos;
+        }
+
+        private boolean hasControlMessage() {
+            for (ProgressMessage message : pending) {
+                if (!TYPE_PROGRESS.equals(message.getType())) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        synchronized void subscribe(Subscriber subscriber, long lastEventId) {
+            long from = Math.max(lastEventId + 1, Math.max(1, nextEventId - replay.length));
+            for (long id = from; id < nextEventId; id++) {
+                subscriber.enqueue(replay[(int) ((id - 1) % replay.length)]);
+            }
+            subscribers.add(subscriber);
+            if (closed && pending.isEmpty()) {
+                // 主题已结束，补发完即关闭
+                subscriber.closeRequested = true;
+            }
+            lastActiveNanos = System.nanoTime();
+        }
+
+        void unsubscribe(Subscriber subscriber) {
+            if (subscribers.remove(subscriber)) {
+                openEmitters.decrementAndGet();
+            }
+            lastActiveNanos = System.nanoTime();
+        }
+
+        /**
+         * 在发送线程上执行：序列化一次，写入补发缓冲，分发到各订阅者
+         */
+        void publish() {
+            List<ProgressMessage> batch;
+            synchronized (this) {
+                long now = System.nanoTime();
+                if (!closed && !hasControlMessage() && now - lastProgressSentNanos < minIntervalNanos) {
+                    return;
+                }
+                batch = new ArrayList<>(pending);
+                pending.clear();
+                if (!batch.isEmpty()) {
+                    lastProgressSentNanos = now;
+                }
+            }
+
+            List<String> payloads = new ArrayList<>(batch.size());
+            for (ProgressMessage message : batch) {
+                try {
+                    payloads.add(objectMapper.writeValueAsString(message));
+                } catch (JsonProcessingException e) {
+                    log.error("进度消息序列化失败: {}", sessionId, e);
+                }
+            }
+
+            synchronized (this) {
+                for (String json : payloads) {
+                    Event event = new Event(nextEventId++, json);
+                    replay[(int) ((event.id - 1) % replay.length)] = event;
+                    for (Subscriber subscriber : subscribers) {
+                        subscriber.enqueue(event);
+                    }
+                }
+                if (closed && pending.isEmpty()) {
+                    for (Subscriber subscriber : subscribers) {
+                        subscriber.closeRequested = true;
+                    }
+                }
+            }
+
+            for (Subscriber subscriber : subscribers) {
+                dispatch(subscriber);
+            }
+        }
+    }
+
+    /**
+     * 单个 SSE 连接及其发送队列
+     */
+    private class Subscriber {
+        private final Topic topic;
+        private final SseEmitter emitter;
+        private final AtomicBoolean sending = new AtomicBoolean();
+
+        /**
+         * 待发送事件（guarded by this）
+         */
+        private final Deque<Event> queue = new ArrayDeque<>();
+        private boolean overflow;
+        private boolean completed;
+        private volatile boolean closeRequested;
+
+        Subscriber(Topic topic, SseEmitter emitter) {
+            this.topic = topic;
+            this.emitter = emitter;
+        }
+
+        synchronized boolean hasPending() {
+            return !completed && (!queue.isEmpty() || overflow || closeRequested);
+        }
+
+        synchronized void enqueue(Event event) {
+            if (completed) {
+                return;
+            }
+            if (queue.size() >= subscriberBuffer) {
+                overflow = true;
+                return;
+            }
+            queue.addLast(event);
+        }
+
+        /**
+         * 在发送线程上执行
+         */
+        void flush() {
+            List<Event> batch;
+            boolean slow;
+            synchronized (this) {
+                if (completed) {
+                    return;
+                }
+                batch = new ArrayList<>(queue);
+                queue.clear();
+                slow = overflow;
+            }
+
+            for (Event event : batch) {
+                try {
+                    emitter.send(SseEmitter.event()
+                        .id(String.valueOf(event.id))
+                        .name(EVENT_NAME)
+                        .data(event.json, MediaType.APPLICATION_JSON));
+                } catch (IOException | IllegalStateException e) {
+                    log.error("发送进度消息失败: {}", topic.sessionId, e);
+                    markCompleted();
+                    return;
+                }
+            }
+
+            if (slow) {
+                // 积压过多，断开后客户端带 Last-Event-ID 重连补发
+                log.warn("SSE 订阅者积压超过 {} 条，断开重连: {}", subscriberBuffer, topic.sessionId);
+                markCompleted();
+                emitter.complete();
+                return;
+            }
+
+            if (closeRequested) {
+                synchronized (this) {
+                    if (!queue.isEmpty()) {
+                        // 关闭前又有新事件，发完再关闭
+                        return;
+                    }
+                }
+                markCompleted();
+                emitter.complete();
+                log.info("关闭 SSE 连接: {}", topic.sessionId);
+            }
+        }
+
+        private void markCompleted() {
+            synchronized (this) {
+                completed = true;
+                queue.clear();
+            }
+            topic.unsubscribe(this);
         }
     }
 
@@ -80,7 +507,7 @@ public class ProgressService {
      * 进度消息类
      */
     public static class ProgressMessage {
-        private String type; // start, progress, complete, error
+        private String type; // start, progress, complete, error, cancelled
         private int currentRow;
         private int totalRows;
         private double percentage;
@@ -116,6 +543,11 @@ public class ProgressService {
             return new ProgressMessage("error", 0, 0, 0.0, sheetName, errorMessage);
         }
 
+        public static ProgressMessage cancelled(int currentRow, int totalRows, String sheetName) {
+            double percentage = totalRows > 0 ? currentRow * 100.0 / totalRows : 0.0;
+            return new ProgressMessage("cancelled", currentRow, totalRows, percentage, sheetName, "已取消");
+        }
+
         // Getters and Setters
         public String getType() {
             return type;
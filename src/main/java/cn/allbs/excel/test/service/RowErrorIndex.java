@@ -0,0 +1,68 @@
+package cn.allbs.excel.test.service;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * 错误行索引
+ * 行号 -> 错误序号（错误在错误列表中的下标），行号位图判断是否有错，有序 int 数组二分查找定位，不装箱
+ * <p>
+ * 解析线程按行号递增顺序追加，分页线程可同时查询
+ */
+public class RowErrorIndex {
+
+    private final BitSet rows = new BitSet();
+
+    private int[] rowIndexes = new int[16];
+
+    private int size;
+
+    /**
+     * 追加一个错误行，行号必须递增
+     *
+     * @return 该错误的序号
+     */
+    public synchronized int add(int rowIndex) {
+        if (size > 0 && rowIndex <= rowIndexes[size - 1]) {
+            throw new IllegalArgumentException("错误行号必须递增: " + rowIndex);
+        }
+        if (size == rowIndexes.length) {
+            rowIndexes = Arrays.copyOf(rowIndexes, size + (size >> 1));
+        }
+        rowIndexes[size] = rowIndex;
+        rows.set(rowIndex);
+        return size++;
+    }
+
+    /**
+     * 该行是否有错误
+     */
+    public synchronized boolean contains(int rowIndex) {
+        return rowIndex >= 0 && rows.get(rowIndex);
+    }
+
+    /**
+     * 错误序号，没有错误返回 -1
+     */
+    public synchronized int ordinalOf(int rowIndex) {
+        if (!contains(rowIndex)) {
+            return -1;
+        }
+        return Arrays.binarySearch(rowIndexes, 0, size, rowIndex);
+    }
+
+    /**
+     * [fromRow, toRow) 范围内的下一个错误行，没有返回 -1
+     */
+    public synchronized int nextErrorRow(int fromRow, int toRow) {
+        int next = rows.nextSetBit(Math.max(0, fromRow));
+        return next >= 0 && next < toRow ? next : -1;
+    }
+
+    /**
+     * 错误行数
+     */
+    public synchronized int size() {
+        return size;
+    }
+}
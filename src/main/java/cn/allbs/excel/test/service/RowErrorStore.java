@@ -0,0 +1,112 @@
+package cn.allbs.excel.test.service;
+
+import cn.allbs.excel.vo.FieldError;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static cn.allbs.excel.test.service.ColumnarRowStore.readString;
+import static cn.allbs.excel.test.service.ColumnarRowStore.writeString;
+
+/**
+ * 落盘的行错误
+ * 错误记录（行号 + 字段错误）顺序写入 {@link SpillFile}，堆上只保留 {@link RowErrorIndex}；
+ * 错误行数据本身不重复存储，由调用方从行存储按行号读取
+ */
+public class RowErrorStore implements Closeable {
+
+    private final SpillFile file;
+    private final RowErrorIndex index = new RowErrorIndex();
+    private final ByteArrayOutputStream record = new ByteArrayOutputStream(256);
+    private final DataOutputStream recordOut = new DataOutputStream(record);
+
+    public RowErrorStore(Path dir) throws IOException {
+        this.file = new SpillFile(dir, "errors");
+    }
+
+    /**
+     * 追加错误行（行号递增，单线程调用）
+     */
+    public void append(int rowIndex, List<FieldError> fieldErrors) throws IOException {
+        record.reset();
+        recordOut.writeInt(rowIndex);
+        recordOut.writeInt(fieldErrors.size());
+        for (FieldError fieldError : fieldErrors) {
+            writeString(recordOut, fieldError.getFieldName());
+            writeString(recordOut, fieldError.getPropertyName());
+            writeString(recordOut, fieldError.getMessage());
+            Object fieldValue = fieldError.getFieldValue();
+            writeString(recordOut, fieldValue != null ? String.valueOf(fieldValue) : null);
+            writeString(recordOut, fieldError.getErrorType());
+        }
+        file.append(record);
+        index.add(rowIndex);
+    }
+
+    /**
+     * 刷盘，使已追加的错误可读
+     */
+    public void publish() throws IOException {
+        file.publish();
+    }
+
+    /**
+     * 已可读的错误数
+     */
+    public int size() {
+        return file.getPublished();
+    }
+
+    public RowErrorIndex getIndex() {
+        return index;
+    }
+
+    /**
+     * 按错误序号读取 [from, to) 范围的错误（data 为空）
+     */
+    public List<PreviewService.RowError> read(int from, int to) throws IOException {
+        List<ByteBuffer> records = file.read(from, to);
+        List<PreviewService.RowError> errors = new ArrayList<>(records.size());
+        for (ByteBuffer buffer : records) {
+            PreviewService.RowError rowError = new PreviewService.RowError();
+            rowError.setRowIndex(buffer.getInt());
+            int count = buffer.getInt();
+            List<FieldError> fieldErrors = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                FieldError fieldError = new FieldError();
+                fieldError.setFieldName(readString(buffer));
+                fieldError.setPropertyName(readString(buffer));
+                fieldError.setMessage(readString(buffer));
+                fieldError.setFieldValue(readString(buffer));
+                fieldError.setErrorType(readString(buffer));
+                fieldErrors.add(fieldError);
+            }
+            rowError.setFieldErrors(fieldErrors);
+            errors.add(rowError);
+        }
+        return errors;
+    }
+
+    /**
+     * 查找某一行的错误，没有返回 null
+     */
+    public PreviewService.RowError findByRow(int rowIndex) throws IOException {
+        int ordinal = index.ordinalOf(rowIndex);
+        if (ordinal < 0) {
+            return null;
+        }
+        List<PreviewService.RowError> errors = read(ordinal, ordinal + 1);
+        return errors.isEmpty() ? null : errors.get(0);
+    }
+
+    @Override
+    public void close() throws IOException {
+        file.close();
+    }
+}
@@ -0,0 +1,146 @@
+package cn.allbs.excel.test.service;
+
+import cn.allbs.excel.vo.FieldError;
+import org.springframework.stereotype.Service;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.Validation;
+import javax.validation.Validator;
+import javax.validation.metadata.BeanDescriptor;
+import javax.validation.metadata.ConstraintDescriptor;
+import javax.validation.metadata.PropertyDescriptor;
+import java.lang.annotation.Annotation;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 行数据校验引擎
+ * 每个 DTO 类型首次校验时编译一份校验计划，缓存约束到错误类型、属性名的映射，逐行校验时不再做注解名比较和路径拼接；
+ * 没有约束的类型直接跳过校验，校验通过的行返回共享的空列表
+ */
+@Service
+public class RowValidationEngine {
+
+    private final Validator validator;
+
+    private final Map<Class<?>, ValidationPlan> plans = new ConcurrentHashMap<>();
+
+    /**
+     * 约束注解类型到错误类型的缓存
+     */
+    private final Map<Class<? extends Annotation>, String> errorTypes = new ConcurrentHashMap<>();
+
+    public RowValidationEngine() {
+        this(Validation.buildDefaultValidatorFactory().getValidator());
+    }
+
+    public RowValidationEngine(Validator validator) {
+        this.validator = validator;
+    }
+
+    /**
+     * 校验一行数据
+     *
+     * @return 字段错误，校验通过时返回不可变的空列表
+     */
+    public List<FieldError> validate(Object data) {
+        if (data == null) {
+            return Collections.emptyList();
+        }
+
+        ValidationPlan plan = plans.get(data.getClass());
+        if (plan == null) {
+            plan = plans.computeIfAbsent(data.getClass(), this::compile);
+        }
+        if (!plan.constrained) {
+            return Collections.emptyList();
+        }
+
+        Set<ConstraintViolation<Object>> violations = validator.validate(data);
+        if (violations.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        List<FieldError> errors = new ArrayList<>(violations.size());
+        for (ConstraintViolation<Object> violation : violations) {
+            ConstraintRule rule = plan.rules.get(violation.getConstraintDescriptor());
+            String propertyName = rule != null ? rule.propertyName : violation.getPropertyPath().toString();
+            String errorType = rule != null ? rule.errorType
+                    : errorType(violation.getConstraintDescriptor().getAnnotation().annotationType());
+
+            FieldError fieldError = new FieldError();
+            fieldError.setFieldName(propertyName);
+            fieldError.setPropertyName(propertyName);
+            fieldError.setMessage(violation.getMessage());
+            fieldError.setFieldValue(violation.getInvalidValue() != null ? violation.getInvalidValue().toString() : null);
+            fieldError.setErrorType(errorType);
+            errors.add(fieldError);
+        }
+        return errors;
+    }
+
+    /**
+     * 编译校验计划
+     * 约束描述符按实例映射：Hibernate Validator 的违规信息复用元数据中的描述符实例，未命中时按违规路径兜底
+     */
+    private ValidationPlan compile(Class<?> clazz) {
+        BeanDescriptor beanDescriptor = validator.getConstraintsForClass(clazz);
+        Map<ConstraintDescriptor<?>, ConstraintRule> rules = new IdentityHashMap<>();
+        for (PropertyDescriptor property : beanDescriptor.getConstrainedProperties()) {
+            for (ConstraintDescriptor<?> descriptor : property.getConstraintDescriptors()) {
+                rules.put(descriptor, new ConstraintRule(property.getPropertyName(),
+                        errorType(descriptor.getAnnotation().annotationType())));
+            }
+        }
+        return new ValidationPlan(beanDescriptor.isBeanConstrained(), rules);
+    }
+
+    /**
+     * 根据注解类型判断错误类型
+     */
+    private String errorType(Class<? extends Annotation> annotationType) {
+        return errorTypes.computeIfAbsent(annotationType, type -> {
+            String name = type.getSimpleName();
+            if ("NotNull".equals(name) || "NotBlank".equals(name) || "NotEmpty".equals(name)) {
+                return "REQUIRED";
+            } else if ("Email".equals(name) || "Pattern".equals(name)) {
+                return "FORMAT";
+            } else if ("Min".equals(name) || "Max".equals(name) ||
+                    "Size".equals(name) || "Range".equals(name)) {
+                return "RANGE";
+            }
+            return "VALIDATION";
+        });
+    }
+
+    /**
+     * 校验计划（编译后只读）
+     */
+    private static class ValidationPlan {
+        private final boolean constrained;
+        private final Map<ConstraintDescriptor<?>, ConstraintRule> rules;
+
+        ValidationPlan(boolean constrained, Map<ConstraintDescriptor<?>, ConstraintRule> rules) {
+            this.constrained = constrained;
+            this.rules = rules;
+        }
+    }
+
+    /**
+     * 单个约束的预计算结果
+     */
+    private static class ConstraintRule {
+        private final String propertyName;
+        private final String errorType;
+
+        ConstraintRule(String propertyName, String errorType) {
+            this.propertyName = propertyName;
+            this.errorType = errorType;
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package cn.allbs.excel.test.service;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 落盘记录文件
+ * 数据文件顺序追加变长记录，索引文件按记录顺序写入每条记录的结束偏移（long），
+ * 读取时只映射所需区间的索引和数据，不把整个文件读进堆
+ * <p>
+ * 单线程追加；{@link #publish()} 之后的记录对任意线程可读
+ */
+class SpillFile implements Closeable {
+
+    private final Path dataFile;
+    private final Path indexFile;
+    private final DataOutputStream dataOut;
+    private final DataOutputStream indexOut;
+
+    /**
+     * 已写入数据的字节数
+     */
+    private long written;
+
+    private int count;
+
+    /**
+     * 已刷盘、可读的记录数
+     */
+    private volatile int published;
+
+    SpillFile(Path dir, String name) throws IOException {
+        this.dataFile = dir.resolve(name + ".dat");
+        this.indexFile = dir.resolve(name + ".idx");
+        this.dataOut = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(dataFile), 64 * 1024));
+        this.indexOut = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(indexFile), 8 * 1024));
+    }
+
+    /**
+     * 追加一条记录
+     *
+     * @return 记录序号
+     */
+    int append(ByteArrayOutputStream record) throws IOException {
+        record.writeTo(dataOut);
+        written += record.size();
+        indexOut.writeLong(written);
+        return count++;
+    }
+
+    /**
+     * 刷盘，使已追加的记录可读
+     */
+    void publish() throws IOException {
+        dataOut.flush();
+        indexOut.flush();
+        published = count;
+    }
+
+    int getPublished() {
+        return published;
+    }
+
+    /**
+     * 读取 [from, to) 范围的记录，每条记录一个 ByteBuffer
+     */
+    List<ByteBuffer> read(int from, int to) throws IOException {
+        int end = Math.min(to, published);
+        if (from >= end) {
+            return new ArrayList<>(0);
+        }
+
+        long[] offsets = new long[end - from + 1];
+        try (FileChannel index = FileChannel.open(indexFile, StandardOpenOption.READ)) {
+            long indexStart = from == 0 ? 0 : (long) (from - 1) * Long.BYTES;
+            int indexLength = (end - from + (from == 0 ? 0 : 1)) * Long.BYTES;
+            MappedByteBuffer buffer = index.map(FileChannel.MapMode.READ_ONLY, indexStart, indexLength);
+            int i = 0;
+            if (from == 0) {
+                offsets[i++] = 0;
+            }
+            while (i < offsets.length) {
+                offsets[i++] = buffer.getLong();
+            }
+        }
+
+        List<ByteBuffer> records = new ArrayList<>(end - from);
+        try (FileChannel data = FileChannel.open(dataFile, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = data.map(FileChannel.MapMode.READ_ONLY, offsets[0],
+                    offsets[offsets.length - 1] - offsets[0]);
+            for (int i = 0; i < end - from; i++) {
+                ByteBuffer record = buffer.duplicate();
+                record.position((int) (offsets[i] - offsets[0]));
+                record.limit((int) (offsets[i + 1] - offsets[0]));
+                records.add(record.slice());
+            }
+        }
+        return records;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            dataOut.close();
+        } finally {
+            indexOut.close();
+        }
+    }
+}
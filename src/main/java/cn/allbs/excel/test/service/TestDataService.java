@@ -11,6 +11,8 @@ import org.springframework.stereotype.Service;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 /**
  * 测试数据生成服务
@@ -35,18 +37,29 @@ public class TestDataService {
     public List<UserDTO> generateUsers(int count) {
         List<UserDTO> users = new ArrayList<>();
         for (int i = 1; i <= count; i++) {
-            UserDTO user = new UserDTO();
-            user.setId((long) i);
-            user.setUsername(NAMES[i % NAMES.length] + i);
-            user.setEmail("user" + i + "@example.com");
-            user.setCreateTime(LocalDateTime.now().minusDays(RandomUtil.randomInt(1, 365)));
-            user.setAge(RandomUtil.randomInt(18, 60));
-            user.setStatus(STATUSES[RandomUtil.randomInt(0, STATUSES.length)]);
-            users.add(user);
+            users.add(createUser(i));
         }
         return users;
     }
 
+    /**
+     * 按需生成用户测试数据（流式导出用，不预先生成整个列表）
+     */
+    public Stream<UserDTO> streamUsers(int count) {
+        return IntStream.rangeClosed(1, count).mapToObj(this::createUser);
+    }
+
+    private UserDTO createUser(int i) {
+        UserDTO user = new UserDTO();
+        user.setId((long) i);
+        user.setUsername(NAMES[i % NAMES.length] + i);
+        user.setEmail("user" + i + "@example.com");
+        user.setCreateTime(LocalDateTime.now().minusDays(RandomUtil.randomInt(1, 365)));
+        user.setAge(RandomUtil.randomInt(18, 60));
+        user.setStatus(STATUSES[RandomUtil.randomInt(0, STATUSES.length)]);
+        return user;
+    }
+
     /**
      * 生成员工测试数据（用于测试合并单元格）
      */
@@ -116,21 +129,47 @@ public class TestDataService {
     public List<SensitiveUserDTO> generateSensitiveUsers(int count) {
         List<SensitiveUserDTO> users = new ArrayList<>();
         for (int i = 1; i <= count; i++) {
-            SensitiveUserDTO user = new SensitiveUserDTO();
-            user.setId((long) i);
-            user.setName(NAMES[i % NAMES.length]);
-            user.setPhone("138" + String.format("%08d", RandomUtil.randomInt(10000000, 99999999)));
-            user.setIdCard("11010119" + (1990 + i % 20) + String.format("%08d", i));
-            user.setEmail("user" + i + "@example.com");
-            user.setBankCard("6222021234567890" + String.format("%04d", i));
-            user.setAddress("北京市海淀区中关村软件园" + i + "号楼");
-            user.setSex(i % 2 == 0 ? "1" : "0");  // 字典值：0-女，1-男
-            user.setStatus(String.valueOf(i % 3));  // 字典值：0-正常，1-禁用，2-锁定
-            users.add(user);
+            users.add(createSensitiveUser(i));
         }
         return users;
     }
 
+    /**
+     * 按需生成敏感信息用户数据（流式导出用）
+     */
+    public Stream<SensitiveUserDTO> streamSensitiveUsers(int count) {
+        return IntStream.rangeClosed(1, count).mapToObj(this::createSensitiveUser);
+    }
+
+    /**
+     * 分页生成敏感信息用户数据，模拟分页查询数据库
+     *
+     * @param pageNo 页码，从 1 开始
+     */
+    public List<SensitiveUserDTO> pageSensitiveUsers(int count, int pageNo, int pageSize) {
+        int from = (pageNo - 1) * pageSize + 1;
+        int to = Math.min(count, from + pageSize - 1);
+        List<SensitiveUserDTO> users = new ArrayList<>(Math.max(0, to - from + 1));
+        for (int i = from; i <= to; i++) {
+            users.add(createSensitiveUser(i));
+        }
+        return users;
+    }
+
+    private SensitiveUserDTO createSensitiveUser(int i) {
+        SensitiveUserDTO user = new SensitiveUserDTO();
+        user.setId((long) i);
+        user.setName(NAMES[i % NAMES.length]);
+        user.setPhone("138" + String.format("%08d", RandomUtil.randomInt(10000000, 99999999)));
+        user.setIdCard("11010119" + (1990 + i % 20) + String.format("%08d", i));
+        user.setEmail("user" + i + "@example.com");
+        user.setBankCard("6222021234567890" + String.format("%04d", i));
+        user.setAddress("北京市海淀区中关村软件园" + i + "号楼");
+        user.setSex(i % 2 == 0 ? "1" : "0");  // 字典值：0-女，1-男
+        user.setStatus(String.valueOf(i % 3));  // 字典值：0-正常，1-禁用，2-锁定
+        return user;
+    }
+
     /**
      * 生成产品测试数据
      */
@@ -260,38 +299,48 @@ public class TestDataService {
     public List<FlattenListOrderDTO> generateFlattenListOrders(int count) {
         List<FlattenListOrderDTO> list = new ArrayList<>();
         for (int i = 1; i <= count; i++) {
-            FlattenListOrderDTO dto = new FlattenListOrderDTO();
-            dto.setOrderNo("ORDER" + String.format("%06d", i));
-            dto.setOrderTime(LocalDateTime.now().minusDays(RandomUtil.randomInt(1, 30)));
-            dto.setStatus(ORDER_STATUSES[i % ORDER_STATUSES.length]);
-
-            // 客户信息
-            Customer customer = new Customer();
-            customer.setName(NAMES[i % NAMES.length]);
-            customer.setPhone("138" + String.format("%08d", RandomUtil.randomInt(10000000, 99999999)));
-            customer.setCity(CITIES[i % CITIES.length]);
-            dto.setCustomer(customer);
-
-            // 订单明细
-            List<OrderItem> items = new ArrayList<>();
-            int itemCount = RandomUtil.randomInt(1, 5);
-            for (int j = 0; j < itemCount; j++) {
-                OrderItem item = new OrderItem();
-                item.setProductName(PRODUCTS[(i + j) % PRODUCTS.length]);
-                item.setSku("SKU-" + (i * 100 + j));
-                item.setQuantity(RandomUtil.randomInt(1, 10));
-                BigDecimal price = new BigDecimal(RandomUtil.randomDouble(100, 5000)).setScale(2, BigDecimal.ROUND_HALF_UP);
-                item.setPrice(price);
-                item.setSubtotal(price.multiply(new BigDecimal(item.getQuantity())));
-                items.add(item);
-            }
-            dto.setItems(items);
-
-            list.add(dto);
+            list.add(createFlattenListOrder(i));
         }
         return list;
     }
 
+    /**
+     * 按需逐个生成 @FlattenList 订单示例数据，用于流式导出
+     */
+    public Stream<FlattenListOrderDTO> streamFlattenListOrders(int count) {
+        return IntStream.rangeClosed(1, count).mapToObj(this::createFlattenListOrder);
+    }
+
+    private FlattenListOrderDTO createFlattenListOrder(int i) {
+        FlattenListOrderDTO dto = new FlattenListOrderDTO();
+        dto.setOrderNo("ORDER" + String.format("%06d", i));
+        dto.setOrderTime(LocalDateTime.now().minusDays(RandomUtil.randomInt(1, 30)));
+        dto.setStatus(ORDER_STATUSES[i % ORDER_STATUSES.length]);
+
+        // 客户信息
+        Customer customer = new Customer();
+        customer.setName(NAMES[i % NAMES.length]);
+        customer.setPhone("138" + String.format("%08d", RandomUtil.randomInt(10000000, 99999999)));
+        customer.setCity(CITIES[i % CITIES.length]);
+        dto.setCustomer(customer);
+
+        // 订单明细
+        List<OrderItem> items = new ArrayList<>();
+        int itemCount = RandomUtil.randomInt(1, 5);
+        for (int j = 0; j < itemCount; j++) {
+            OrderItem item = new OrderItem();
+            item.setProductName(PRODUCTS[(i + j) % PRODUCTS.length]);
+            item.setSku("SKU-" + (i * 100 + j));
+            item.setQuantity(RandomUtil.randomInt(1, 10));
+            BigDecimal price = new BigDecimal(RandomUtil.randomDouble(100, 5000)).setScale(2, BigDecimal.ROUND_HALF_UP);
+            item.setPrice(price);
+            item.setSubtotal(price.multiply(new BigDecimal(item.getQuantity())));
+            items.add(item);
+        }
+        dto.setItems(items);
+        return dto;
+    }
+
     /**
      * 生成 @FlattenList 学生示例数据（多 List）
      */